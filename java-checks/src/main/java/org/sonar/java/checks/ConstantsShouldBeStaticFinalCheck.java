@@ -117,8 +117,8 @@ public class ConstantsShouldBeStaticFinalCheck extends IssuableSubscriptionVisit
       return true;
     }
     if (!tree.isLeaf()) {
-      for (Tree javaTree : tree.getChildren()) {
-        if (javaTree != null && containsChildrenOfKind((JavaTree) javaTree, kinds)) {
+      for (int i = 0; i < tree.childrenCount(); i++) {
+        if (containsChildrenOfKind((JavaTree) tree.child(i), kinds)) {
           return true;
         }
       }
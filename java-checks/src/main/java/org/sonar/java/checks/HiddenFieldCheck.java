@@ -183,8 +183,9 @@ public class HiddenFieldCheck extends IssuableSubscriptionVisitor {
     private void visitChildren(Tree tree) {
       JavaTree javaTree = (JavaTree) tree;
       if (!javaTree.isLeaf()) {
-        for (Tree next : javaTree.getChildren()) {
-          if (next != null && !isExcluded(next)) {
+        for (int i = 0; i < javaTree.childrenCount(); i++) {
+          Tree next = javaTree.child(i);
+          if (!isExcluded(next)) {
             visit(next);
           }
         }
@@ -0,0 +1,115 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.typed.ActionParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.plugins.java.api.tree.BaseTreeVisitor;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+/**
+ * Java files on which the benchmarks are executed. The directory of the corpus is a parameter of each benchmark, by default the
+ * files checked in this module, which never change so that results can be compared from one commit to another. The sources of the
+ * ruling integration tests (its/sources git submodule) are a larger corpus.
+ */
+public final class Corpus {
+
+  public static final String DEFAULT_DIRECTORY = "corpus";
+
+  private Corpus() {
+  }
+
+  /**
+   * @return the first java files of the directory, in a stable order
+   */
+  public static List<File> javaFiles(String directory, int maxFiles) {
+    Path root = Paths.get(directory);
+    if (!Files.isDirectory(root)) {
+      throw new IllegalStateException("Corpus directory not found: " + root.toAbsolutePath());
+    }
+    try (Stream<Path> paths = Files.walk(root)) {
+      return paths
+        .filter(path -> path.toString().endsWith(".java") && Files.isRegularFile(path))
+        .sorted()
+        .limit(maxFiles)
+        .map(Path::toFile)
+        .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static String content(File file) {
+    try {
+      return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return syntax trees of the files, files which can not be parsed are ignored
+   */
+  public static Map<File, CompilationUnitTree> parse(List<File> files) {
+    ActionParser<Tree> parser = JavaParser.createParser();
+    Map<File, CompilationUnitTree> trees = new LinkedHashMap<>();
+    for (File file : files) {
+      try {
+        trees.put(file, (CompilationUnitTree) parser.parse(content(file)));
+      } catch (RecognitionException e) {
+        // not part of the measure
+      }
+    }
+    return trees;
+  }
+
+  /**
+   * @return methods and constructors having a body, including the ones of nested and anonymous classes
+   */
+  public static List<MethodTree> methods(CompilationUnitTree tree) {
+    List<MethodTree> methods = new ArrayList<>();
+    tree.accept(new BaseTreeVisitor() {
+      @Override
+      public void visitMethod(MethodTree methodTree) {
+        if (methodTree.block() != null) {
+          methods.add(methodTree);
+        }
+        super.visitMethod(methodTree);
+      }
+    });
+    return methods;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.java.bytecode.ClassLoaderBuilder;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+import org.sonar.java.model.DefaultJavaFileScannerContext;
+import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.java.se.CheckerContext;
+import org.sonar.java.se.ExplodedGraph;
+import org.sonar.java.se.ExplorationStrategy;
+import org.sonar.java.se.FlowComputation;
+import org.sonar.java.se.SymbolicExecutionLimits;
+import org.sonar.java.se.SymbolicExecutionVisitor;
+import org.sonar.java.se.checks.SECheck;
+import org.sonar.java.se.constraint.Constraint;
+import org.sonar.java.se.constraint.ConstraintManager;
+import org.sonar.java.se.constraint.ObjectConstraint;
+import org.sonar.java.se.symbolicvalues.SymbolicValue;
+import org.sonar.java.se.xproc.BehaviorCache;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+
+/**
+ * Symbolic execution of the methods of the corpus (see {@link org.sonar.java.se.ExplodedGraphWalker#visitMethod}), and computation of
+ * the flows of the values which are known to be null or not null at the end of the execution paths (see {@link FlowComputation}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SymbolicExecutionBenchmark {
+
+  private static final Logger LOG = Loggers.get(SymbolicExecutionBenchmark.class);
+  private static final int MAX_FLOWS = 10_000;
+  private static final List<Class<? extends Constraint>> DOMAINS = Collections.singletonList(ObjectConstraint.class);
+
+  @Param(Corpus.DEFAULT_DIRECTORY)
+  public String corpus;
+
+  @Param("500")
+  public int maxFiles;
+
+  @Param({"DEPTH_FIRST", "BREADTH_FIRST", "PROGRAM_ORDER"})
+  public ExplorationStrategy explorationStrategy;
+
+  @Param({"false", "true"})
+  public boolean loopHeadWidening;
+
+  private SquidClassLoader classLoader;
+  private List<JavaFileScannerContext> contexts;
+  private FlowOrigins flowOrigins;
+  private SymbolicExecutionLimits limits;
+
+  @Setup
+  public void setUp() {
+    limits = new SymbolicExecutionLimits(SymbolicExecutionLimits.DEFAULT_MAX_STEPS,
+      SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES, SymbolicExecutionLimits.DEFAULT_MAX_DEDUCED_RELATIONS,
+      SymbolicExecutionLimits.DEFAULT_MAX_FLOW_STEPS, SymbolicExecutionLimits.NO_DURATION_LIMIT, explorationStrategy,
+      loopHeadWidening);
+    classLoader = ClassLoaderBuilder.create(Collections.emptyList());
+    contexts = new ArrayList<>();
+    for (Map.Entry<File, CompilationUnitTree> entry : Corpus.parse(Corpus.javaFiles(corpus, maxFiles)).entrySet()) {
+      CompilationUnitTree tree = entry.getValue();
+      SemanticModel semanticModel = SemanticModel.createFor(tree, classLoader);
+      contexts.add(new DefaultJavaFileScannerContext(tree, entry.getKey(), semanticModel, null, new JavaVersionImpl(), true));
+    }
+    flowOrigins = new FlowOrigins();
+    execute(new SymbolicExecutionVisitor(Collections.singletonList(flowOrigins), newBehaviorCache()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    classLoader.close();
+    // explorations interrupted by the budgets, to compare strategies beyond their running time
+    String reachedLimits = limits.reachedLimitsDescription();
+    LOG.info("Exploration strategy {} {} loop head widening, reached limits: {}", explorationStrategy, loopHeadWidening ? "with" : "without",
+      reachedLimits.isEmpty() ? "none" : reachedLimits);
+  }
+
+  private BehaviorCache newBehaviorCache() {
+    return new BehaviorCache(classLoader, true, null, limits);
+  }
+
+  @Benchmark
+  public BehaviorCache visitMethod() {
+    BehaviorCache behaviorCache = newBehaviorCache();
+    execute(new SymbolicExecutionVisitor(Collections.emptyList(), behaviorCache));
+    return behaviorCache;
+  }
+
+  @Benchmark
+  public void flow(Blackhole blackhole) {
+    for (int i = 0; i < flowOrigins.nodes.size(); i++) {
+      blackhole.consume(FlowComputation.flow(flowOrigins.nodes.get(i), flowOrigins.values.get(i), DOMAINS));
+    }
+  }
+
+  private void execute(SymbolicExecutionVisitor visitor) {
+    for (JavaFileScannerContext context : contexts) {
+      visitor.scanFile(context);
+      visitor.behaviorCache.cleanup();
+    }
+  }
+
+  /**
+   * Collects the values having a nullness constraint at the end of the execution paths.
+   */
+  private static class FlowOrigins extends SECheck {
+    private final List<ExplodedGraph.Node> nodes = new ArrayList<>();
+    private final List<SymbolicValue> values = new ArrayList<>();
+
+    @Override
+    public void checkEndOfExecutionPath(CheckerContext context, ConstraintManager constraintManager) {
+      ExplodedGraph.Node node = context.getNode();
+      List<SymbolicValue> constrainedValues = new ArrayList<>(node.programState.getValuesWithConstraints(ObjectConstraint.NULL));
+      constrainedValues.addAll(node.programState.getValuesWithConstraints(ObjectConstraint.NOT_NULL));
+      for (SymbolicValue value : constrainedValues) {
+        if (nodes.size() < MAX_FLOWS) {
+          nodes.add(node);
+          values.add(value);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.benchmarks;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.java.SonarComponents;
+import org.sonar.java.checks.CheckList;
+import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.java.model.VisitorsBridge;
+import org.sonar.java.model.VisitorsBridgeForTests;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.java.se.SymbolicExecutionMode;
+import org.sonar.plugins.java.api.JavaCheck;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+
+/**
+ * Analysis of the files of the corpus with all the rules, see {@link VisitorsBridge#visitFile}: semantic analysis, symbolic execution
+ * and execution of the checks. Issues are not saved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VisitorsBridgeBenchmark {
+
+  @Param(Corpus.DEFAULT_DIRECTORY)
+  public String corpus;
+
+  @Param("500")
+  public int maxFiles;
+
+  private List<File> files;
+  private VisitorsBridge visitorsBridge;
+  private Map<File, CompilationUnitTree> trees;
+
+  @Setup
+  public void setUp() {
+    files = new ArrayList<>();
+    File baseDir = new File(corpus).getAbsoluteFile();
+    // SonarLint runtime: symbol tables can not be saved twice for the same file
+    SensorContextTester context = SensorContextTester.create(baseDir).setRuntime(SonarRuntimeImpl.forSonarLint(Version.create(6, 7)));
+    for (File file : Corpus.parse(Corpus.javaFiles(corpus, maxFiles)).keySet()) {
+      File absoluteFile = file.getAbsoluteFile();
+      files.add(absoluteFile);
+      context.fileSystem().add(new TestInputFileBuilder("", baseDir, absoluteFile)
+        .setLanguage("java")
+        .setCharset(StandardCharsets.UTF_8)
+        .initMetadata(Corpus.content(absoluteFile))
+        .build());
+    }
+    SonarComponents sonarComponents = new SonarComponents(null, context.fileSystem(), null, null, null);
+    sonarComponents.setSensorContext(context);
+    visitorsBridge = new BenchmarkVisitorsBridge(checks(), sonarComponents);
+  }
+
+  private static List<JavaCheck> checks() {
+    List<JavaCheck> checks = new ArrayList<>();
+    for (Class<? extends JavaCheck> checkClass : CheckList.getJavaChecks()) {
+      try {
+        checks.add(checkClass.getConstructor().newInstance());
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Unable to instantiate " + checkClass, e);
+      }
+    }
+    return checks;
+  }
+
+  /**
+   * Symbols are stored in the trees: each invocation analyzes new trees.
+   */
+  @Setup(Level.Invocation)
+  public void parse() {
+    trees = new LinkedHashMap<>();
+    Map<File, CompilationUnitTree> parsedTrees = Corpus.parse(files);
+    files.forEach(file -> trees.put(file, parsedTrees.get(file)));
+  }
+
+  @TearDown
+  public void tearDown() {
+    visitorsBridge.endOfAnalysis();
+  }
+
+  @Benchmark
+  public void visitFile() {
+    for (Map.Entry<File, CompilationUnitTree> entry : trees.entrySet()) {
+      visitorsBridge.setCurrentFile(entry.getKey());
+      visitorsBridge.visitFile(entry.getValue());
+    }
+  }
+
+  private static class BenchmarkVisitorsBridge extends VisitorsBridge {
+
+    BenchmarkVisitorsBridge(List<JavaCheck> checks, SonarComponents sonarComponents) {
+      super(checks, Collections.emptyList(), sonarComponents, SymbolicExecutionMode.getMode(checks.toArray(new JavaCheck[0]), false));
+      setJavaVersion(new JavaVersionImpl());
+    }
+
+    @Override
+    protected JavaFileScannerContext createScannerContext(CompilationUnitTree tree, SemanticModel semanticModel, SonarComponents sonarComponents,
+      boolean fileParsed) {
+      // issues are kept by the context of the file, and dropped with it
+      return new VisitorsBridgeForTests.TestJavaFileScannerContext(tree, currentFile, semanticModel, sonarComponents, javaVersion, fileParsed);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.java.benchmarks.Corpus;
+import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
+import org.sonar.plugins.java.api.JavaFileScanner;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.SyntaxToken;
+import org.sonar.plugins.java.api.tree.SyntaxTrivia;
+import org.sonar.plugins.java.api.tree.Tree;
+
+/**
+ * Cost of the dispatch of the nodes of the corpus to subscription visitors doing nothing, see {@link VisitorsBridge.ScannerRunner}.
+ * Run with {@code -prof gc} to measure allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScannerRunnerBenchmark {
+
+  @Param(Corpus.DEFAULT_DIRECTORY)
+  public String corpus;
+
+  @Param("500")
+  public int maxFiles;
+
+  @Param({"1", "20"})
+  public int visitors;
+
+  /**
+   * Kinds of nodes visitors subscribe to: every kind, including tokens and trivias, or only method invocations.
+   */
+  @Param({"all", "methodInvocations"})
+  public String subscriptions;
+
+  private List<JavaFileScannerContext> contexts;
+  private List<CountingVisitor> countingVisitors;
+  private VisitorsBridge.ScannerRunner scannerRunner;
+
+  @Setup
+  public void setUp() {
+    Collection<CompilationUnitTree> trees = Corpus.parse(Corpus.javaFiles(corpus, maxFiles)).values();
+    File file = new File(corpus);
+    contexts = new ArrayList<>();
+    for (CompilationUnitTree tree : trees) {
+      contexts.add(new DefaultJavaFileScannerContext(tree, file, null, null, new JavaVersionImpl(), true));
+    }
+    List<Tree.Kind> kinds = "all".equals(subscriptions) ? Arrays.asList(Tree.Kind.values()) : Collections.singletonList(Tree.Kind.METHOD_INVOCATION);
+    countingVisitors = new ArrayList<>();
+    for (int i = 0; i < visitors; i++) {
+      countingVisitors.add(new CountingVisitor(kinds));
+    }
+    scannerRunner = new VisitorsBridge.ScannerRunner(new ArrayList<JavaFileScanner>(countingVisitors));
+  }
+
+  @Benchmark
+  public long visit() {
+    for (JavaFileScannerContext context : contexts) {
+      scannerRunner.prepare(context);
+      scannerRunner.run(context);
+    }
+    long visits = 0;
+    for (CountingVisitor visitor : countingVisitors) {
+      visits += visitor.visits;
+    }
+    return visits;
+  }
+
+  private static class CountingVisitor extends IssuableSubscriptionVisitor {
+
+    private final List<Tree.Kind> kinds;
+    private long visits = 0;
+
+    CountingVisitor(List<Tree.Kind> kinds) {
+      this.kinds = kinds;
+    }
+
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return kinds;
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      visits++;
+    }
+
+    @Override
+    public void visitToken(SyntaxToken syntaxToken) {
+      visits++;
+    }
+
+    @Override
+    public void visitTrivia(SyntaxTrivia syntaxTrivia) {
+      visits++;
+    }
+  }
+}
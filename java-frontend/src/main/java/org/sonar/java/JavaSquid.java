@@ -21,7 +21,6 @@ package org.sonar.java;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.sonar.sslr.api.typed.ActionParser;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
@@ -32,23 +31,28 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.java.ast.JavaAstScanner;
-import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.ast.parser.JavaParserPool;
 import org.sonar.java.ast.visitors.FileLinesVisitor;
 import org.sonar.java.ast.visitors.SyntaxHighlighterVisitor;
 import org.sonar.java.filters.SonarJavaIssueFilter;
+import org.sonar.java.model.PerformanceMeasure;
 import org.sonar.java.model.VisitorsBridge;
 import org.sonar.java.se.SymbolicExecutionMode;
 import org.sonar.plugins.java.api.JavaCheck;
 import org.sonar.plugins.java.api.JavaResourceLocator;
 import org.sonar.plugins.java.api.JavaVersion;
-import org.sonar.plugins.java.api.tree.Tree;
 
 public class JavaSquid {
 
   private static final Logger LOG = Loggers.get(JavaSquid.class);
+  private static final String INCREMENTAL_ANALYSIS_DIRECTORY = "incremental-analysis";
+  private static final String PERFORMANCE_MEASURE_FILE = "performance-measure.json";
 
   private final JavaAstScanner astScanner;
   private final JavaAstScanner astScannerForTests;
+  @Nullable
+  private PerformanceMeasure performanceMeasure;
+  private File performanceMeasureFile;
 
   public JavaSquid(JavaVersion javaVersion,
     @Nullable SonarComponents sonarComponents, @Nullable Measurer measurer,
@@ -87,15 +91,34 @@ public class JavaSquid {
       testCodeVisitors.addAll(sonarComponents.testCheckClasses());
     }
 
+    // parsers are shared by the scanners of main and test files
+    JavaParserPool parserPool = JavaParserPool.create();
+
     //AstScanner for main files
-    ActionParser<Tree> parser = JavaParser.createParser();
-    astScanner = new JavaAstScanner(parser, sonarComponents);
-    astScanner.setVisitorBridge(createVisitorBridge(codeVisitors, classpath, javaVersion, sonarComponents, SymbolicExecutionMode.getMode(visitors, xFileEnabled)));
+    astScanner = new JavaAstScanner(parserPool, sonarComponents);
+    VisitorsBridge visitorsBridge = createVisitorBridge(codeVisitors, classpath, javaVersion, sonarComponents, SymbolicExecutionMode.getMode(visitors, xFileEnabled));
+    astScanner.setVisitorBridge(visitorsBridge);
 
     //AstScanner for test files
-    astScannerForTests = new JavaAstScanner(parser, sonarComponents);
-    astScannerForTests.setVisitorBridge(createVisitorBridge(testCodeVisitors, testClasspath, javaVersion, sonarComponents, SymbolicExecutionMode.DISABLED));
-
+    astScannerForTests = new JavaAstScanner(parserPool, sonarComponents);
+    VisitorsBridge visitorsBridgeForTests = createVisitorBridge(testCodeVisitors, testClasspath, javaVersion, sonarComponents, SymbolicExecutionMode.DISABLED);
+    astScannerForTests.setVisitorBridge(visitorsBridgeForTests);
+
+    if (sonarComponents != null && sonarComponents.isIncrementalAnalysisEnabled()) {
+      File incrementalAnalysisDir = new File(sonarComponents.workDir(), INCREMENTAL_ANALYSIS_DIRECTORY);
+      visitorsBridge.enableIncrementalAnalysis(new File(incrementalAnalysisDir, "main.json"));
+      visitorsBridgeForTests.enableIncrementalAnalysis(new File(incrementalAnalysisDir, "test.json"));
+    }
+    if (sonarComponents != null && sonarComponents.isPerformanceMeasureEnabled()) {
+      performanceMeasure = new PerformanceMeasure();
+      performanceMeasureFile = new File(sonarComponents.workDir(), PERFORMANCE_MEASURE_FILE);
+      visitorsBridge.enablePerformanceMeasure(performanceMeasure);
+      visitorsBridgeForTests.enablePerformanceMeasure(performanceMeasure);
+    }
+    if (sonarComponents != null && sonarComponents.isReleaseOfAnalyzedFilesEnabled()) {
+      visitorsBridge.enableReleaseOfAnalyzedFiles();
+      visitorsBridgeForTests.enableReleaseOfAnalyzedFiles();
+    }
   }
 
   private static VisitorsBridge createVisitorBridge(
@@ -109,6 +132,9 @@ public class JavaSquid {
   public void scan(Collection<File> sourceFiles, Collection<File> testFiles) {
     scanSources(sourceFiles);
     scanTests(testFiles);
+    if (performanceMeasure != null) {
+      performanceMeasure.save(performanceMeasureFile);
+    }
   }
 
   private void scanSources(Collection<File> sourceFiles) {
@@ -21,9 +21,12 @@ package org.sonar.java;
 
 import com.google.common.collect.ImmutableList;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
@@ -34,14 +37,15 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Metric;
 import org.sonar.java.ast.visitors.CognitiveComplexityVisitor;
 import org.sonar.java.ast.visitors.CommentLinesVisitor;
-import org.sonar.java.ast.visitors.LinesOfCodeVisitor;
 import org.sonar.java.ast.visitors.StatementVisitor;
 import org.sonar.java.ast.visitors.SubscriptionVisitor;
+import org.sonar.java.model.InternalSyntaxToken;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.NewClassTree;
+import org.sonar.plugins.java.api.tree.SyntaxToken;
 import org.sonar.plugins.java.api.tree.Tree;
 
 public class Measurer extends SubscriptionVisitor {
@@ -58,7 +62,9 @@ public class Measurer extends SubscriptionVisitor {
   private RangeDistributionBuilder methodComplexityDistribution;
 
   private final Deque<ClassTree> classTrees = new LinkedList<>();
+  private final Set<Integer> linesOfCode = new HashSet<>();
   private int classes;
+  private CommentLinesVisitor commentLinesVisitor;
 
   public Measurer(FileSystem fs, SensorContext context, NoSonarFilter noSonarFilter) {
     this.fs = fs;
@@ -76,28 +82,34 @@ public class Measurer extends SubscriptionVisitor {
 
   @Override
   public List<Tree.Kind> nodesToVisit() {
+    if (isSonarLintContext()) {
+      // No need to compute metrics on SonarLint side
+      return Collections.emptyList();
+    }
     return ImmutableList.of(Tree.Kind.CLASS, Tree.Kind.INTERFACE, Tree.Kind.ENUM, Tree.Kind.ANNOTATION_TYPE,
         Tree.Kind.NEW_CLASS, Tree.Kind.ENUM_CONSTANT,
-        Tree.Kind.METHOD, Tree.Kind.CONSTRUCTOR);
+        Tree.Kind.METHOD, Tree.Kind.CONSTRUCTOR, Tree.Kind.TOKEN);
   }
 
-
   @Override
-  public void scanFile(JavaFileScannerContext context) {
+  public void setContext(JavaFileScannerContext context) {
+    super.setContext(context);
     sonarFile = fs.inputFile(fs.predicates().is(context.getFile()));
-    CommentLinesVisitor commentLinesVisitor = createCommentLineVisitorAndFindNoSonar(context);
-    if(isSonarLintContext()) {
-      // No need to compute metrics on SonarLint side, but the no sonar filter is still required
-      return;
-    }
+    // the no sonar filter is required before any issue is reported on the file, including on SonarLint side
+    commentLinesVisitor = createCommentLineVisitorAndFindNoSonar(context);
     classTrees.clear();
+    linesOfCode.clear();
     methods = 0;
     complexityInMethods = 0;
     classes = 0;
     methodComplexityDistribution = new RangeDistributionBuilder(LIMITS_COMPLEXITY_METHODS);
-    super.setContext(context);
-    scanTree(context.getTree());
-    //leave file.
+  }
+
+  @Override
+  public void leaveFile(JavaFileScannerContext context) {
+    if (isSonarLintContext()) {
+      return;
+    }
     int fileComplexity = context.getComplexityNodes(context.getTree()).size();
     saveMetricOnFile(CoreMetrics.CLASSES, classes);
     saveMetricOnFile(CoreMetrics.FUNCTIONS, methods);
@@ -106,7 +118,7 @@ public class Measurer extends SubscriptionVisitor {
     saveMetricOnFile(CoreMetrics.COMPLEXITY, fileComplexity);
     saveMetricOnFile(CoreMetrics.COMMENT_LINES, commentLinesVisitor.commentLinesMetric());
     saveMetricOnFile(CoreMetrics.STATEMENTS, new StatementVisitor().numberOfStatements(context.getTree()));
-    saveMetricOnFile(CoreMetrics.NCLOC, new LinesOfCodeVisitor().linesOfCode(context.getTree()));
+    saveMetricOnFile(CoreMetrics.NCLOC, linesOfCode.size());
     saveMetricOnFile(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION, methodComplexityDistribution.build());
 
     RangeDistributionBuilder fileComplexityDistribution = new RangeDistributionBuilder(LIMITS_COMPLEXITY_FILES);
@@ -153,6 +165,13 @@ public class Measurer extends SubscriptionVisitor {
     }
   }
 
+  @Override
+  public void visitToken(SyntaxToken syntaxToken) {
+    if (!((InternalSyntaxToken) syntaxToken).isEOF()) {
+      linesOfCode.add(syntaxToken.line());
+    }
+  }
+
   private static boolean isClassTree(Tree tree) {
     return tree.is(Tree.Kind.CLASS) || tree.is(Tree.Kind.INTERFACE) || tree.is(Tree.Kind.ENUM) || tree.is(Tree.Kind.ANNOTATION_TYPE);
   }
@@ -20,6 +20,8 @@
 package org.sonar.java;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Enums;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
@@ -34,8 +36,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
@@ -56,6 +61,8 @@ import org.sonar.api.measures.Metric;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.java.se.ExplorationStrategy;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.plugins.java.api.CheckRegistrar;
 import org.sonar.plugins.java.api.JavaCheck;
 import org.sonarsource.api.sonarlint.SonarLintSide;
@@ -72,6 +79,18 @@ public class SonarComponents {
   public static final Metric<String> FEEDBACK_METRIC = new Metric.Builder("sonarjava_feedback", "SonarJava feedback", Metric.ValueType.DATA).setHidden(true).create();
   public static final String COLLECT_ANALYSIS_ERRORS_KEY = "sonar.java.collectAnalysisErrors";
   public static final String FAIL_ON_EXCEPTION_KEY = "sonar.java.failOnException";
+  public static final String ANALYSIS_THREADS_KEY = "sonar.java.analysis.threads";
+  public static final String INCREMENTAL_ANALYSIS_KEY = "sonar.java.incremental";
+  public static final String PERFORMANCE_MEASURE_KEY = "sonar.java.performance.measure";
+  public static final String RELEASE_ANALYZED_FILES_KEY = "sonar.java.releaseAnalyzedFiles";
+  public static final String SYMBOLIC_EXECUTION_THREADS_KEY = "sonar.java.se.threads";
+  public static final String SYMBOLIC_EXECUTION_MAX_STEPS_KEY = "sonar.java.se.maxSteps";
+  public static final String SYMBOLIC_EXECUTION_MAX_NESTED_BOOLEAN_STATES_KEY = "sonar.java.se.maxNestedBooleanStates";
+  public static final String SYMBOLIC_EXECUTION_MAX_DEDUCED_RELATIONS_KEY = "sonar.java.se.maxDeducedRelations";
+  public static final String SYMBOLIC_EXECUTION_MAX_FLOW_STEPS_KEY = "sonar.java.se.maxFlowSteps";
+  public static final String SYMBOLIC_EXECUTION_MAX_METHOD_DURATION_KEY = "sonar.java.se.maxMethodDuration";
+  public static final String SYMBOLIC_EXECUTION_EXPLORATION_STRATEGY_KEY = "sonar.java.se.explorationStrategy";
+  public static final String SYMBOLIC_EXECUTION_LOOP_HEAD_WIDENING_KEY = "sonar.java.se.loopHeadWidening";
   /**
    * Approximate limit of feedback of 200ko to roughly 100_000 characters of useful feedback.
    * This does not take into account eventual overhead of serialization.
@@ -93,6 +112,8 @@ public class SonarComponents {
   @VisibleForTesting
   public List<AnalysisError> analysisErrors;
   private int errorsSize = 0;
+  @Nullable
+  private Consumer<AnalyzerMessage> issueListener;
 
   public SonarComponents(FileLinesContextFactory fileLinesContextFactory, FileSystem fs,
                          JavaClasspath javaClasspath, JavaTestClasspath javaTestClasspath,
@@ -258,6 +279,16 @@ public class SonarComponents {
     }
     Double cost = analyzerMessage.getCost();
     reportIssue(analyzerMessage, key, inputPath, cost);
+    if (issueListener != null) {
+      issueListener.accept(analyzerMessage);
+    }
+  }
+
+  /**
+   * @param issueListener notified of each issue reported on a rule of the analysis, null to stop notifications
+   */
+  public void setIssueListener(@Nullable Consumer<AnalyzerMessage> issueListener) {
+    this.issueListener = issueListener;
   }
 
   @VisibleForTesting
@@ -344,6 +375,87 @@ public class SonarComponents {
     return context.config().getBoolean(FAIL_ON_EXCEPTION_KEY).orElse(false);
   }
 
+  /**
+   * Number of threads used to parse files ahead of the analysis. Semantic analysis and checks are always executed on the analysis thread.
+   */
+  public int analysisThreads() {
+    return context.config().getInt(ANALYSIS_THREADS_KEY).orElse(1);
+  }
+
+  /**
+   * Files whose content and dependencies did not change since the previous analysis are not checked again, their issues are reported from
+   * the results of the previous analysis.
+   */
+  public boolean isIncrementalAnalysisEnabled() {
+    return !isSonarLintContext() && context.config().getBoolean(INCREMENTAL_ANALYSIS_KEY).orElse(false);
+  }
+
+  /**
+   * Time spent in each phase of the analysis and by each rule is measured and written in a report of the working directory.
+   */
+  public boolean isPerformanceMeasureEnabled() {
+    return !isSonarLintContext() && context.config().getBoolean(PERFORMANCE_MEASURE_KEY).orElse(false);
+  }
+
+  /**
+   * The tree and the semantic model of each file are released once all its scanners ran, instead of being retained by the scanners
+   * until the next file: this bounds what is retained across files, not the memory needed to analyze one file.
+   */
+  public boolean isReleaseOfAnalyzedFilesEnabled() {
+    return context.config().getBoolean(RELEASE_ANALYZED_FILES_KEY).orElse(false);
+  }
+
+  /**
+   * Number of threads used to explore the methods of a file which can be overridden. When set to 1, methods are explored on the
+   * analysis thread.
+   */
+  public int symbolicExecutionThreads() {
+    if (isSonarLintContext()) {
+      return 1;
+    }
+    return Math.max(1, context.config().getInt(SYMBOLIC_EXECUTION_THREADS_KEY).orElse(1));
+  }
+
+  /**
+   * Budgets of the symbolic execution of a method. Default budgets are always used in SonarLint.
+   */
+  public SymbolicExecutionLimits symbolicExecutionLimits() {
+    if (isSonarLintContext()) {
+      return SymbolicExecutionLimits.defaultLimits();
+    }
+    return new SymbolicExecutionLimits(
+      context.config().getInt(SYMBOLIC_EXECUTION_MAX_STEPS_KEY).orElse(SymbolicExecutionLimits.DEFAULT_MAX_STEPS),
+      context.config().getInt(SYMBOLIC_EXECUTION_MAX_NESTED_BOOLEAN_STATES_KEY).orElse(SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES),
+      context.config().getInt(SYMBOLIC_EXECUTION_MAX_DEDUCED_RELATIONS_KEY).orElse(SymbolicExecutionLimits.DEFAULT_MAX_DEDUCED_RELATIONS),
+      context.config().getInt(SYMBOLIC_EXECUTION_MAX_FLOW_STEPS_KEY).orElse(SymbolicExecutionLimits.DEFAULT_MAX_FLOW_STEPS),
+      context.config().getLong(SYMBOLIC_EXECUTION_MAX_METHOD_DURATION_KEY).orElse(SymbolicExecutionLimits.NO_DURATION_LIMIT),
+      explorationStrategy(),
+      context.config().getBoolean(SYMBOLIC_EXECUTION_LOOP_HEAD_WIDENING_KEY).orElse(false));
+  }
+
+  private ExplorationStrategy explorationStrategy() {
+    String strategy = context.config().get(SYMBOLIC_EXECUTION_EXPLORATION_STRATEGY_KEY).orElse(null);
+    if (strategy == null) {
+      return SymbolicExecutionLimits.DEFAULT_EXPLORATION_STRATEGY;
+    }
+    Optional<ExplorationStrategy> explorationStrategy = Enums.getIfPresent(ExplorationStrategy.class, strategy.trim().toUpperCase(Locale.ENGLISH));
+    if (!explorationStrategy.isPresent()) {
+      LOG.warn("Unknown symbolic execution exploration strategy '{}', {} is used", strategy, SymbolicExecutionLimits.DEFAULT_EXPLORATION_STRATEGY);
+      return SymbolicExecutionLimits.DEFAULT_EXPLORATION_STRATEGY;
+    }
+    return explorationStrategy.get();
+  }
+
+  /**
+   * @return keys and parameters of the active rules, sorted
+   */
+  public String activeRulesDescription() {
+    return context.activeRules().findAll().stream()
+      .map(activeRule -> activeRule.ruleKey() + new TreeMap<>(activeRule.params()).toString())
+      .sorted()
+      .collect(Collectors.joining(","));
+  }
+
   private boolean shouldCollectAnalysisErrors() {
     return context.config().getBoolean(COLLECT_ANALYSIS_ERRORS_KEY).orElse(false);
   }
@@ -21,13 +21,22 @@ package org.sonar.java.ast;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sonar.sslr.api.RecognitionException;
 import com.sonar.sslr.api.typed.ActionParser;
 import java.io.File;
 import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
@@ -35,7 +44,9 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.java.AnalysisException;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.ast.parser.JavaParserPool;
 import org.sonar.java.model.JavaVersionImpl;
+import org.sonar.java.model.PerformanceMeasure;
 import org.sonar.java.model.VisitorsBridge;
 import org.sonar.plugins.java.api.JavaVersion;
 import org.sonar.plugins.java.api.tree.Tree;
@@ -44,12 +55,41 @@ import org.sonar.squidbridge.ProgressReport;
 public class JavaAstScanner {
   private static final Logger LOG = Loggers.get(JavaAstScanner.class);
 
+  /**
+   * Number of files which can be parsed ahead of the analysis thread by each parsing thread.
+   */
+  private static final int PARSED_FILES_PER_THREAD = 2;
+
+  @Nullable
   private final ActionParser<Tree> parser;
+  @Nullable
+  private final JavaParserPool parserPool;
   private final SonarComponents sonarComponents;
   private VisitorsBridge visitor;
 
+  /**
+   * Files will be parsed sequentially, on the analysis thread, by the given parser.
+   */
   public JavaAstScanner(ActionParser<Tree> parser, @Nullable SonarComponents sonarComponents) {
     this.parser = parser;
+    this.parserPool = null;
+    this.sonarComponents = sonarComponents;
+  }
+
+  /**
+   * When more than one analysis thread is configured, files are parsed ahead on a pool of threads, each one using its own parser.
+   */
+  public JavaAstScanner(Supplier<ActionParser<Tree>> parserFactory, @Nullable SonarComponents sonarComponents) {
+    this(new JavaParserPool(parserFactory), sonarComponents);
+  }
+
+  /**
+   * Parsers are borrowed from the given pool, which can be shared with other scanners. When more than one analysis thread is configured,
+   * files are parsed ahead on a pool of threads.
+   */
+  public JavaAstScanner(JavaParserPool parserPool, @Nullable SonarComponents sonarComponents) {
+    this.parser = null;
+    this.parserPool = parserPool;
     this.sonarComponents = sonarComponents;
   }
 
@@ -57,19 +97,28 @@ public class JavaAstScanner {
     ProgressReport progressReport = new ProgressReport("Report about progress of Java AST analyzer", TimeUnit.SECONDS.toMillis(10));
     progressReport.start(files.stream().map(File::getAbsolutePath).collect(Collectors.toList()));
 
+    int parsingThreads = parsingThreads();
+    ExecutorService executor = null;
+    if (parsingThreads > 1) {
+      executor = Executors.newFixedThreadPool(parsingThreads, new ThreadFactoryBuilder().setNameFormat("sonar-java-parser-%d").setDaemon(true).build());
+    }
     boolean successfullyCompleted = false;
     boolean cancelled = false;
     try {
+      ParsedFiles parsedFiles = new ParsedFiles(files, executor, parsingThreads * PARSED_FILES_PER_THREAD);
       for (File file : files) {
         if (analysisCancelled()) {
           cancelled = true;
           break;
         }
-        simpleScan(file);
+        simpleScan(file, parsedFiles.next());
         progressReport.nextFile();
       }
       successfullyCompleted = !cancelled;
     } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
       if (successfullyCompleted) {
         progressReport.stop();
       } else {
@@ -79,21 +128,34 @@ public class JavaAstScanner {
     }
   }
 
+  private int parsingThreads() {
+    if (parserPool == null || sonarComponents == null) {
+      return 1;
+    }
+    return Math.max(1, sonarComponents.analysisThreads());
+  }
+
   private boolean analysisCancelled() {
     return sonarComponents != null && sonarComponents.analysisCancelled();
   }
 
-  private void simpleScan(File file) {
+  private void simpleScan(File file, @Nullable Future<Tree> parsedFile) {
     visitor.setCurrentFile(file);
     try {
-      String fileContent = getFileContent(file);
-      Tree ast;
-      if(fileContent.isEmpty()) {
-        ast = parser.parse(file);
-      } else {
-        ast = parser.parse(fileContent);
+      Tree ast = parsedFile == null ? parse(file) : getParsedTree(parsedFile);
+      long start = System.nanoTime();
+      try {
+        visitor.visitFile(ast);
+      } finally {
+        PerformanceMeasure performanceMeasure = visitor.performanceMeasure();
+        if (performanceMeasure != null) {
+          performanceMeasure.addAnalysis(file, System.nanoTime() - start);
+        }
       }
-      visitor.visitFile(ast);
+    } catch (InterruptedException e) {
+      // interrupted while waiting for a file parsed ahead: the interrupt is kept for the caller and the analysis is stopped
+      Thread.currentThread().interrupt();
+      throw new AnalysisException("Analysis cancelled", e);
     } catch (RecognitionException e) {
       checkInterrupted(e);
       LOG.error("Unable to parse source file : " + file.getAbsolutePath());
@@ -109,6 +171,40 @@ public class JavaAstScanner {
     }
   }
 
+  private Tree parse(File file) {
+    if (parserPool == null) {
+      return parse(parser, file);
+    }
+    return parserPool.withParser(poolParser -> parse(poolParser, file));
+  }
+
+  private Tree parse(ActionParser<Tree> fileParser, File file) {
+    long start = System.nanoTime();
+    try {
+      String fileContent = getFileContent(file);
+      if (fileContent.isEmpty()) {
+        return fileParser.parse(file);
+      }
+      return fileParser.parse(fileContent);
+    } finally {
+      PerformanceMeasure performanceMeasure = visitor.performanceMeasure();
+      if (performanceMeasure != null) {
+        performanceMeasure.add(PerformanceMeasure.Phase.PARSE, file, System.nanoTime() - start);
+      }
+    }
+  }
+
+  private static Tree getParsedTree(Future<Tree> parsedFile) throws InterruptedException {
+    try {
+      return parsedFile.get();
+    } catch (ExecutionException e) {
+      // rethrow the original failure, so it is handled exactly as if the file had been parsed on the analysis thread
+      Throwable cause = e.getCause();
+      Throwables.throwIfUnchecked(cause);
+      throw new IllegalStateException(cause);
+    }
+  }
+
   private String getFileContent(File file) {
     if(sonarComponents == null) {
       return "";
@@ -136,6 +232,39 @@ public class JavaAstScanner {
     return "SonarQube is unable to analyze file : '" + file.getAbsolutePath() + "'";
   }
 
+  /**
+   * Parses files ahead of the analysis thread, keeping at most a bounded number of parsed trees in memory.
+   * Trees are always handed back in the order of the files, so that analysis stays deterministic.
+   */
+  private class ParsedFiles {
+    @Nullable
+    private final ExecutorService executor;
+    private final int maxPendingFiles;
+    private final Iterator<File> filesToParse;
+    private final Deque<Future<Tree>> pending = new ArrayDeque<>();
+
+    ParsedFiles(Collection<File> files, @Nullable ExecutorService executor, int maxPendingFiles) {
+      this.executor = executor;
+      this.maxPendingFiles = maxPendingFiles;
+      this.filesToParse = files.iterator();
+    }
+
+    /**
+     * @return the future tree of the next file, or null when the file has to be parsed on the analysis thread.
+     */
+    @Nullable
+    Future<Tree> next() {
+      if (executor == null) {
+        return null;
+      }
+      while (pending.size() < maxPendingFiles && filesToParse.hasNext()) {
+        File file = filesToParse.next();
+        pending.add(executor.submit(() -> parse(file)));
+      }
+      return pending.poll();
+    }
+  }
+
   public void setVisitorBridge(VisitorsBridge visitor) {
     this.visitor = visitor;
   }
@@ -21,16 +21,18 @@ package org.sonar.java.ast.parser;
 
 import com.sonar.sslr.api.typed.ActionParser;
 import org.sonar.java.model.JavaTree;
+import org.sonar.java.model.TreeLinker;
 import org.sonar.plugins.java.api.tree.Tree;
 import org.sonar.sslr.grammar.LexerlessGrammarBuilder;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
-import java.util.Deque;
-import java.util.LinkedList;
 
+/**
+ * Not thread-safe: concurrent parsing requires one parser per thread, see {@link JavaParserPool}.
+ */
 public class JavaParser extends ActionParser<Tree> {
-  private Deque<JavaTree> parentList = new LinkedList<>();
+  private final TreeLinker treeLinker = new TreeLinker();
 
   private JavaParser(LexerlessGrammarBuilder grammarBuilder, Class<JavaGrammar> javaGrammarClass,
     TreeFactory treeFactory, JavaNodeBuilder javaNodeBuilder, JavaLexer compilationUnit) {
@@ -47,28 +49,11 @@ public class JavaParser extends ActionParser<Tree> {
 
   @Override
   public Tree parse(File file) {
-    return createParentLink((JavaTree) super.parse(file));
+    return treeLinker.link((JavaTree) super.parse(file));
   }
 
   @Override
   public Tree parse(String source) {
-    return createParentLink((JavaTree) super.parse(source));
-  }
-
-  private Tree createParentLink(JavaTree topParent) {
-    parentList.push(topParent);
-    while (!parentList.isEmpty()) {
-      JavaTree parent = parentList.pop();
-      if (!parent.isLeaf()) {
-        for (Tree nextTree : parent.getChildren()) {
-          JavaTree next = (JavaTree) nextTree;
-          if (next != null) {
-            next.setParent(parent);
-            parentList.push(next);
-          }
-        }
-      }
-    }
-    return topParent;
+    return treeLinker.link((JavaTree) super.parse(source));
   }
 }
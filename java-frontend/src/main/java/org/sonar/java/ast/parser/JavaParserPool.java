@@ -0,0 +1,66 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.ast.parser;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sonar.sslr.api.typed.ActionParser;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.sonar.plugins.java.api.tree.Tree;
+
+/**
+ * Parsers are costly to create and can only be used by one thread at a time. The pool lends them to the threads parsing files, whatever
+ * the scanner they parse for, and keeps them once given back: at most one parser is created per thread parsing concurrently.
+ */
+public class JavaParserPool {
+
+  private final Supplier<ActionParser<Tree>> parserFactory;
+  private final Deque<ActionParser<Tree>> idleParsers = new ConcurrentLinkedDeque<>();
+
+  public JavaParserPool(Supplier<ActionParser<Tree>> parserFactory) {
+    this.parserFactory = parserFactory;
+  }
+
+  public static JavaParserPool create() {
+    return new JavaParserPool(JavaParser::createParser);
+  }
+
+  /**
+   * Applies the given function with a parser which is not used by any other thread until the function returns.
+   */
+  public <T> T withParser(Function<ActionParser<Tree>, T> function) {
+    ActionParser<Tree> parser = idleParsers.pollFirst();
+    if (parser == null) {
+      parser = parserFactory.get();
+    }
+    try {
+      return function.apply(parser);
+    } finally {
+      idleParsers.addFirst(parser);
+    }
+  }
+
+  @VisibleForTesting
+  int idleParsers() {
+    return idleParsers.size();
+  }
+}
@@ -92,8 +92,7 @@ public class FileLinesVisitor extends SubscriptionVisitor {
   }
 
   @Override
-  public void scanFile(JavaFileScannerContext context) {
-    super.scanFile(context);
+  public void leaveFile(JavaFileScannerContext context) {
     File currentFile = context.getFile();
     FileLinesContext fileLinesContext = sonarComponents.fileLinesContextFor(currentFile);
     int fileLength = sonarComponents.fileLength(currentFile);
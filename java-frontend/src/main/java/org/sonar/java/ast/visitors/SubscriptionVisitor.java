@@ -30,9 +30,15 @@ import org.sonar.plugins.java.api.tree.Tree;
 import java.util.EnumSet;
 import java.util.List;
 
+/**
+ * Visitor notified of the nodes of the kinds it subscribes to.
+ * <p/>
+ * For each file, {@link #setContext(JavaFileScannerContext)} is called before the visit of the tree and
+ * {@link #leaveFile(JavaFileScannerContext)} after it. Visitors which do not override {@link #scanFile(JavaFileScannerContext)} are
+ * executed with all the other subscription visitors during a single visit of the tree, see {@link org.sonar.java.model.VisitorsBridge}.
+ */
 public abstract class SubscriptionVisitor implements JavaFileScanner {
 
-
   protected JavaFileScannerContext context;
   private EnumSet<Tree.Kind> nodesToVisit;
   private boolean visitToken;
@@ -70,6 +76,7 @@ public abstract class SubscriptionVisitor implements JavaFileScanner {
   public void scanFile(JavaFileScannerContext context) {
     setContext(context);
     scanTree(context.getTree());
+    leaveFile(context);
   }
 
   protected void scanTree(Tree tree) {
@@ -123,10 +130,8 @@ public abstract class SubscriptionVisitor implements JavaFileScanner {
   private void visitChildren(Tree tree) {
     JavaTree javaTree = (JavaTree) tree;
     if (!javaTree.isLeaf()) {
-      for (Tree next : javaTree.getChildren()) {
-        if (next != null) {
-          visit(next);
-        }
+      for (int i = 0; i < javaTree.childrenCount(); i++) {
+        visit(javaTree.child(i));
       }
     }
   }
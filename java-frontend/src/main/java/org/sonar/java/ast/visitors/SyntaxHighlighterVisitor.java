@@ -22,7 +22,6 @@ package org.sonar.java.ast.visitors;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import java.io.File;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -77,12 +76,13 @@ public class SyntaxHighlighterVisitor extends SubscriptionVisitor {
   }
 
   @Override
-  public void scanFile(JavaFileScannerContext context) {
-    File file = context.getFile();
-    highlighting = sonarComponents.highlightableFor(file);
-
-    super.scanFile(context);
+  public void setContext(JavaFileScannerContext context) {
+    super.setContext(context);
+    highlighting = sonarComponents.highlightableFor(context.getFile());
+  }
 
+  @Override
+  public void leaveFile(JavaFileScannerContext context) {
     highlighting.save();
   }
 
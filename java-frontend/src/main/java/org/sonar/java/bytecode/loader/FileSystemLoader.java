@@ -27,6 +27,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Set;
 
 class FileSystemLoader implements Loader {
 
@@ -72,6 +73,14 @@ class FileSystemLoader implements Loader {
     }
   }
 
+  /**
+   * Directories are not indexed: walking them upfront can be more expensive than checking existence of the few files actually looked up.
+   */
+  @Override
+  public Set<String> packages() {
+    return null;
+  }
+
   @Override
   public void close() {
     baseDirPath = null;
@@ -19,9 +19,9 @@
  */
 package org.sonar.java.bytecode.loader;
 
+import com.google.common.io.ByteStreams;
 import javax.annotation.Nullable;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,13 +29,21 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
-import java.util.jar.JarFile;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+/**
+ * Loads resources from a jar file. Entries whose size is known are read straight into an array of their exact size.
+ */
 class JarLoader implements Loader {
 
-  private final JarFile jarFile;
+  private final ZipFile zipFile;
   private final URL jarUrl;
+  private final Set<String> packages;
 
   /**
    * @throws IllegalStateException if an I/O error has occurred
@@ -45,16 +53,31 @@ class JarLoader implements Loader {
       throw new IllegalArgumentException("file can't be null");
     }
     try {
-      jarFile = new JarFile(file);
+      zipFile = new ZipFile(file);
       jarUrl = new URL("jar", "", -1, file.getAbsolutePath() + "!/");
     } catch (IOException e) {
       throw new IllegalStateException("Unable to open " + file.getAbsolutePath(), e);
     }
+    packages = readPackages(zipFile);
+  }
+
+  private static Set<String> readPackages(ZipFile zipFile) {
+    Set<String> result = new HashSet<>();
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      result.add(SquidClassLoader.packageName(entries.nextElement().getName()));
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  @Override
+  public Set<String> packages() {
+    return packages;
   }
 
   @Override
   public URL findResource(String name) {
-    ZipEntry entry = jarFile.getEntry(name);
+    ZipEntry entry = zipFile.getEntry(name);
     if (entry != null) {
       try {
         return new URL(jarUrl, name, new JarEntryHandler(entry));
@@ -68,20 +91,11 @@ class JarLoader implements Loader {
   @Override
   public byte[] loadBytes(String name) {
     try {
-      ZipEntry entry = jarFile.getEntry(name);
+      ZipEntry entry = zipFile.getEntry(name);
       if (entry == null) {
         return new byte[0];
       }
-
-      try (InputStream is = jarFile.getInputStream(entry)) {
-        byte[] buffer = new byte[8192];
-        ByteArrayOutputStream array = new ByteArrayOutputStream((int) entry.getSize());
-        int i;
-        while ((i = is.read(buffer)) >= 0) {
-          array.write(buffer, 0, i);
-        }
-        return array.toByteArray();
-      }
+      return read(entry);
     } catch (IOException e) {
       // TODO Godin: not sure that we should silently ignore exception here,
       // e.g. it can be thrown if file corrupted
@@ -89,10 +103,22 @@ class JarLoader implements Loader {
     }
   }
 
+  private byte[] read(ZipEntry entry) throws IOException {
+    try (InputStream is = zipFile.getInputStream(entry)) {
+      long size = entry.getSize();
+      if (size < 0 || size > Integer.MAX_VALUE) {
+        return ByteStreams.toByteArray(is);
+      }
+      byte[] result = new byte[(int) size];
+      ByteStreams.readFully(is, result);
+      return result;
+    }
+  }
+
   @Override
   public void close() {
     try {
-      jarFile.close();
+      zipFile.close();
     } catch (IOException e) {
       // ignore
     }
@@ -121,7 +147,7 @@ class JarLoader implements Loader {
 
         @Override
         public InputStream getInputStream() throws IOException {
-          return jarFile.getInputStream(entry);
+          return zipFile.getInputStream(entry);
         }
       };
     }
@@ -20,6 +20,8 @@
 package org.sonar.java.bytecode.loader;
 
 import java.net.URL;
+import java.util.Set;
+import javax.annotation.CheckForNull;
 
 /**
  * Specifies resource loading behavior.
@@ -46,6 +48,15 @@ interface Loader {
    */
   byte[] loadBytes(String name);
 
+  /**
+   * Lists the packages this loader can provide resources for, so that lookups can skip loaders which can not hold a resource.
+   *
+   * @return names of the directories holding resources (e.g. <tt>org/acme</tt>, or empty string for the root), or
+   *         <tt>null</tt> if they can not be listed upfront, in which case this loader is queried for every resource
+   */
+  @CheckForNull
+  Set<String> packages();
+
   /**
    * Closes this loader, so that it can no longer be used to load new resources.
    * If loader is already closed, then invoking this method has no effect.
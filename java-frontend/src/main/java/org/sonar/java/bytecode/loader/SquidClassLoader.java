@@ -19,6 +19,7 @@
  */
 package org.sonar.java.bytecode.loader;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Iterators;
 import com.google.common.io.ByteStreams;
 import java.io.Closeable;
@@ -28,8 +29,15 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.ArrayUtils;
 import org.sonar.api.utils.log.Logger;
@@ -43,14 +51,41 @@ import org.sonar.java.resolve.Convert;
 public class SquidClassLoader extends ClassLoader implements Closeable {
 
   private static final Logger LOG = Loggers.get(SquidClassLoader.class);
+  private static final int DEFAULT_MAX_RESOURCES_NOT_FOUND = 10_000;
 
   private final List<Loader> loaders;
+  /**
+   * Loaders which may hold resources of a package, in classpath order. Loaders which can not list their packages are part of every list.
+   */
+  private final Map<String, List<Loader>> loadersByPackage = new HashMap<>();
+  /**
+   * Loaders to query for a package which is not listed by any loader.
+   */
+  private final List<Loader> unindexedLoaders = new ArrayList<>();
+  /**
+   * Names of the most recently looked up resources which are known to be absent from the classpath.
+   */
+  private final Set<String> resourcesNotFound;
+  private final Statistics statistics = new Statistics();
+  private boolean closed = false;
 
   /**
    * @param files ordered list of files and directories from which to load classes and resources
    */
   public SquidClassLoader(List<File> files) {
+    this(files, DEFAULT_MAX_RESOURCES_NOT_FOUND);
+  }
+
+  @VisibleForTesting
+  SquidClassLoader(List<File> files, int maxResourcesNotFound) {
     super(computeParent());
+    resourcesNotFound = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > maxResourcesNotFound;
+      }
+    }));
+    long start = System.nanoTime();
     loaders = new ArrayList<>();
     for (File file : files) {
       if (file.exists()) {
@@ -68,6 +103,43 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
         }
       }
     }
+    indexPackages();
+    statistics.indexBuildTimeMs = (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private void indexPackages() {
+    Set<String> allPackages = new LinkedHashSet<>();
+    for (Loader loader : loaders) {
+      Set<String> packages = loader.packages();
+      if (packages != null) {
+        allPackages.addAll(packages);
+      }
+    }
+    allPackages.forEach(packageName -> loadersByPackage.put(packageName, new ArrayList<>()));
+    for (Loader loader : loaders) {
+      Set<String> packages = loader.packages();
+      if (packages == null) {
+        loadersByPackage.values().forEach(packageLoaders -> packageLoaders.add(loader));
+        unindexedLoaders.add(loader);
+      } else {
+        packages.forEach(packageName -> loadersByPackage.get(packageName).add(loader));
+      }
+    }
+  }
+
+  /**
+   * @return loaders which may hold the resource, in classpath order
+   */
+  private List<Loader> loadersFor(String resourceName) {
+    List<Loader> result = loadersByPackage.getOrDefault(packageName(resourceName), unindexedLoaders);
+    statistics.lookups.increment();
+    statistics.loadersSkipped.add((long) loaders.size() - result.size());
+    return result;
+  }
+
+  static String packageName(String resourceName) {
+    int lastSlash = resourceName.lastIndexOf('/');
+    return lastSlash < 0 ? "" : resourceName.substring(0, lastSlash);
   }
 
   private static ClassLoader computeParent() {
@@ -81,7 +153,7 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
   @Override
   protected Class findClass(String name) throws ClassNotFoundException {
     String resourceName = name.replace('.', '/') + ".class";
-    for (Loader loader : loaders) {
+    for (Loader loader : loadersFor(resourceName)) {
       byte[] classBytes = loader.loadBytes(resourceName);
       if (ArrayUtils.isNotEmpty(classBytes)) {
         // TODO Godin: definePackage ?
@@ -91,9 +163,26 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
     throw new ClassNotFoundException(name);
   }
 
+  /**
+   * Same as {@link ClassLoader#getResource(String)}, but remembers resources which can not be found,
+   * neither by the parent class loader nor in the classpath, so that looking them up again is free.
+   */
+  @Override
+  public URL getResource(String name) {
+    if (resourcesNotFound.contains(name)) {
+      statistics.negativeCacheHits.increment();
+      return null;
+    }
+    URL url = super.getResource(name);
+    if (url == null) {
+      resourcesNotFound.add(name);
+    }
+    return url;
+  }
+
   @Override
   public URL findResource(String name) {
-    for (Loader loader : loaders) {
+    for (Loader loader : loadersFor(name)) {
       URL url = loader.findResource(name);
       if (url != null) {
         return url;
@@ -105,7 +194,7 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
   @Override
   protected Enumeration<URL> findResources(String name) throws IOException {
     List<URL> result = new ArrayList<>();
-    for (Loader loader : loaders) {
+    for (Loader loader : loadersFor(name)) {
       URL url = loader.findResource(name);
       if (url != null) {
         result.add(url);
@@ -141,9 +230,27 @@ public class SquidClassLoader extends ClassLoader implements Closeable {
    */
   @Override
   public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
     for (Loader loader : loaders) {
       loader.close();
     }
+    LOG.debug("Classpath of {} elements: {} packages indexed in {} ms, {} lookups skipped {} loaders, {} lookups answered by negative cache",
+      loaders.size(), loadersByPackage.size(), statistics.indexBuildTimeMs, statistics.lookups.sum(), statistics.loadersSkipped.sum(),
+      statistics.negativeCacheHits.sum());
+  }
+
+  Statistics statistics() {
+    return statistics;
+  }
+
+  static class Statistics {
+    long indexBuildTimeMs;
+    final LongAdder lookups = new LongAdder();
+    final LongAdder loadersSkipped = new LongAdder();
+    final LongAdder negativeCacheHits = new LongAdder();
   }
 
 }
@@ -274,8 +274,8 @@ public class BytecodeEGWalker {
     checkerDispatcher = new CheckerDispatcher(this, Lists.newArrayList(
       new BytecodeSECheck.NullnessCheck(),
       new BytecodeSECheck.ZeronessCheck()));
-    constraintManager = new ConstraintManager();
-    explodedGraph = new ExplodedGraph();
+    constraintManager = new ConstraintManager(behaviorCache.limits());
+    explodedGraph = new ExplodedGraph(behaviorCache.limits());
     workList = new LinkedList<>();
     endOfExecutionPath = new LinkedHashSet<>();
   }
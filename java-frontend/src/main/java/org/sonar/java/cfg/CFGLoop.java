@@ -27,6 +27,7 @@ import javax.annotation.CheckForNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -162,6 +163,17 @@ public class CFGLoop {
     return cfgLoops;
   }
 
+  /**
+   * @return blocks evaluating the condition of the loops of the given CFG, which are the heads of these loops
+   */
+  public static Set<CFG.Block> loopHeads(CFG cfg) {
+    Set<CFG.Block> loopHeads = new HashSet<>();
+    for (CFGLoop loop : getCFGLoops(cfg).values()) {
+      loopHeads.add(loop.startingBlock);
+    }
+    return Collections.unmodifiableSet(loopHeads);
+  }
+
   private static CFGLoop create(CFG.Block block, Map<Tree, CFGLoop> container) {
     CFGLoop loop = new CFGLoop(block);
     container.put(block.terminator(), loop);
@@ -32,6 +32,13 @@ public final class PCollections {
     return AVLTree.create();
   }
 
+  /**
+   * @return empty map stored in a trie of the hash codes of its keys, for keys whose hash codes rarely collide
+   */
+  public static <K, V> PMap<K, V> emptyHashTrieMap() {
+    return PatriciaTrie.create();
+  }
+
   public static <E> PStack<E> emptyStack() {
     return SinglyLinkedList.EMPTY;
   }
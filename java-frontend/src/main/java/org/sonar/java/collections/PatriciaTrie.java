@@ -0,0 +1,359 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.collections;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nullable;
+import java.util.function.BiConsumer;
+
+/**
+ * Big-endian Patricia trie, keyed by the hash codes of the keys.
+ *
+ * C. Okasaki and A. Gill, "Fast Mergeable Integer Maps", 1998
+ *
+ * Like {@link AVLTree}, entries are iterated in the ascending order of the hash codes of their keys, keys having the same hash code
+ * being kept in a bucket. Unlike {@link AVLTree}, hash codes of the keys in the map are never computed again, lookups only test bits of
+ * the hash code of the looked up key, and there is no rebalancing. The trie of a set of hash codes is unique: maps are compared
+ * structurally, sub-tries shared by two maps being only compared by reference.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ */
+abstract class PatriciaTrie<K, V> implements PMap<K, V> {
+
+  @SuppressWarnings("rawtypes")
+  private static final PatriciaTrie EMPTY = new Empty();
+
+  /**
+   * @return empty trie
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> PatriciaTrie<K, V> create() {
+    return EMPTY;
+  }
+
+  @Override
+  public PatriciaTrie<K, V> put(K key, V value) {
+    Preconditions.checkNotNull(key);
+    Preconditions.checkNotNull(value);
+    return put(unsigned(key), key, value);
+  }
+
+  @Override
+  public PatriciaTrie<K, V> remove(K key) {
+    Preconditions.checkNotNull(key);
+    return remove(unsigned(key), key);
+  }
+
+  @Nullable
+  @Override
+  public V get(K key) {
+    Preconditions.checkNotNull(key);
+    int h = unsigned(key);
+    PatriciaTrie<K, V> t = this;
+    while (t instanceof Branch) {
+      Branch<K, V> branch = (Branch<K, V>) t;
+      t = isZero(h, branch.branchingBit) ? branch.left : branch.right;
+    }
+    if (t instanceof Leaf && ((Leaf<K, V>) t).h == h) {
+      Leaf<K, V> leaf = ((Leaf<K, V>) t).find(key);
+      return leaf == null ? null : leaf.value;
+    }
+    return null;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this == EMPTY;
+  }
+
+  abstract PatriciaTrie<K, V> put(int h, K key, V value);
+
+  abstract PatriciaTrie<K, V> remove(int h, K key);
+
+  /**
+   * Sign bit is flipped, so that the unsigned order of the trie is the signed order of the hash codes.
+   */
+  private static int unsigned(Object key) {
+    return key.hashCode() ^ Integer.MIN_VALUE;
+  }
+
+  private static boolean isZero(int h, int branchingBit) {
+    return (h & branchingBit) == 0;
+  }
+
+  /**
+   * @return bits of the given hash code above the branching bit
+   */
+  private static int prefix(int h, int branchingBit) {
+    return h & (~(branchingBit - 1) ^ branchingBit);
+  }
+
+  private static <K, V> PatriciaTrie<K, V> join(int h1, PatriciaTrie<K, V> t1, int h2, PatriciaTrie<K, V> t2) {
+    int branchingBit = Integer.highestOneBit(h1 ^ h2);
+    int prefix = prefix(h1, branchingBit);
+    if (isZero(h1, branchingBit)) {
+      return new Branch<>(prefix, branchingBit, t1, t2);
+    }
+    return new Branch<>(prefix, branchingBit, t2, t1);
+  }
+
+  private static final class Empty<K, V> extends PatriciaTrie<K, V> {
+
+    @Override
+    PatriciaTrie<K, V> put(int h, K key, V value) {
+      return new Leaf<>(h, key, value, null);
+    }
+
+    @Override
+    PatriciaTrie<K, V> remove(int h, K key) {
+      return this;
+    }
+
+    @Override
+    public void forEach(BiConsumer<K, V> action) {
+      // nothing to iterate
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Empty;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return "";
+    }
+  }
+
+  /**
+   * Entry of the trie, followed by the other entries whose keys have the same hash code.
+   */
+  private static final class Leaf<K, V> extends PatriciaTrie<K, V> {
+    private final int h;
+    private final K key;
+    private final V value;
+    @Nullable
+    private final Leaf<K, V> nextInBucket;
+    private int hashCode;
+
+    private Leaf(int h, K key, V value, @Nullable Leaf<K, V> nextInBucket) {
+      this.h = h;
+      this.key = key;
+      this.value = value;
+      this.nextInBucket = nextInBucket;
+    }
+
+    @Nullable
+    private Leaf<K, V> find(Object k) {
+      Leaf<K, V> leaf = this;
+      while (leaf != null && !leaf.key.equals(k)) {
+        leaf = leaf.nextInBucket;
+      }
+      return leaf;
+    }
+
+    @Override
+    PatriciaTrie<K, V> put(int h, K key, V value) {
+      if (this.h != h) {
+        return join(h, new Leaf<>(h, key, value, null), this.h, this);
+      }
+      Leaf<K, V> existing = find(key);
+      if (existing == null) {
+        return new Leaf<>(h, key, value, this);
+      }
+      if (existing.value.equals(value)) {
+        return this;
+      }
+      return new Leaf<>(h, key, value, removeFromBucket(existing));
+    }
+
+    @Override
+    PatriciaTrie<K, V> remove(int h, K key) {
+      if (this.h != h) {
+        return this;
+      }
+      Leaf<K, V> existing = find(key);
+      if (existing == null) {
+        return this;
+      }
+      Leaf<K, V> bucket = removeFromBucket(existing);
+      return bucket == null ? create() : bucket;
+    }
+
+    /**
+     * @return entries of the bucket other than the given one
+     */
+    @Nullable
+    private Leaf<K, V> removeFromBucket(Leaf<K, V> removed) {
+      if (this == removed) {
+        return nextInBucket;
+      }
+      return new Leaf<>(h, key, value, nextInBucket.removeFromBucket(removed));
+    }
+
+    private int bucketSize() {
+      return nextInBucket == null ? 1 : (1 + nextInBucket.bucketSize());
+    }
+
+    @Override
+    public void forEach(BiConsumer<K, V> action) {
+      for (Leaf<K, V> leaf = this; leaf != null; leaf = leaf.nextInBucket) {
+        action.accept(leaf.key, leaf.value);
+      }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof Leaf) {
+        Leaf<?, ?> other = (Leaf<?, ?>) obj;
+        return h == other.h
+          && hashCode() == other.hashCode()
+          && bucketSize() == other.bucketSize()
+          && containsAll(other);
+      }
+      return false;
+    }
+
+    private boolean containsAll(Leaf<?, ?> other) {
+      for (Leaf<?, ?> leaf = other; leaf != null; leaf = leaf.nextInBucket) {
+        Leaf<K, V> found = find(leaf.key);
+        if (found == null || !found.value.equals(leaf.value)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      if (hashCode == 0) {
+        // the key is multiplied by 31 to avoid K ^ V == 0 when K == V
+        int result = 0;
+        for (Leaf<K, V> leaf = this; leaf != null; leaf = leaf.nextInBucket) {
+          result += (31 * (leaf.h ^ Integer.MIN_VALUE)) ^ leaf.value.hashCode();
+        }
+        hashCode = result;
+      }
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      forEach((k, v) -> sb.append(" ").append(k).append("->").append(v));
+      return sb.toString();
+    }
+  }
+
+  private static final class Branch<K, V> extends PatriciaTrie<K, V> {
+    private final int prefix;
+    private final int branchingBit;
+    /**
+     * Entries whose hash codes have a zero at the branching bit.
+     */
+    private final PatriciaTrie<K, V> left;
+    private final PatriciaTrie<K, V> right;
+    private int hashCode;
+
+    private Branch(int prefix, int branchingBit, PatriciaTrie<K, V> left, PatriciaTrie<K, V> right) {
+      this.prefix = prefix;
+      this.branchingBit = branchingBit;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    PatriciaTrie<K, V> put(int h, K key, V value) {
+      if (prefix(h, branchingBit) != prefix) {
+        return join(h, new Leaf<>(h, key, value, null), prefix, this);
+      }
+      if (isZero(h, branchingBit)) {
+        PatriciaTrie<K, V> newLeft = left.put(h, key, value);
+        return newLeft == left ? this : new Branch<>(prefix, branchingBit, newLeft, right);
+      }
+      PatriciaTrie<K, V> newRight = right.put(h, key, value);
+      return newRight == right ? this : new Branch<>(prefix, branchingBit, left, newRight);
+    }
+
+    @Override
+    PatriciaTrie<K, V> remove(int h, K key) {
+      if (prefix(h, branchingBit) != prefix) {
+        return this;
+      }
+      if (isZero(h, branchingBit)) {
+        PatriciaTrie<K, V> newLeft = left.remove(h, key);
+        if (newLeft == left) {
+          return this;
+        }
+        return newLeft.isEmpty() ? right : new Branch<>(prefix, branchingBit, newLeft, right);
+      }
+      PatriciaTrie<K, V> newRight = right.remove(h, key);
+      if (newRight == right) {
+        return this;
+      }
+      return newRight.isEmpty() ? left : new Branch<>(prefix, branchingBit, left, newRight);
+    }
+
+    @Override
+    public void forEach(BiConsumer<K, V> action) {
+      left.forEach(action);
+      right.forEach(action);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof Branch) {
+        Branch<?, ?> other = (Branch<?, ?>) obj;
+        return hashCode() == other.hashCode()
+          && prefix == other.prefix
+          && branchingBit == other.branchingBit
+          && left.equals(other.left)
+          && right.equals(other.right);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      if (hashCode == 0) {
+        hashCode = left.hashCode() + right.hashCode();
+      }
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return left.toString() + right.toString();
+    }
+  }
+}
@@ -41,9 +41,9 @@ import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
 public class DefaultJavaFileScannerContext implements JavaFileScannerContext {
-  private final CompilationUnitTree tree;
+  private CompilationUnitTree tree;
   @VisibleForTesting
-  private final SemanticModel semanticModel;
+  private SemanticModel semanticModel;
   private final SonarComponents sonarComponents;
   private final ComplexityVisitor complexityVisitor;
   private final File file;
@@ -66,6 +66,15 @@ public class DefaultJavaFileScannerContext implements JavaFileScannerContext {
     return tree;
   }
 
+  /**
+   * Drops the references to the tree and to the semantic model of the file once all its scanners ran, as scanners keep their context
+   * until the next file. The context must not be used to get them afterwards.
+   */
+  public void release() {
+    tree = null;
+    semanticModel = null;
+  }
+
   @Override
   public void addIssueOnFile(JavaCheck javaCheck, String message) {
     addIssue(-1, javaCheck, message);
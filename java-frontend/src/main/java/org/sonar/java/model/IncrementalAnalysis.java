@@ -0,0 +1,306 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.java.AnalyzerMessage;
+import org.sonar.java.EndOfAnalysisCheck;
+import org.sonar.java.SonarComponents;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+import org.sonar.plugins.java.api.JavaCheck;
+
+/**
+ * Results of the checks on each file, kept from one analysis to the next one, so that checks are not executed again on files which did
+ * not change.
+ * <p/>
+ * A file is not checked again when its content, the configuration of the analysis, and the bytecode of every class it depends on are
+ * unchanged. Dependencies are the classes looked up in bytecode while resolving the semantic of the file, whether they were found or
+ * not, and the classes read to compute the behaviors of the methods it invokes. Source files of the project are seen through their
+ * bytecode, so a change of the signature of a method invalidates every file using it.
+ * <p/>
+ * Checks reporting issues at the end of the analysis ({@link EndOfAnalysisCheck}) are executed on every file.
+ */
+public class IncrementalAnalysis {
+
+  private static final Logger LOG = Loggers.get(IncrementalAnalysis.class);
+  private static final int FORMAT_VERSION = 1;
+  private static final String ABSENT = "absent";
+  private static final String JDK = "jdk";
+
+  private final File storeFile;
+  private final String configuration;
+  private final SonarComponents sonarComponents;
+  private final SquidClassLoader classLoader;
+  private final Map<String, String> classHashes = new HashMap<>();
+  private final Map<String, FileResults> newResults = new TreeMap<>();
+  private Map<String, FileResults> previousResults;
+  private Map<String, JavaCheck> checksByRuleKey;
+  private int replayedFiles = 0;
+
+  @Nullable
+  private FileResults currentFileResults;
+  private boolean currentFileRecordable;
+
+  /**
+   * @param configuration description of the configuration of the analysis: results of another configuration are discarded
+   */
+  public IncrementalAnalysis(File storeFile, String configuration, SonarComponents sonarComponents, SquidClassLoader classLoader) {
+    this.storeFile = storeFile;
+    this.configuration = FORMAT_VERSION + "|" + System.getProperty("java.runtime.version") + "|" + configuration + "|" + sonarComponents.activeRulesDescription();
+    this.sonarComponents = sonarComponents;
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * @return true if the results of the previous analysis of the file are still valid, see {@link #replay(File)}
+   */
+  public boolean isUnchanged(File file) {
+    FileResults previous = previousResults().get(file.getAbsolutePath());
+    if (previous == null || !previous.contentHash.equals(contentHash(file))
+      || previous.dependencies.entrySet().stream().anyMatch(dependency -> !dependency.getValue().equals(classHash(dependency.getKey())))) {
+      return false;
+    }
+    return previous.issues.stream().allMatch(issue -> checksByRuleKey().containsKey(issue.ruleKey));
+  }
+
+  /**
+   * Reports again the issues of the previous analysis of an unchanged file.
+   */
+  public void replay(File file) {
+    String path = file.getAbsolutePath();
+    FileResults previous = previousResults().get(path);
+    previous.issues.forEach(issue -> sonarComponents.reportIssue(issue.toAnalyzerMessage(checksByRuleKey().get(issue.ruleKey), file)));
+    newResults.put(path, previous);
+    replayedFiles++;
+  }
+
+  /**
+   * Starts recording the issues reported on the file, until {@link #endRecording(Set)} is called.
+   */
+  public void startRecording(File file) {
+    currentFileResults = new FileResults(file.getAbsolutePath(), contentHash(file));
+    currentFileRecordable = true;
+    sonarComponents.setIssueListener(this::record);
+  }
+
+  /**
+   * The results of the file will be checked again by the next analysis, for instance because an error occurred.
+   */
+  public void discardRecording() {
+    currentFileRecordable = false;
+  }
+
+  /**
+   * @param dependencies classes on which the results of the file depend
+   */
+  public void endRecording(Set<String> dependencies) {
+    sonarComponents.setIssueListener(null);
+    if (currentFileResults != null && currentFileRecordable) {
+      dependencies.forEach(dependency -> currentFileResults.dependencies.put(dependency, classHash(dependency)));
+      newResults.put(currentFileResults.path, currentFileResults);
+    }
+    currentFileResults = null;
+  }
+
+  private void record(AnalyzerMessage message) {
+    if (currentFileResults == null || message.getCheck() instanceof EndOfAnalysisCheck) {
+      return;
+    }
+    RuleKey ruleKey = sonarComponents.getRuleKey(message.getCheck());
+    if (!message.getFile().getAbsolutePath().equals(currentFileResults.path) || ruleKey == null) {
+      // issues reported on another file can not be replayed with the file
+      currentFileRecordable = false;
+      return;
+    }
+    currentFileResults.issues.add(new StoredIssue(ruleKey.toString(), message));
+  }
+
+  public void save() {
+    LOG.info("Incremental analysis: {} files not changed since previous analysis, {} files checked", replayedFiles, newResults.size() - replayedFiles);
+    try {
+      Files.createDirectories(storeFile.getParentFile().toPath());
+      try (Writer writer = Files.newBufferedWriter(storeFile.toPath(), StandardCharsets.UTF_8)) {
+        new Gson().toJson(new Store(configuration, newResults), writer);
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to store results of incremental analysis in {}: {}", storeFile, e.getMessage());
+    }
+  }
+
+  private Map<String, FileResults> previousResults() {
+    if (previousResults == null) {
+      previousResults = new HashMap<>();
+      Store store = readStore();
+      if (store != null && configuration.equals(store.configuration)) {
+        previousResults = store.files;
+      }
+    }
+    return previousResults;
+  }
+
+  @CheckForNull
+  private Store readStore() {
+    if (!storeFile.isFile()) {
+      return null;
+    }
+    try (Reader reader = Files.newBufferedReader(storeFile.toPath(), StandardCharsets.UTF_8)) {
+      return new Gson().fromJson(reader, Store.class);
+    } catch (IOException | JsonParseException e) {
+      LOG.warn("Unable to read results of previous analysis from {}: {}", storeFile, e.getMessage());
+      return null;
+    }
+  }
+
+  private Map<String, JavaCheck> checksByRuleKey() {
+    if (checksByRuleKey == null) {
+      checksByRuleKey = new HashMap<>();
+      for (Checks<JavaCheck> checks : sonarComponents.checks()) {
+        for (JavaCheck check : checks.all()) {
+          checksByRuleKey.put(checks.ruleKey(check).toString(), check);
+        }
+      }
+    }
+    return checksByRuleKey;
+  }
+
+  private String contentHash(File file) {
+    return Hashing.sha256().hashString(sonarComponents.fileContent(file), StandardCharsets.UTF_8).toString();
+  }
+
+  @VisibleForTesting
+  String classHash(String className) {
+    if (className.startsWith("java.")) {
+      // only classes of the JDK can be in java packages, and the version of the JDK is part of the configuration
+      return JDK;
+    }
+    return classHashes.computeIfAbsent(className, k -> {
+      byte[] bytes = classLoader.getBytesForClass(className);
+      return bytes == null ? ABSENT : Hashing.sha256().hashBytes(bytes).toString();
+    });
+  }
+
+  private static class Store {
+    private final String configuration;
+    private final Map<String, FileResults> files;
+
+    Store(String configuration, Map<String, FileResults> files) {
+      this.configuration = configuration;
+      this.files = files;
+    }
+  }
+
+  private static class FileResults {
+    private final String path;
+    private final String contentHash;
+    private final Map<String, String> dependencies = new TreeMap<>();
+    private final List<StoredIssue> issues = new ArrayList<>();
+
+    FileResults(String path, String contentHash) {
+      this.path = path;
+      this.contentHash = contentHash;
+    }
+  }
+
+  private static class StoredIssue {
+    private final String ruleKey;
+    private final String message;
+    private final int cost;
+    @Nullable
+    private final StoredTextSpan location;
+    private final List<List<StoredLocation>> flows;
+
+    StoredIssue(String ruleKey, AnalyzerMessage message) {
+      this.ruleKey = ruleKey;
+      this.message = message.getMessage();
+      Double messageCost = message.getCost();
+      this.cost = messageCost == null ? 0 : messageCost.intValue();
+      this.location = StoredTextSpan.of(message.primaryLocation());
+      this.flows = message.flows.stream()
+        .map(flow -> flow.stream().map(StoredLocation::new).collect(Collectors.toList()))
+        .collect(Collectors.toList());
+    }
+
+    AnalyzerMessage toAnalyzerMessage(JavaCheck check, File file) {
+      AnalyzerMessage result = new AnalyzerMessage(check, file, location == null ? null : location.toTextSpan(), message, cost);
+      flows.forEach(flow -> result.flows.add(flow.stream().map(flowLocation -> flowLocation.toAnalyzerMessage(check, file)).collect(Collectors.toList())));
+      return result;
+    }
+  }
+
+  private static class StoredLocation {
+    private final String message;
+    @Nullable
+    private final StoredTextSpan location;
+
+    StoredLocation(AnalyzerMessage message) {
+      this.message = message.getMessage();
+      this.location = StoredTextSpan.of(message.primaryLocation());
+    }
+
+    AnalyzerMessage toAnalyzerMessage(JavaCheck check, File file) {
+      return new AnalyzerMessage(check, file, location == null ? null : location.toTextSpan(), message, 0);
+    }
+  }
+
+  private static class StoredTextSpan {
+    private final int startLine;
+    private final int startCharacter;
+    private final int endLine;
+    private final int endCharacter;
+
+    private StoredTextSpan(AnalyzerMessage.TextSpan textSpan) {
+      this.startLine = textSpan.startLine;
+      this.startCharacter = textSpan.startCharacter;
+      this.endLine = textSpan.endLine;
+      this.endCharacter = textSpan.endCharacter;
+    }
+
+    @CheckForNull
+    static StoredTextSpan of(@Nullable AnalyzerMessage.TextSpan textSpan) {
+      return textSpan == null ? null : new StoredTextSpan(textSpan);
+    }
+
+    AnalyzerMessage.TextSpan toTextSpan() {
+      return new AnalyzerMessage.TextSpan(startLine, startCharacter, endLine, endCharacter);
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.LinkedList;
@@ -61,16 +62,57 @@ public abstract class JavaTree implements Tree {
 
   protected GrammarRuleKey grammarRuleKey;
 
-  private List<Tree> children;
+  private static final Tree[] NO_CHILDREN = new Tree[0];
+
+  /**
+   * Non-null children, computed once: the array is of the exact size, so that it costs as little as possible as long as the tree lives.
+   * Volatile as trees can be read concurrently by symbolic execution: the array is only published once filled.
+   */
+  @Nullable
+  private volatile Tree[] children;
+
+  /**
+   * Tokens of the whole compilation unit, set once parsed: the tokens of this tree are the ones from {@link #firstTokenIndex} to
+   * {@link #lastTokenIndex}, the range being empty when the tree has no token.
+   */
+  @Nullable
+  private List<SyntaxToken> unitTokens;
+  private int firstTokenIndex;
+  private int lastTokenIndex;
 
   public JavaTree(GrammarRuleKey grammarRuleKey) {
     this.grammarRuleKey = grammarRuleKey;
   }
 
+  /**
+   * Set when the tree is parsed, see {@link TreeLinker}.
+   */
+  void setTokenRange(List<SyntaxToken> unitTokens, int firstTokenIndex, int lastTokenIndex) {
+    this.unitTokens = unitTokens;
+    this.firstTokenIndex = firstTokenIndex;
+    this.lastTokenIndex = lastTokenIndex;
+  }
+
+  boolean hasTokenRange() {
+    return unitTokens != null;
+  }
+
+  boolean hasTokens() {
+    return firstTokenIndex <= lastTokenIndex;
+  }
+
+  int firstTokenIndex() {
+    return firstTokenIndex;
+  }
+
   @Override
   @Nullable
   public SyntaxToken firstToken() {
-    for (Tree child : getChildren()) {
+    if (unitTokens != null) {
+      return firstTokenIndex <= lastTokenIndex ? unitTokens.get(firstTokenIndex) : null;
+    }
+    Tree[] trees = childArray();
+    for (Tree child : trees) {
       SyntaxToken first = child.firstToken();
       if (first != null) {
         return first;
@@ -82,9 +124,12 @@ public abstract class JavaTree implements Tree {
   @Override
   @Nullable
   public SyntaxToken lastToken() {
-    List<Tree> trees = getChildren();
-    for (int index = trees.size() - 1; index >= 0; index--) {
-      SyntaxToken last = trees.get(index).lastToken();
+    if (unitTokens != null) {
+      return firstTokenIndex <= lastTokenIndex ? unitTokens.get(lastTokenIndex) : null;
+    }
+    Tree[] trees = childArray();
+    for (int index = trees.length - 1; index >= 0; index--) {
+      SyntaxToken last = trees[index].lastToken();
       if (last != null) {
         return last;
       }
@@ -128,17 +173,40 @@ public abstract class JavaTree implements Tree {
    */
   protected abstract Iterable<Tree> children();
 
+  /**
+   * @return a read-only view of the non-null children, allocated on each call: hot paths iterate with {@link #childrenCount()} and
+   * {@link #child(int)} instead
+   */
   public List<Tree> getChildren() {
-    if(children == null) {
-      children = new ArrayList<>();
+    return Collections.unmodifiableList(Arrays.asList(childArray()));
+  }
+
+  /**
+   * @return the number of non-null children, which can be iterated without allocation with {@link #child(int)}
+   * @throws java.lang.UnsupportedOperationException if {@link #isLeaf()} returns {@code true}
+   */
+  public int childrenCount() {
+    return childArray().length;
+  }
+
+  public Tree child(int index) {
+    return childArray()[index];
+  }
+
+  private Tree[] childArray() {
+    Tree[] result = children;
+    if (result == null) {
+      List<Tree> nonNullChildren = new ArrayList<>();
       children().forEach(child -> {
         // null children are ignored
         if (child != null) {
-          children.add(child);
+          nonNullChildren.add(child);
         }
       });
+      result = nonNullChildren.isEmpty() ? NO_CHILDREN : nonNullChildren.toArray(new Tree[nonNullChildren.size()]);
+      children = result;
     }
-    return children;
+    return result;
   }
 
   public boolean isLeaf() {
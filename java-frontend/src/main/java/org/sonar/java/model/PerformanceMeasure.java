@@ -0,0 +1,189 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.java.SonarComponents;
+
+/**
+ * Wall time spent in each phase of the analysis and in each scanner, recorded when {@link SonarComponents#PERFORMANCE_MEASURE_KEY} is
+ * enabled and written as a JSON report at the end of the analysis.
+ * <p/>
+ * For each phase and each scanner, the cumulated time over all the files is kept, along with the longest time spent on a single file.
+ * Time spent by the checks of symbolic execution is part of the symbolic execution phase. Time spent by subscription visitors while
+ * visiting the tree is estimated from a sample of the visits of the nodes. Files can be parsed ahead on other threads than the analysis
+ * thread, so measures can be added concurrently.
+ */
+public class PerformanceMeasure {
+
+  private static final Logger LOG = Loggers.get(PerformanceMeasure.class);
+
+  public enum Phase {
+    PARSE("parse"),
+    SEMANTIC("semantic"),
+    SYMBOLIC_EXECUTION("symbolicExecution"),
+    /**
+     * Time spent by all the scanners, see {@link #addScanner(String, File, long)}
+     */
+    CHECKS("checks");
+
+    private final String key;
+
+    Phase(String key) {
+      this.key = key;
+    }
+  }
+
+  private final Map<String, FileMeasure> files = new HashMap<>();
+  private final Map<String, Measure> scanners = new HashMap<>();
+
+  public synchronized void add(Phase phase, File file, long nanos) {
+    fileMeasure(file).phases.merge(phase, nanos, Long::sum);
+  }
+
+  /**
+   * @param scanner name of the scanner, the key of the rule for checks
+   */
+  public synchronized void addScanner(String scanner, File file, long nanos) {
+    scanners.computeIfAbsent(scanner, k -> new Measure()).add(file.getPath(), nanos);
+    add(Phase.CHECKS, file, nanos);
+  }
+
+  /**
+   * @param nanos time spent analyzing the parsed file, from the creation of its semantic to the end of the execution of the scanners
+   */
+  public synchronized void addAnalysis(File file, long nanos) {
+    fileMeasure(file).analysis += nanos;
+  }
+
+  private FileMeasure fileMeasure(File file) {
+    return files.computeIfAbsent(file.getPath(), k -> new FileMeasure());
+  }
+
+  public synchronized void save(File reportFile) {
+    try {
+      Files.createDirectories(reportFile.getAbsoluteFile().getParentFile().toPath());
+      try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        gson.toJson(report(), writer);
+      }
+      LOG.info("Performance measures of the analysis written to {}", reportFile);
+    } catch (IOException e) {
+      LOG.warn("Unable to write performance measures of the analysis to {}: {}", reportFile, e.getMessage());
+    }
+  }
+
+  private Report report() {
+    Report report = new Report();
+    for (Phase phase : Phase.values()) {
+      Measure measure = new Measure();
+      files.forEach((path, fileMeasure) -> {
+        Long nanos = fileMeasure.phases.get(phase);
+        if (nanos != null) {
+          measure.add(path, nanos);
+        }
+      });
+      report.phases.put(phase.key, measure.toReport());
+    }
+    scanners.entrySet().stream()
+      .sorted(Comparator.comparing((Map.Entry<String, Measure> e) -> e.getValue().total).reversed().thenComparing(Map.Entry::getKey))
+      .forEach(e -> report.scanners.put(e.getKey(), e.getValue().toReport()));
+    files.entrySet().stream()
+      .sorted(Comparator.comparing((Map.Entry<String, FileMeasure> e) -> e.getValue().total()).reversed().thenComparing(Map.Entry::getKey))
+      .forEach(e -> report.files.put(e.getKey(), e.getValue().toReport()));
+    return report;
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1_000.0) / 1_000.0;
+  }
+
+  private static class Measure {
+    private long total = 0;
+    private long max = -1;
+    private String maxFile = null;
+    private int count = 0;
+
+    void add(String path, long nanos) {
+      total += nanos;
+      count++;
+      if (nanos > max) {
+        max = nanos;
+        maxFile = path;
+      }
+    }
+
+    MeasureReport toReport() {
+      return new MeasureReport(millis(total), millis(Math.max(max, 0)), maxFile, count);
+    }
+  }
+
+  private static class FileMeasure {
+    private final EnumMap<Phase, Long> phases = new EnumMap<>(Phase.class);
+    private long analysis = 0;
+
+    long total() {
+      return phases.getOrDefault(Phase.PARSE, 0L) + analysis;
+    }
+
+    Map<String, Double> toReport() {
+      Map<String, Double> result = new LinkedHashMap<>();
+      result.put("total", millis(total()));
+      phases.forEach((phase, nanos) -> result.put(phase.key, millis(nanos)));
+      return result;
+    }
+  }
+
+  /**
+   * Times of the report are in milliseconds.
+   */
+  private static class Report {
+    private final Map<String, MeasureReport> phases = new LinkedHashMap<>();
+    private final Map<String, MeasureReport> scanners = new LinkedHashMap<>();
+    private final Map<String, Map<String, Double>> files = new LinkedHashMap<>();
+  }
+
+  private static class MeasureReport {
+    private final double total;
+    private final double max;
+    private final String maxFile;
+    private final int files;
+
+    MeasureReport(double total, double max, String maxFile, int files) {
+      this.total = total;
+      this.max = max;
+      this.maxFile = maxFile;
+      this.files = files;
+    }
+  }
+}
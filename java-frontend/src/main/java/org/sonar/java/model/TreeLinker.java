@@ -0,0 +1,117 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.sonar.plugins.java.api.tree.SyntaxToken;
+
+/**
+ * Sets parent links and, in a single walk of a parsed tree, collects all the tokens of the compilation unit in one list, each token
+ * once, giving each tree the range of its tokens in that list.
+ * <p/>
+ * Trees shared by several parents, such as the type of variables declared together, are linked to the first one and walked only
+ * under it. The tokens of the other parents are then not contiguous in the list: these parents, and their ancestors not containing the
+ * first one, get no range and compute their first and last tokens from their children.
+ * <p/>
+ * Not thread-safe: the walk state is reused from one tree to the next.
+ */
+public final class TreeLinker {
+
+  private final Deque<JavaTree> path = new ArrayDeque<>();
+  private int[] nextChildIndexes = new int[64];
+  private int[] firstTokenIndexes = new int[64];
+  private boolean[] contiguous = new boolean[64];
+  /**
+   * Index of the first token listed under each tree which got no range, so that they are not walked twice when shared as well.
+   */
+  private final Map<JavaTree, Integer> firstTokenIndexesWithoutRange = new IdentityHashMap<>();
+
+  public JavaTree link(JavaTree topParent) {
+    path.clear();
+    firstTokenIndexesWithoutRange.clear();
+    ArrayList<SyntaxToken> tokens = new ArrayList<>();
+    enter(topParent, tokens);
+    while (!path.isEmpty()) {
+      JavaTree tree = path.peek();
+      int depth = path.size() - 1;
+      int childIndex = nextChildIndexes[depth];
+      if (childIndex < tree.childrenCount()) {
+        nextChildIndexes[depth] = childIndex + 1;
+        JavaTree child = (JavaTree) tree.child(childIndex);
+        if (child.parent() == null) {
+          child.setParent(tree);
+        }
+        if (child.hasTokenRange()) {
+          // already walked under another parent
+          if (child.hasTokens()) {
+            skipShared(child.firstTokenIndex());
+          }
+        } else if (firstTokenIndexesWithoutRange.containsKey(child)) {
+          skipShared(firstTokenIndexesWithoutRange.get(child));
+        } else {
+          enter(child, tokens);
+        }
+      } else {
+        path.pop();
+        if (contiguous[depth]) {
+          tree.setTokenRange(tokens, firstTokenIndexes[depth], tokens.size() - 1);
+        } else {
+          firstTokenIndexesWithoutRange.put(tree, firstTokenIndexes[depth]);
+        }
+      }
+    }
+    tokens.trimToSize();
+    return topParent;
+  }
+
+  private void enter(JavaTree tree, ArrayList<SyntaxToken> tokens) {
+    if (tree.isLeaf()) {
+      if (tree instanceof SyntaxToken) {
+        tree.setTokenRange(tokens, tokens.size(), tokens.size());
+        tokens.add((SyntaxToken) tree);
+      }
+      return;
+    }
+    int depth = path.size();
+    if (depth == firstTokenIndexes.length) {
+      firstTokenIndexes = Arrays.copyOf(firstTokenIndexes, depth * 2);
+      nextChildIndexes = Arrays.copyOf(nextChildIndexes, depth * 2);
+      contiguous = Arrays.copyOf(contiguous, depth * 2);
+    }
+    firstTokenIndexes[depth] = tokens.size();
+    nextChildIndexes[depth] = 0;
+    contiguous[depth] = true;
+    path.push(tree);
+  }
+
+  /**
+   * The trees being walked which started after the tokens of the shared tree do not contain them in their range.
+   */
+  private void skipShared(int sharedFirstTokenIndex) {
+    for (int depth = path.size() - 1; depth >= 0 && firstTokenIndexes[depth] > sharedFirstTokenIndex; depth--) {
+      contiguous[depth] = false;
+    }
+  }
+}
@@ -20,21 +20,32 @@
 package org.sonar.java.model;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sonar.sslr.api.RecognitionException;
 import java.io.File;
 import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -49,34 +60,51 @@ import org.sonar.java.ast.visitors.SonarSymbolTableVisitor;
 import org.sonar.java.ast.visitors.SubscriptionVisitor;
 import org.sonar.java.bytecode.ClassLoaderBuilder;
 import org.sonar.java.bytecode.loader.SquidClassLoader;
+import org.sonar.java.resolve.BytecodeClassCache;
 import org.sonar.java.resolve.SemanticModel;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.java.se.SymbolicExecutionMode;
 import org.sonar.java.se.SymbolicExecutionVisitor;
 import org.sonar.java.se.xproc.BehaviorCache;
+import org.sonar.java.se.xproc.BytecodeBehaviorStore;
 import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.JavaVersion;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.SyntaxToken;
+import org.sonar.plugins.java.api.tree.SyntaxTrivia;
 import org.sonar.plugins.java.api.tree.Tree;
 
 public class VisitorsBridge {
 
   private static final Logger LOG = Loggers.get(VisitorsBridge.class);
+  private static final String BYTECODE_BEHAVIORS_DIRECTORY = "se-bytecode-behaviors";
 
   private final BehaviorCache behaviorCache;
   private final List<JavaFileScanner> allScanners;
   private List<JavaFileScanner> executableScanners;
   private final SonarComponents sonarComponents;
   private final boolean symbolicExecutionEnabled;
+  private final SymbolicExecutionMode symbolicExecutionMode;
+  @Nullable
+  private final ExecutorService symbolicExecutionExecutor;
+  @Nullable
+  private final SymbolicExecutionLimits symbolicExecutionLimits;
+  @Nullable
+  private IncrementalAnalysis incrementalAnalysis;
+  @Nullable
+  private PerformanceMeasure performanceMeasure;
+  private final Map<JavaFileScanner, String> scannerNames = new IdentityHashMap<>();
   private SemanticModel semanticModel;
+  private boolean releaseAnalyzedFiles = false;
   protected File currentFile;
   protected JavaVersion javaVersion;
   private Set<String> classesNotFound = new TreeSet<>();
   private final SquidClassLoader classLoader;
+  private final BytecodeClassCache bytecodeClassCache;
   private ScannerRunner scannerRunner;
-  private static Predicate<JavaFileScanner> isIssuableSubscriptionVisitor = s -> s instanceof IssuableSubscriptionVisitor;
+  private ScannerRunner unchangedFilesScannerRunner;
 
   @VisibleForTesting
   public VisitorsBridge(JavaFileScanner visitor) {
@@ -95,19 +123,100 @@ public class VisitorsBridge {
         allScanners.add((JavaFileScanner) visitor);
       }
     }
-    this.executableScanners = allScanners.stream().filter(isIssuableSubscriptionVisitor.negate()).collect(Collectors.toList());
+    this.executableScanners = allScanners.stream().filter(scanner -> !isExecutedByScannerRunner(scanner)).collect(Collectors.toList());
     this.scannerRunner = new ScannerRunner(allScanners);
     this.sonarComponents = sonarComponents;
     this.classLoader = ClassLoaderBuilder.create(projectClasspath);
+    this.bytecodeClassCache = new BytecodeClassCache(classLoader);
     this.symbolicExecutionEnabled = symbolicExecutionMode.isEnabled();
-    this.behaviorCache = new BehaviorCache(classLoader, symbolicExecutionMode.isCrossFileEnabled());
+    this.symbolicExecutionMode = symbolicExecutionMode;
+    this.symbolicExecutionLimits = symbolicExecutionLimits(sonarComponents, symbolicExecutionMode);
+    this.behaviorCache = new BehaviorCache(classLoader, symbolicExecutionMode.isCrossFileEnabled(), bytecodeBehaviorStore(sonarComponents, symbolicExecutionMode),
+      symbolicExecutionLimits == null ? SymbolicExecutionLimits.defaultLimits() : symbolicExecutionLimits);
+    this.symbolicExecutionExecutor = symbolicExecutionExecutor(sonarComponents, symbolicExecutionMode);
+  }
+
+  @Nullable
+  private static SymbolicExecutionLimits symbolicExecutionLimits(@Nullable SonarComponents sonarComponents, SymbolicExecutionMode symbolicExecutionMode) {
+    if (!symbolicExecutionMode.isEnabled()) {
+      return null;
+    }
+    return sonarComponents == null ? SymbolicExecutionLimits.defaultLimits() : sonarComponents.symbolicExecutionLimits();
+  }
+
+  @Nullable
+  private static ExecutorService symbolicExecutionExecutor(@Nullable SonarComponents sonarComponents, SymbolicExecutionMode symbolicExecutionMode) {
+    if (sonarComponents == null || !symbolicExecutionMode.isEnabled()) {
+      return null;
+    }
+    int threads = sonarComponents.symbolicExecutionThreads();
+    if (threads <= 1) {
+      return null;
+    }
+    return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("sonar-java-se-%d").setDaemon(true).build());
+  }
+
+  @Nullable
+  private BytecodeBehaviorStore bytecodeBehaviorStore(@Nullable SonarComponents sonarComponents, SymbolicExecutionMode symbolicExecutionMode) {
+    if (sonarComponents == null || !symbolicExecutionMode.isEnabled()) {
+      return null;
+    }
+    File workDir = sonarComponents.workDir();
+    if (workDir == null) {
+      return null;
+    }
+    return new BytecodeBehaviorStore(new File(workDir, BYTECODE_BEHAVIORS_DIRECTORY), classLoader, symbolicExecutionMode.isCrossFileEnabled());
   }
 
   public void setJavaVersion(JavaVersion javaVersion) {
     this.javaVersion = javaVersion;
     List<JavaFileScanner> scannersForJavaVersion = executableScanners(allScanners, javaVersion);
-    this.executableScanners = scannersForJavaVersion.stream().filter(isIssuableSubscriptionVisitor.negate()).collect(Collectors.toList());
-    this.scannerRunner = new ScannerRunner(scannersForJavaVersion);
+    this.executableScanners = scannersForJavaVersion.stream().filter(scanner -> !isExecutedByScannerRunner(scanner)).collect(Collectors.toList());
+    this.scannerRunner = createScannerRunner(scannersForJavaVersion);
+  }
+
+  private ScannerRunner createScannerRunner(List<JavaFileScanner> scanners) {
+    ScannerRunner runner = new ScannerRunner(scanners);
+    if (performanceMeasure != null) {
+      runner.enablePerformanceMeasure(performanceMeasure, this::scannerName);
+    }
+    return runner;
+  }
+
+  /**
+   * Checks are not executed again on files which did not change since the previous analysis, see {@link IncrementalAnalysis}.
+   * Must be called once the java version is set.
+   */
+  public void enableIncrementalAnalysis(File storeFile) {
+    Preconditions.checkNotNull(sonarComponents);
+    String configuration = javaVersion + "|" + symbolicExecutionMode;
+    this.incrementalAnalysis = new IncrementalAnalysis(storeFile, configuration, sonarComponents, classLoader);
+    this.unchangedFilesScannerRunner = createScannerRunner(executableScanners(allScanners, javaVersion).stream()
+      .filter(this::isExecutedOnUnchangedFiles)
+      .collect(Collectors.toList()));
+  }
+
+  /**
+   * Time spent on each file by each phase of the analysis and by each scanner is added to the given measure.
+   */
+  public void enablePerformanceMeasure(PerformanceMeasure performanceMeasure) {
+    this.performanceMeasure = performanceMeasure;
+    scannerRunner.enablePerformanceMeasure(performanceMeasure, this::scannerName);
+    if (unchangedFilesScannerRunner != null) {
+      unchangedFilesScannerRunner.enablePerformanceMeasure(performanceMeasure, this::scannerName);
+    }
+  }
+
+  /**
+   * The tree and the semantic model of each file are released once its scanners ran, see {@link SonarComponents#RELEASE_ANALYZED_FILES_KEY}.
+   */
+  public void enableReleaseOfAnalyzedFiles() {
+    this.releaseAnalyzedFiles = true;
+  }
+
+  @CheckForNull
+  public PerformanceMeasure performanceMeasure() {
+    return performanceMeasure;
   }
 
   public void visitFile(@Nullable Tree parsedTree) {
@@ -117,8 +226,9 @@ public class VisitorsBridge {
     if (fileParsed && parsedTree.is(Tree.Kind.COMPILATION_UNIT)) {
       tree = (CompilationUnitTree) parsedTree;
       if (isNotJavaLangOrSerializable(PackageUtils.packageName(tree.packageDeclaration(), "/"))) {
+        long semanticStart = System.nanoTime();
         try {
-          semanticModel = SemanticModel.createFor(tree, classLoader);
+          semanticModel = SemanticModel.createFor(tree, bytecodeClassCache);
         } catch (Exception e) {
           LOG.error("Unable to create symbol table for : " + currentFile.getAbsolutePath(), e);
           addAnalysisError(e, currentFile.getPath(), AnalysisError.Kind.SEMANTIC_ERROR);
@@ -126,21 +236,107 @@ public class VisitorsBridge {
           return;
         }
         createSonarSymbolTable(tree);
+        measure(PerformanceMeasure.Phase.SEMANTIC, semanticStart);
       } else {
         SemanticModel.handleMissingTypes(tree);
       }
     }
     JavaFileScannerContext javaFileScannerContext = createScannerContext(tree, semanticModel, sonarComponents, fileParsed);
+    try {
+      runScanners(tree, javaFileScannerContext);
+    } finally {
+      if (releaseAnalyzedFiles) {
+        release(javaFileScannerContext);
+      }
+    }
+  }
+
+  private void runScanners(CompilationUnitTree tree, JavaFileScannerContext javaFileScannerContext) {
+    // results of checks are only kept for files having a semantic
+    boolean incremental = incrementalAnalysis != null && semanticModel != null;
+    if (incremental && incrementalAnalysis.isUnchanged(currentFile)) {
+      // checks are not executed again, only scanners computing other results
+      unchangedFilesScannerRunner.prepare(javaFileScannerContext);
+      executableScanners.stream()
+        .filter(this::isExecutedOnUnchangedFiles)
+        .forEach(scanner -> runCheck(javaFileScannerContext, scanner));
+      // issues are reported again once the issue filters and the NOSONAR lines of the file are known
+      incrementalAnalysis.replay(currentFile);
+      unchangedFilesScannerRunner.run(javaFileScannerContext);
+      classesNotFound.addAll(semanticModel.classesNotFound());
+      return;
+    }
+    if (incremental) {
+      incrementalAnalysis.startRecording(currentFile);
+    }
+    scannerRunner.prepare(javaFileScannerContext);
+    Set<String> bytecodeClassesOfBehaviors = Collections.emptySet();
     // Symbolic execution checks
     if (symbolicExecutionEnabled && isNotJavaLangOrSerializable(PackageUtils.packageName(tree.packageDeclaration(), "/"))) {
-      runScanner(javaFileScannerContext, new SymbolicExecutionVisitor(executableScanners, behaviorCache), AnalysisError.Kind.SE_ERROR);
+      long symbolicExecutionStart = System.nanoTime();
+      runScanner(javaFileScannerContext, new SymbolicExecutionVisitor(executableScanners, behaviorCache, symbolicExecutionExecutor), AnalysisError.Kind.SE_ERROR);
+      bytecodeClassesOfBehaviors = new HashSet<>(behaviorCache.bytecodeClassesOfFile());
       behaviorCache.cleanup();
+      measure(PerformanceMeasure.Phase.SYMBOLIC_EXECUTION, symbolicExecutionStart);
     }
-    executableScanners.forEach(scanner -> runScanner(javaFileScannerContext, scanner, AnalysisError.Kind.CHECK_ERROR));
+    executableScanners.forEach(scanner -> runCheck(javaFileScannerContext, scanner));
     scannerRunner.run(javaFileScannerContext);
     if (semanticModel != null) {
       classesNotFound.addAll(semanticModel.classesNotFound());
     }
+    if (incremental) {
+      incrementalAnalysis.endRecording(Sets.union(semanticModel.classesLookedUp(), bytecodeClassesOfBehaviors));
+    }
+  }
+
+  /**
+   * Scanners keep their context, and the behavior cache its semantic model, until the next file: once all the scanners ran, the context,
+   * the semantic model and the behavior cache let go of the file, so that it is not retained during the analysis of the next one.
+   */
+  private void release(JavaFileScannerContext javaFileScannerContext) {
+    if (semanticModel != null) {
+      semanticModel.release();
+      semanticModel = null;
+    }
+    if (javaFileScannerContext instanceof DefaultJavaFileScannerContext) {
+      ((DefaultJavaFileScannerContext) javaFileScannerContext).release();
+    }
+    behaviorCache.setFileContext(null, null);
+  }
+
+  /**
+   * Scanners which are not rules, or rules reporting issues at the end of the analysis, compute results which are not kept by
+   * {@link IncrementalAnalysis}: they are executed on every file.
+   */
+  private boolean isExecutedOnUnchangedFiles(JavaFileScanner scanner) {
+    return scanner instanceof EndOfAnalysisCheck || sonarComponents.getRuleKey(scanner) == null;
+  }
+
+  private void measure(PerformanceMeasure.Phase phase, long startNanos) {
+    if (performanceMeasure != null) {
+      performanceMeasure.add(phase, currentFile, System.nanoTime() - startNanos);
+    }
+  }
+
+  private void runCheck(JavaFileScannerContext javaFileScannerContext, JavaFileScanner scanner) {
+    long start = System.nanoTime();
+    try {
+      runScanner(javaFileScannerContext, scanner, AnalysisError.Kind.CHECK_ERROR);
+    } finally {
+      if (performanceMeasure != null) {
+        performanceMeasure.addScanner(scannerName(scanner), currentFile, System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * @return the key of the rule of the scanner, or the name of its class for scanners which are not rules
+   */
+  private String scannerName(JavaFileScanner scanner) {
+    return scannerNames.computeIfAbsent(scanner, s -> {
+      RuleKey ruleKey = sonarComponents == null ? null : sonarComponents.getRuleKey(s);
+      return ruleKey == null ? s.getClass().getName() : ruleKey.toString();
+    });
   }
 
   private void runScanner(JavaFileScannerContext javaFileScannerContext, JavaFileScanner scanner, AnalysisError.Kind kind) {
@@ -166,6 +362,27 @@ public class VisitorsBridge {
         String.format("Unable to run check %s - %s on file %s, To help improve SonarJava, please report this problem to SonarSource : see https://www.sonarqube.org/community/",
           scanner.getClass(), key, currentFile.getPath()), e);
       addAnalysisError(e, currentFile.getPath(), kind);
+      if (incrementalAnalysis != null) {
+        incrementalAnalysis.discardRecording();
+      }
+    }
+  }
+
+  /**
+   * Subscription visitors are executed during a single visit of the tree, unless they drive the visit themselves by overriding
+   * {@link SubscriptionVisitor#scanFile(JavaFileScannerContext)}.
+   */
+  private static boolean isExecutedByScannerRunner(JavaFileScanner scanner) {
+    if (scanner instanceof IssuableSubscriptionVisitor) {
+      return true;
+    }
+    if (!(scanner instanceof SubscriptionVisitor)) {
+      return false;
+    }
+    try {
+      return scanner.getClass().getMethod("scanFile", JavaFileScannerContext.class).getDeclaringClass() == SubscriptionVisitor.class;
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
     }
   }
 
@@ -247,60 +464,217 @@ public class VisitorsBridge {
       .filter(s -> s instanceof EndOfAnalysisCheck)
       .map(EndOfAnalysisCheck.class::cast)
       .forEach(EndOfAnalysisCheck::endOfAnalysis);
+    behaviorCache.saveBytecodeBehaviors();
+    if (symbolicExecutionLimits != null) {
+      String reachedLimits = symbolicExecutionLimits.reachedLimitsDescription();
+      if (!reachedLimits.isEmpty()) {
+        LOG.info("Symbolic execution of some methods was interrupted, reached limits: {}", reachedLimits);
+      }
+    }
+    if (symbolicExecutionExecutor != null) {
+      symbolicExecutionExecutor.shutdownNow();
+    }
+    if (incrementalAnalysis != null) {
+      incrementalAnalysis.save();
+    }
     classLoader.close();
   }
 
-  private static class ScannerRunner {
-    private EnumMap<Tree.Kind, List<SubscriptionVisitor>> checks;
-    private List<SubscriptionVisitor> subscriptionVisitors;
+  /**
+   * Executes all the subscription visitors during a single visit of the tree.
+   * <p/>
+   * The visit is on the hot path of the analysis: visitors are dispatched through arrays indexed by the ordinal of the kind of the
+   * nodes, without allocation per node. When performance is measured, the time of each call of a visitor is added to the time spent
+   * by this visitor on the file.
+   */
+  @VisibleForTesting
+  static class ScannerRunner {
+    private static final SubscriptionVisitor[] NO_VISITORS = new SubscriptionVisitor[0];
+    private static final int VISIT_NODE = 0;
+    private static final int LEAVE_NODE = 1;
+    private static final int VISIT_TOKEN = 2;
+    /**
+     * When performance is measured, one visit of the tree out of this number is timed, and its time is scaled accordingly: timing every
+     * visit of every node would cost more than most visitors.
+     */
+    private static final int SAMPLING_INTERVAL = 16;
+
+    private final SubscriptionVisitor[][] visitorsByKind;
+    private final SubscriptionVisitor[] tokenVisitors;
+    private final SubscriptionVisitor[] triviaVisitors;
+    private final List<SubscriptionVisitor> subscriptionVisitors;
+    private final List<SubscriptionVisitor> issuableSubscriptionVisitors;
+    private final List<SubscriptionVisitor> otherSubscriptionVisitors;
+    /**
+     * Positions in {@link #subscriptionVisitors} of the visitors of {@link #visitorsByKind}
+     */
+    private final int[][] indexesByKind;
+    private final Map<SubscriptionVisitor, Integer> indexes = new IdentityHashMap<>();
+    @Nullable
+    private PerformanceMeasure performanceMeasure;
+    private String[] names;
+    /**
+     * Time spent by each visitor on the current file, only when performance is measured
+     */
+    @Nullable
+    private long[] elapsed;
+    private int visits = 0;
 
     ScannerRunner(List<JavaFileScanner> executableScanners) {
-      checks = new EnumMap<>(Tree.Kind.class);
       subscriptionVisitors = executableScanners.stream()
-        .filter(isIssuableSubscriptionVisitor)
+        .filter(VisitorsBridge::isExecutedByScannerRunner)
         .map(s -> (SubscriptionVisitor) s)
         .collect(Collectors.toList());
-      subscriptionVisitors.forEach(s -> s.nodesToVisit().forEach(k -> checks.computeIfAbsent(k, key -> new ArrayList<>()).add(s))
-      );
+      issuableSubscriptionVisitors = subscriptionVisitors.stream().filter(s -> s instanceof IssuableSubscriptionVisitor).collect(Collectors.toList());
+      otherSubscriptionVisitors = subscriptionVisitors.stream().filter(s -> !(s instanceof IssuableSubscriptionVisitor)).collect(Collectors.toList());
+      EnumMap<Tree.Kind, List<SubscriptionVisitor>> checks = new EnumMap<>(Tree.Kind.class);
+      subscriptionVisitors.forEach(s -> s.nodesToVisit().forEach(k -> checks.computeIfAbsent(k, key -> new ArrayList<>()).add(s)));
+      Tree.Kind[] kinds = Tree.Kind.values();
+      visitorsByKind = new SubscriptionVisitor[kinds.length][];
+      for (Tree.Kind kind : kinds) {
+        visitorsByKind[kind.ordinal()] = checks.getOrDefault(kind, Collections.emptyList()).toArray(NO_VISITORS);
+      }
+      tokenVisitors = visitorsByKind[Tree.Kind.TOKEN.ordinal()];
+      triviaVisitors = visitorsByKind[Tree.Kind.TRIVIA.ordinal()];
+      for (int i = 0; i < subscriptionVisitors.size(); i++) {
+        indexes.putIfAbsent(subscriptionVisitors.get(i), i);
+      }
+      indexesByKind = new int[kinds.length][];
+      for (int kind = 0; kind < kinds.length; kind++) {
+        indexesByKind[kind] = Arrays.stream(visitorsByKind[kind]).mapToInt(indexes::get).toArray();
+      }
     }
 
-    public void run(JavaFileScannerContext javaFileScannerContext) {
-      subscriptionVisitors.forEach(s -> s.setContext(javaFileScannerContext));
-      visit(javaFileScannerContext.getTree());
-      subscriptionVisitors.forEach(s -> s.leaveFile(javaFileScannerContext));
+    void enablePerformanceMeasure(PerformanceMeasure performanceMeasure, Function<JavaFileScanner, String> scannerName) {
+      this.performanceMeasure = performanceMeasure;
+      this.names = subscriptionVisitors.stream().map(scannerName).toArray(String[]::new);
+      this.elapsed = new long[subscriptionVisitors.size()];
     }
 
-    private void visitChildren(Tree tree) {
-      JavaTree javaTree = (JavaTree) tree;
-      if (!javaTree.isLeaf()) {
-        for (Tree next : javaTree.getChildren()) {
-          if (next != null) {
-            visit(next);
+    /**
+     * Visitors which are not checks are set up before any issue is reported on the file, as some of them provide information used to
+     * filter issues (NOSONAR lines).
+     */
+    public void prepare(JavaFileScannerContext javaFileScannerContext) {
+      if (elapsed != null) {
+        Arrays.fill(elapsed, 0L);
+      }
+      execute(otherSubscriptionVisitors, s -> s.setContext(javaFileScannerContext));
+    }
+
+    public void run(JavaFileScannerContext javaFileScannerContext) {
+      try {
+        execute(issuableSubscriptionVisitors, s -> s.setContext(javaFileScannerContext));
+        visit(javaFileScannerContext.getTree());
+        execute(subscriptionVisitors, s -> s.leaveFile(javaFileScannerContext));
+      } finally {
+        if (performanceMeasure != null) {
+          for (int i = 0; i < names.length; i++) {
+            performanceMeasure.addScanner(names[i], javaFileScannerContext.getFile(), elapsed[i]);
           }
         }
       }
     }
 
+    private void execute(List<SubscriptionVisitor> visitors, Consumer<SubscriptionVisitor> action) {
+      if (elapsed == null) {
+        visitors.forEach(action);
+        return;
+      }
+      for (SubscriptionVisitor visitor : visitors) {
+        long start = System.nanoTime();
+        action.accept(visitor);
+        elapsed[indexes.get(visitor)] += System.nanoTime() - start;
+      }
+    }
+
     private void visit(Tree tree) {
-      Consumer<SubscriptionVisitor> callback;
-      boolean isToken = tree.kind() == Tree.Kind.TOKEN;
-      if (isToken) {
-        callback = s -> {
-          SyntaxToken syntaxToken = (SyntaxToken) tree;
-          s.visitToken(syntaxToken);
-        };
+      Tree.Kind kind = tree.kind();
+      if (kind == Tree.Kind.TOKEN) {
+        visitToken((SyntaxToken) tree);
+        return;
+      }
+      int ordinal = kind.ordinal();
+      SubscriptionVisitor[] subscribed = visitorsByKind[ordinal];
+      if (isSampled(subscribed)) {
+        visitMeasured(subscribed, indexesByKind[ordinal], VISIT_NODE, tree);
       } else {
-        callback = s -> s.visitNode(tree);
+        for (SubscriptionVisitor visitor : subscribed) {
+          visitor.visitNode(tree);
+        }
       }
-      List<SubscriptionVisitor> subscribed = checks.getOrDefault(tree.kind(), Collections.emptyList());
-      subscribed.forEach(callback);
-      if (isToken) {
-        checks.getOrDefault(Tree.Kind.TRIVIA, Collections.emptyList()).forEach(s -> ((SyntaxToken) tree).trivias().forEach(s::visitTrivia));
+      visitChildren(tree);
+      if (isSampled(subscribed)) {
+        visitMeasured(subscribed, indexesByKind[ordinal], LEAVE_NODE, tree);
       } else {
-        visitChildren(tree);
+        for (SubscriptionVisitor visitor : subscribed) {
+          visitor.leaveNode(tree);
+        }
+      }
+    }
+
+    private void visitToken(SyntaxToken syntaxToken) {
+      if (isSampled(tokenVisitors)) {
+        visitMeasured(tokenVisitors, indexesByKind[Tree.Kind.TOKEN.ordinal()], VISIT_TOKEN, syntaxToken);
+      } else {
+        for (SubscriptionVisitor visitor : tokenVisitors) {
+          visitor.visitToken(syntaxToken);
+        }
+      }
+      if (triviaVisitors.length == 0) {
+        return;
+      }
+      List<SyntaxTrivia> trivias = syntaxToken.trivias();
+      boolean sampled = isSampled(triviaVisitors);
+      int[] triviaIndexes = indexesByKind[Tree.Kind.TRIVIA.ordinal()];
+      long start = sampled ? System.nanoTime() : 0L;
+      for (int v = 0; v < triviaVisitors.length; v++) {
+        SubscriptionVisitor visitor = triviaVisitors[v];
+        for (int i = 0; i < trivias.size(); i++) {
+          visitor.visitTrivia(trivias.get(i));
+        }
+        if (sampled) {
+          long end = System.nanoTime();
+          elapsed[triviaIndexes[v]] += (end - start) * SAMPLING_INTERVAL;
+          start = end;
+        }
       }
-      if(!isToken) {
-        subscribed.forEach(s -> s.leaveNode(tree));
+    }
+
+    private boolean isSampled(SubscriptionVisitor[] visitors) {
+      return elapsed != null && visitors.length > 0 && ++visits % SAMPLING_INTERVAL == 0;
+    }
+
+    /**
+     * The end of the visit of a visitor is the start of the next one, so that each visitor costs a single read of the clock.
+     */
+    private void visitMeasured(SubscriptionVisitor[] visitors, int[] visitorIndexes, int event, Tree tree) {
+      long start = System.nanoTime();
+      for (int i = 0; i < visitors.length; i++) {
+        SubscriptionVisitor visitor = visitors[i];
+        switch (event) {
+          case VISIT_NODE:
+            visitor.visitNode(tree);
+            break;
+          case LEAVE_NODE:
+            visitor.leaveNode(tree);
+            break;
+          default:
+            visitor.visitToken((SyntaxToken) tree);
+            break;
+        }
+        long end = System.nanoTime();
+        elapsed[visitorIndexes[i]] += (end - start) * SAMPLING_INTERVAL;
+        start = end;
+      }
+    }
+
+    private void visitChildren(Tree tree) {
+      JavaTree javaTree = (JavaTree) tree;
+      if (!javaTree.isLeaf()) {
+        for (int i = 0; i < javaTree.childrenCount(); i++) {
+          visit(javaTree.child(i));
+        }
       }
     }
   }
@@ -0,0 +1,147 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+
+import static org.sonar.java.resolve.BytecodeCompleter.ASM_API_VERSION;
+
+/**
+ * Structure of the classes of a classpath (everything but method bodies), as read from bytecode.
+ * One instance is shared by the semantic models of all the files analyzed with the same classpath, so that a library class
+ * is loaded and parsed only once for the whole analysis, instead of once per file referencing it.
+ * <p/>
+ * Symbols are still created per file by replaying the cached structure, because symbols of a file are mutated while
+ * resolving its source (usages, completion of source types). Cached {@link ClassNode}s are never modified once read.
+ */
+public class BytecodeClassCache {
+
+  private static final int DEFAULT_MAX_SIZE = 10_000;
+
+  private final SquidClassLoader classLoader;
+  /**
+   * Guarded by itself. The lock is only held to look up, insert and evict classes: reading and parsing bytecode is done outside of it.
+   */
+  private final Map<String, Optional<ClassNode>> classes;
+  /**
+   * Classes being read, so that threads requesting the same class at the same time wait for a single read.
+   */
+  private final Map<String, CompletableFuture<Optional<ClassNode>>> readings = new ConcurrentHashMap<>();
+
+  public BytecodeClassCache(SquidClassLoader classLoader) {
+    this(classLoader, DEFAULT_MAX_SIZE);
+  }
+
+  @VisibleForTesting
+  BytecodeClassCache(SquidClassLoader classLoader, int maxSize) {
+    this.classLoader = classLoader;
+    this.classes = new LinkedHashMap<String, Optional<ClassNode>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Optional<ClassNode>> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  public SquidClassLoader classLoader() {
+    return classLoader;
+  }
+
+  /**
+   * @param className canonical name of the class (e.g. org.acme.Foo)
+   * @return structure of the class, without code nor debug information, or null if the class can not be found in the classpath
+   */
+  @CheckForNull
+  public ClassNode classNode(String className) {
+    Optional<ClassNode> cached;
+    synchronized (classes) {
+      cached = classes.get(className);
+    }
+    if (cached != null) {
+      return cached.orElse(null);
+    }
+    CompletableFuture<Optional<ClassNode>> reading = new CompletableFuture<>();
+    CompletableFuture<Optional<ClassNode>> concurrentReading = readings.putIfAbsent(className, reading);
+    if (concurrentReading != null) {
+      return waitFor(concurrentReading).orElse(null);
+    }
+    try {
+      Optional<ClassNode> read = publish(className, readClass(className));
+      reading.complete(read);
+      return read.orElse(null);
+    } catch (RuntimeException e) {
+      reading.completeExceptionally(e);
+      throw e;
+    } finally {
+      readings.remove(className);
+    }
+  }
+
+  /**
+   * @return the structure of the class cached by another thread in the meantime if any, the given one otherwise
+   */
+  private Optional<ClassNode> publish(String className, Optional<ClassNode> read) {
+    synchronized (classes) {
+      Optional<ClassNode> published = classes.get(className);
+      if (published != null) {
+        return published;
+      }
+      classes.put(className, read);
+      return read;
+    }
+  }
+
+  private static Optional<ClassNode> waitFor(CompletableFuture<Optional<ClassNode>> reading) {
+    try {
+      return reading.join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  private Optional<ClassNode> readClass(String className) {
+    byte[] bytes = classLoader.getBytesForClass(className);
+    if (bytes == null) {
+      return Optional.empty();
+    }
+    ClassNode classNode = new ClassNode(ASM_API_VERSION);
+    new ClassReader(bytes).accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+    return Optional.of(classNode);
+  }
+
+  @VisibleForTesting
+  int size() {
+    synchronized (classes) {
+      return classes.size();
+    }
+  }
+}
@@ -25,16 +25,16 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closeables;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
 import org.sonar.java.bytecode.loader.SquidClassLoader;
 import org.sonar.plugins.java.api.semantic.Symbol;
 
@@ -45,17 +45,26 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
   private Symbols symbols;
   private final ParametrizedTypeCache parametrizedTypeCache;
   private final SquidClassLoader classLoader;
+  private final BytecodeClassCache classCache;
   /**
    * Indexed by flat name.
    */
   private final Map<String, JavaSymbol.TypeJavaSymbol> classes = new HashMap<>();
   private final Map<String, JavaSymbol.PackageJavaSymbol> packages = new HashMap<>();
-  private final Map<JavaSymbol.TypeJavaSymbol, Map<String, Object>> constantValues = new HashMap<>();
 
   private Set<String> classesNotFound = new TreeSet<>();
+  /**
+   * Flat names of the classes looked up in bytecode, whether they have been found or not.
+   */
+  private final Set<String> classesLookedUp = new HashSet<>();
 
   public BytecodeCompleter(SquidClassLoader classLoader, ParametrizedTypeCache parametrizedTypeCache) {
-    this.classLoader = classLoader;
+    this(new BytecodeClassCache(classLoader), parametrizedTypeCache);
+  }
+
+  public BytecodeCompleter(BytecodeClassCache classCache, ParametrizedTypeCache parametrizedTypeCache) {
+    this.classLoader = classCache.classLoader();
+    this.classCache = classCache;
     this.parametrizedTypeCache = parametrizedTypeCache;
   }
 
@@ -65,11 +74,22 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
 
   public JavaSymbol.TypeJavaSymbol registerClass(JavaSymbol.TypeJavaSymbol classSymbol) {
     String flatName = formFullName(classSymbol);
-    Preconditions.checkState(!classes.containsKey(flatName), "Registering class 2 times : %s", flatName);
-    classes.put(flatName, classSymbol);
+    synchronized (this) {
+      Preconditions.checkState(!classes.containsKey(flatName), "Registering class 2 times : %s", flatName);
+      classes.put(flatName, classSymbol);
+    }
     return classSymbol;
   }
 
+  /**
+   * Symbols of bytecode and of source of a semantic model are completed under the lock of its bytecode completer, which also guards the
+   * classes and packages it creates.
+   */
+  @Override
+  public Object completionLock() {
+    return this;
+  }
+
   @Override
   public void complete(JavaSymbol symbol) {
     String bytecodeName = formFullName(symbol);
@@ -82,12 +102,9 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
     }
     Preconditions.checkState(symbol.isPackageSymbol() || classSymbol == symbol);
 
-    byte[] bytes = classLoader.getBytesForClass(bytecodeName);
-    if (bytes != null) {
-      ClassReader classReader = new ClassReader(bytes);
-      classReader.accept(
-        new BytecodeVisitor(this, symbols, classSymbol, parametrizedTypeCache),
-        ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+    ClassNode classNode = classCache.classNode(bytecodeName);
+    if (classNode != null) {
+      classNode.accept(new BytecodeVisitor(this, symbols, classSymbol, parametrizedTypeCache));
     }
   }
 
@@ -96,27 +113,15 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
    */
   @CheckForNull
   public Object constantValue(Symbol owner, String constantName) {
-    if (constantValues.containsKey(owner)) {
-      return constantValues.get(owner).get(constantName);
-    }
     if (owner.isTypeSymbol()) {
-      JavaSymbol.TypeJavaSymbol typeSymbol = (JavaSymbol.TypeJavaSymbol) owner;
-      String bytecodeName = typeSymbol.getFullyQualifiedName();
-      byte[] bytes = classLoader.getBytesForClass(bytecodeName);
-      if (bytes != null) {
-        Map<String, Object> valuesByFieldName = new HashMap<>();
-        ClassReader classReader = new ClassReader(bytes);
-        classReader.accept(
-          new ClassVisitor(ASM_API_VERSION) {
-            @Override
-            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
-              valuesByFieldName.put(name, value);
-              return super.visitField(access, name, descriptor, signature, value);
-            }
-          },
-          ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
-        constantValues.put(typeSymbol, valuesByFieldName);
-        return valuesByFieldName.get(constantName);
+      ClassNode classNode = classCache.classNode(((JavaSymbol.TypeJavaSymbol) owner).getFullyQualifiedName());
+      if (classNode != null) {
+        return classNode.fields.stream()
+          .filter(field -> field.name.equals(constantName))
+          .map(field -> field.value)
+          .filter(Objects::nonNull)
+          .findFirst()
+          .orElse(null);
       }
     }
     return null;
@@ -160,9 +165,16 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
     return getClassSymbol(null, bytecodeName, flags);
   }
   public JavaSymbol.TypeJavaSymbol getClassSymbol(@Nullable JavaSymbol.TypeJavaSymbol classSymbolOwner, String bytecodeName, int flags) {
+    synchronized (this) {
+      return getOrCreateClassSymbol(classSymbolOwner, bytecodeName, flags);
+    }
+  }
+
+  private JavaSymbol.TypeJavaSymbol getOrCreateClassSymbol(@Nullable JavaSymbol.TypeJavaSymbol classSymbolOwner, String bytecodeName, int flags) {
     String flatName = Convert.flatName(bytecodeName);
     JavaSymbol.TypeJavaSymbol symbol = classes.get(flatName);
     if (symbol == null) {
+      classesLookedUp.add(flatName);
       String shortName = Convert.shortName(flatName);
       String packageName = Convert.packagePart(flatName);
       JavaSymbol.TypeJavaSymbol owner = classSymbolOwner;
@@ -231,19 +243,24 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
    */
   // TODO(Godin): Method name is misleading because of lazy loading.
   public JavaSymbol loadClass(String fullname) {
+    synchronized (this) {
+      return findClass(fullname);
+    }
+  }
+
+  private JavaSymbol findClass(String fullname) {
     JavaSymbol.TypeJavaSymbol symbol = classes.get(fullname);
     if (symbol != null) {
       return symbol;
     }
 
-    byte[] bytesForClass = classLoader.getBytesForClass(fullname);
-    if (bytesForClass == null) {
+    classesLookedUp.add(fullname);
+    ClassNode classNode = classCache.classNode(fullname);
+    if (classNode == null) {
       return new Resolve.JavaSymbolNotFound();
     }
 
-    ClassReader classReader = new ClassReader(bytesForClass);
-    String className = classReader.getClassName();
-    if (!className.equals(Convert.bytecodeName(fullname))) {
+    if (!classNode.name.equals(Convert.bytecodeName(fullname))) {
       return new Resolve.JavaSymbolNotFound();
     }
     return getClassSymbol(fullname);
@@ -253,14 +270,23 @@ public class BytecodeCompleter implements JavaSymbol.Completer {
     if (StringUtils.isBlank(fullname)) {
       return symbols.defaultPackage;
     }
-    return packages.computeIfAbsent(fullname, name -> {
-      JavaSymbol.PackageJavaSymbol pck  = new JavaSymbol.PackageJavaSymbol(fullname, symbols.defaultPackage);
-      pck.completer = this;
-      return pck;
-    });
+    synchronized (this) {
+      return packages.computeIfAbsent(fullname, name -> {
+        JavaSymbol.PackageJavaSymbol pck  = new JavaSymbol.PackageJavaSymbol(fullname, symbols.defaultPackage);
+        pck.completer = this;
+        return pck;
+      });
+    }
   }
 
   public Set<String> classesNotFound() {
     return classesNotFound;
   }
+
+  /**
+   * @return flat names of the classes looked up in bytecode, the result of the resolution depends on their presence and content
+   */
+  public Set<String> classesLookedUp() {
+    return classesLookedUp;
+  }
 }
@@ -65,13 +65,21 @@ public class JavaSymbol implements Symbol {
 
   JavaSymbol owner;
 
-  Completer completer;
+  volatile Completer completer;
 
   JavaType type;
 
   boolean completing = false;
+  /**
+   * Set from the moment the completer is cleared until the symbol is complete, so that other threads wait for the completion.
+   */
+  private volatile boolean completionInProgress = false;
   private ImmutableList.Builder<IdentifierTree> usagesBuilder;
-  private List<IdentifierTree> usages;
+  /**
+   * Lazily computed caches of symbols are volatile: symbols are read by the threads exploring methods with symbolic execution, and a
+   * cache may be computed by any of them.
+   */
+  private volatile List<IdentifierTree> usages;
   private List<Runnable> callbacks = new ArrayList<>();
 
   public JavaSymbol(int kind, int flags, @Nullable String name, @Nullable JavaSymbol owner) {
@@ -106,13 +114,35 @@ public class JavaSymbol implements Symbol {
   }
 
   public void complete() {
-    if (completer != null) {
-      Completer c = completer;
-      completer = null;
-      completing = true;
-      c.complete(this);
-      completing = false;
-      callbacks.forEach(Runnable::run);
+    Completer c = completer;
+    if (c == null) {
+      if (completionInProgress) {
+        synchronized (this) {
+          // waits for the completion by another thread, or returns at once when invoked again during the completion
+        }
+      }
+      return;
+    }
+    // symbols of a semantic model are completed one at a time, as completion reads the classpath and mutates other symbols
+    synchronized (c.completionLock()) {
+      synchronized (this) {
+        if (completer == null) {
+          return;
+        }
+        completionInProgress = true;
+        completer = null;
+        try {
+          completing = true;
+          try {
+            c.complete(this);
+          } finally {
+            completing = false;
+          }
+          callbacks.forEach(Runnable::run);
+        } finally {
+          completionInProgress = false;
+        }
+      }
     }
   }
 
@@ -288,6 +318,11 @@ public class JavaSymbol implements Symbol {
 
   interface Completer {
     void complete(JavaSymbol symbol);
+
+    /**
+     * @return the lock guarding the completion of all the symbols of the semantic model
+     */
+    Object completionLock();
   }
 
   /**
@@ -320,15 +355,15 @@ public class JavaSymbol implements Symbol {
   public static class TypeJavaSymbol extends JavaSymbol implements TypeSymbol {
 
     private String bytecodeName = null;
-    private String fullyQualifiedName;
+    private volatile String fullyQualifiedName;
     Scope members;
     Scope typeParameters;
     List<TypeVariableJavaType> typeVariableTypes;
     ClassTree declaration;
     private final String internalName;
     private final Multiset<String> internalNames = HashMultiset.create();
-    private Set<ClassJavaType> superTypes;
-    private Set<ClassJavaType> interfaces;
+    private volatile Set<ClassJavaType> superTypes;
+    private volatile Set<ClassJavaType> interfaces;
 
     public TypeJavaSymbol(int flags, String name, JavaSymbol owner) {
       super(TYP, flags, name, owner);
@@ -549,8 +584,8 @@ public class JavaSymbol implements Symbol {
     List<TypeVariableJavaType> typeVariableTypes;
     MethodTree declaration;
     Object defaultValue;
-    String desc;
-    String signature;
+    volatile String desc;
+    volatile String signature;
 
     public MethodJavaSymbol(int flags, String name, JavaType type, JavaSymbol owner) {
       super(MTH, flags, name, owner);
@@ -567,11 +602,8 @@ public class JavaSymbol implements Symbol {
     @Override
     public String signature() {
       if (signature == null) {
-        signature = "";
-        if (owner != null) {
-          signature += owner.getType().fullyQualifiedName();
-        }
-        signature += "#" + name + desc();
+        String ownerName = owner == null ? "" : owner.getType().fullyQualifiedName();
+        signature = ownerName + "#" + name + desc();
       }
       return signature;
     }
@@ -33,7 +33,7 @@ public class ParametrizedTypeCache {
   private Map<JavaType, Map<WildCardType.BoundType, WildCardType>> wildcardCache = Maps.newHashMap();
   private TypeSubstitutionSolver typeSubstitutionSolver;
 
-  public JavaType getParametrizedTypeType(JavaSymbol.TypeJavaSymbol symbol, TypeSubstitution typeSubstitution) {
+  public synchronized JavaType getParametrizedTypeType(JavaSymbol.TypeJavaSymbol symbol, TypeSubstitution typeSubstitution) {
     if (symbol.getType().isUnknown()) {
       return symbol.getType();
     }
@@ -59,7 +59,7 @@ public class ParametrizedTypeCache {
     return result;
   }
 
-  public JavaType getWildcardType(JavaType bound, BoundType boundType) {
+  public synchronized JavaType getWildcardType(JavaType bound, BoundType boundType) {
     Map<WildCardType.BoundType, WildCardType> map = wildcardCache.computeIfAbsent(bound, b -> new EnumMap<>(WildCardType.BoundType.class));
     return map.computeIfAbsent(boundType, bt -> new WildCardType(bound, bt));
   }
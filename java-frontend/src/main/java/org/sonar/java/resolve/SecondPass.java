@@ -55,6 +55,11 @@ public class SecondPass implements JavaSymbol.Completer {
     this.typeAndReferenceSolver = typeAndReferenceSolver;
   }
 
+  @Override
+  public Object completionLock() {
+    return semanticModel.completionLock();
+  }
+
   @Override
   public void complete(JavaSymbol symbol) {
     if (symbol.kind == JavaSymbol.TYP) {
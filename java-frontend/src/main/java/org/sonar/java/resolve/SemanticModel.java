@@ -55,8 +55,15 @@ public class SemanticModel {
   }
 
   public static SemanticModel createFor(CompilationUnitTree tree, SquidClassLoader classLoader) {
+    return createFor(tree, new BytecodeClassCache(classLoader));
+  }
+
+  /**
+   * @param classCache structure of the classes of the classpath, which can be shared between the semantic models of several files
+   */
+  public static SemanticModel createFor(CompilationUnitTree tree, BytecodeClassCache classCache) {
     ParametrizedTypeCache parametrizedTypeCache = new ParametrizedTypeCache();
-    BytecodeCompleter bytecodeCompleter = new BytecodeCompleter(classLoader, parametrizedTypeCache);
+    BytecodeCompleter bytecodeCompleter = new BytecodeCompleter(classCache, parametrizedTypeCache);
     Symbols symbols = new Symbols(bytecodeCompleter);
     SemanticModel semanticModel = new SemanticModel(bytecodeCompleter);
     try {
@@ -91,12 +98,10 @@ public class SemanticModel {
           ((AbstractTypedTree) parent).completeMissingType();
         }
         if (!parent.isLeaf()) {
-          for (Tree nextTree : parent.getChildren()) {
-            JavaTree next = (JavaTree) nextTree;
-            if (next != null) {
-              next.setParent(parent);
-              parentList.push(next);
-            }
+          for (int i = 0; i < parent.childrenCount(); i++) {
+            JavaTree next = (JavaTree) parent.child(i);
+            next.setParent(parent);
+            parentList.push(next);
           }
         }
       }
@@ -152,10 +157,35 @@ public class SemanticModel {
     return Collections.unmodifiableMap(symbolsTree);
   }
 
+  /**
+   * Clears the associations of the trees of the file, which are no longer queried once all its scanners ran: scanners keeping the model
+   * until the next file do not retain them.
+   */
+  public void release() {
+    symbolsTree.clear();
+    symbolEnvs.clear();
+    envs.clear();
+  }
+
+  /**
+   * Guards the lazy completion of the symbols of the model and the reading of bytecode, which can be triggered by symbolic execution of
+   * several methods of the file on different threads. The model is otherwise read-only once created.
+   */
+  Object completionLock() {
+    return bytecodeCompleter.completionLock();
+  }
+
   public Set<String> classesNotFound() {
     return bytecodeCompleter.classesNotFound();
   }
 
+  /**
+   * @return flat names of the classes looked up in bytecode to resolve the file
+   */
+  public Set<String> classesLookedUp() {
+    return bytecodeCompleter.classesLookedUp();
+  }
+
   @CheckForNull
   public Object constantValue(Symbol owner, String constantName) {
     return bytecodeCompleter.constantValue(owner, constantName);
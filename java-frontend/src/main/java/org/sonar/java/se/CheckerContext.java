@@ -24,6 +24,8 @@ import org.sonar.java.se.constraint.ConstraintManager;
 import org.sonar.java.se.symbolicvalues.SymbolicValue;
 import org.sonar.plugins.java.api.tree.Tree;
 
+import javax.annotation.CheckForNull;
+
 import java.util.Set;
 
 public interface CheckerContext {
@@ -45,4 +47,16 @@ public interface CheckerContext {
   ConstraintManager getConstraintManager();
 
   AlwaysTrueOrFalseExpressionCollector alwaysTrueOrFalseExpressions();
+
+  /**
+   * @return the state kept by the given check for the exploration of the current method, null if none was set
+   */
+  @CheckForNull
+  <T> T methodState(SECheck check);
+
+  /**
+   * Keeps a state of the given check for the exploration of the current method only: it is dropped with the exploration, whether it
+   * completes or not. Explorations of other methods, concurrent or nested, have their own states.
+   */
+  void setMethodState(SECheck check, Object state);
 }
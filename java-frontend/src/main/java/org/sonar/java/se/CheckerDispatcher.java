@@ -20,7 +20,9 @@
 package org.sonar.java.se;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -40,6 +42,7 @@ public class CheckerDispatcher implements CheckerContext {
   private int currentCheckerIndex = -1;
   private boolean transition = false;
   private Exception interruptionCause = null;
+  private final Map<SECheck, Object> methodStates = new HashMap<>();
   Tree syntaxNode;
   // used by walker to store chosen yield when adding a transition from MIT
   @Nullable
@@ -143,11 +146,24 @@ public class CheckerDispatcher implements CheckerContext {
   }
 
   public void init(MethodTree methodTree, CFG cfg) {
+    methodStates.clear();
     for (SECheck checker : checks) {
-      checker.init(methodTree, cfg);
+      checker.init(this, methodTree, cfg);
     }
   }
 
+  @CheckForNull
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T methodState(SECheck check) {
+    return (T) methodStates.get(check);
+  }
+
+  @Override
+  public void setMethodState(SECheck check, Object state) {
+    methodStates.put(check, state);
+  }
+
   @Override
   public ConstraintManager getConstraintManager() {
     return explodedGraphWalker.constraintManager;
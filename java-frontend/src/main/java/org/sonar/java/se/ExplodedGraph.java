@@ -19,7 +19,9 @@
  */
 package org.sonar.java.se;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -29,17 +31,37 @@ import org.sonar.plugins.java.api.tree.Tree;
 
 import javax.annotation.Nullable;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class ExplodedGraph {
 
   private final Map<Node, Node> nodes = Maps.newHashMap();
   private final Multimap<ProgramPoint, Node> nodesByProgramPoint = LinkedListMultimap.create();
+  /**
+   * Maps of the states of the nodes, see {@link ProgramState#withInternedMaps}: only states added to the graph are interned, as
+   * interning costs a lookup in this table.
+   */
+  private final Map<Object, Object> internedMaps = new HashMap<>();
+  private final SymbolicExecutionLimits limits;
+
+  @VisibleForTesting
+  public ExplodedGraph() {
+    this(SymbolicExecutionLimits.defaultLimits());
+  }
+
+  public ExplodedGraph(SymbolicExecutionLimits limits) {
+    this.limits = limits;
+  }
 
   /**
    * Returns node associated with given (programPoint,programState) pair. If no node for this pair exists, it is created.
@@ -51,23 +73,60 @@ public class ExplodedGraph {
       cached.isNew = false;
       return cached;
     }
+    if (programState != null) {
+      result = new Node(programPoint, ProgramState.withInternedMaps(programState, internedMaps), this);
+    }
     result.isNew = true;
     nodes.put(result, result);
     nodesByProgramPoint.put(programPoint, result);
     return result;
   }
 
+  boolean contains(ProgramPoint programPoint, ProgramState programState) {
+    return nodes.containsKey(new Node(programPoint, programState, this));
+  }
+
   public Map<Node, Node> nodes() {
     return nodes;
   }
 
+  /**
+   * Releases what is no longer used once the exploration of the method is over and checks are done with the graph. Only the given nodes
+   * and their ancestors, which flows go through, are kept with their edges. Their siblings are kept as well, as their states are
+   * compared when computing flows (see {@link Node#siblings()}), but without their edges. Other nodes can then be garbage collected.
+   */
+  void compact(Collection<Node> roots) {
+    Set<Node> kept = new HashSet<>();
+    Deque<Node> toVisit = new ArrayDeque<>(roots);
+    while (!toVisit.isEmpty()) {
+      Node current = toVisit.pop();
+      if (kept.add(current)) {
+        current.compactEdges();
+        toVisit.addAll(current.parents());
+      }
+    }
+    Set<ProgramPoint> keptProgramPoints = kept.stream().map(n -> n.programPoint).collect(Collectors.toSet());
+    nodesByProgramPoint.keySet().retainAll(keptProgramPoints);
+    nodesByProgramPoint.values().forEach(sibling -> {
+      if (!kept.contains(sibling)) {
+        sibling.edges = Collections.emptyMap();
+      }
+    });
+    nodes.clear();
+    internedMaps.clear();
+  }
+
   public static final class Node {
 
     public final ProgramPoint programPoint;
     @Nullable
     public final ProgramState programState;
 
-    private final Map<Node, Edge> edges = new HashMap<>();
+    /**
+     * Singleton map for the first parent, hash map from the second one: most nodes only have one parent, and nodes built to look up an
+     * existing node never get one.
+     */
+    private Map<Node, Edge> edges = Collections.emptyMap();
 
     private boolean isNew;
     boolean exitPath = false;
@@ -86,13 +145,37 @@ public class ExplodedGraph {
       if (parent == null) {
         return;
       }
-      Edge edge = edges.computeIfAbsent(parent, p -> new Edge(this, p));
+      Edge edge = edges.get(parent);
+      if (edge == null) {
+        edge = new Edge(this, parent);
+        addEdge(parent, edge);
+      }
       if (methodYield != null) {
         Preconditions.checkState(parent.programPoint.syntaxTree().is(Tree.Kind.METHOD_INVOCATION), "Yield on edge where parent is not MIT");
         edge.yields.add(methodYield);
       }
     }
 
+    private void addEdge(Node parent, Edge edge) {
+      if (edges.isEmpty()) {
+        edges = Collections.singletonMap(parent, edge);
+        return;
+      }
+      if (edges.size() == 1) {
+        Map.Entry<Node, Edge> first = edges.entrySet().iterator().next();
+        edges = new HashMap<>();
+        edges.put(first.getKey(), first.getValue());
+      }
+      edges.put(parent, edge);
+    }
+
+    private void compactEdges() {
+      if (edges.size() > 1) {
+        // iteration order of the hash map is kept
+        edges = ImmutableMap.copyOf(edges);
+      }
+    }
+
     public Collection<Node> siblings() {
       Collection<Node> collection = explodedGraph.nodesByProgramPoint.get(programPoint);
       collection.remove(this);
@@ -111,6 +194,13 @@ public class ExplodedGraph {
       return edges.keySet();
     }
 
+    /**
+     * @return limits of the exploration which built the graph of this node, which also bound the flows computed from it
+     */
+    SymbolicExecutionLimits limits() {
+      return explodedGraph.limits;
+    }
+
     @Override
     public int hashCode() {
       return hashcode;
@@ -28,15 +28,15 @@ import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.CheckForNull;
@@ -105,11 +105,6 @@ import static org.sonar.java.se.NullableAnnotationUtils.isGloballyAnnotatedParam
 
 public class ExplodedGraphWalker {
 
-  /**
-   * Arbitrary number to limit symbolic execution.
-   */
-  private static final int MAX_STEPS = 16_000;
-  public static final int MAX_NESTED_BOOLEAN_STATES = 10_000;
   private static final Logger LOG = Loggers.get(ExplodedGraphWalker.class);
   private static final Set<String> THIS_SUPER = ImmutableSet.of("this", "super");
 
@@ -133,17 +128,20 @@ public class ExplodedGraphWalker {
   private ExplodedGraph explodedGraph;
 
   @VisibleForTesting
-  Deque<ExplodedGraph.Node> workList;
+  Queue<ExplodedGraph.Node> workList;
   ExplodedGraph.Node node;
   ProgramPoint programPosition;
   ProgramState programState;
   private LiveVariables liveVariables;
+  @Nullable
+  private LoopHeadWidening loopHeadWidening;
   @VisibleForTesting
   CheckerDispatcher checkerDispatcher;
   private CFG.Block exitBlock;
 
   private final SemanticModel semanticModel;
   private final BehaviorCache behaviorCache;
+  private final SymbolicExecutionLimits limits;
   @VisibleForTesting
   int steps;
 
@@ -181,6 +179,7 @@ public class ExplodedGraphWalker {
     this.checkerDispatcher = new CheckerDispatcher(this, checks);
     this.behaviorCache = behaviorCache;
     this.semanticModel = semanticModel;
+    this.limits = behaviorCache.limits();
   }
 
   @VisibleForTesting
@@ -195,6 +194,7 @@ public class ExplodedGraphWalker {
     this.checkerDispatcher = new CheckerDispatcher(this, seChecks);
     this.behaviorCache = behaviorCache;
     this.semanticModel = semanticModel;
+    this.limits = behaviorCache.limits();
   }
 
   public MethodBehavior visitMethod(MethodTree tree) {
@@ -216,10 +216,11 @@ public class ExplodedGraphWalker {
     exitBlock = cfg.exitBlock();
     checkerDispatcher.init(tree, cfg);
     liveVariables = LiveVariables.analyze(cfg);
-    explodedGraph = new ExplodedGraph();
+    loopHeadWidening = limits.loopHeadWidening() ? new LoopHeadWidening(cfg, liveVariables) : null;
+    explodedGraph = new ExplodedGraph(limits);
     methodTree = tree;
-    constraintManager = new ConstraintManager();
-    workList = new LinkedList<>();
+    constraintManager = new ConstraintManager(limits);
+    workList = limits.explorationStrategy().newWorkList();
     // Linked hashSet is required to guarantee order of yields to be generated
     endOfExecutionPath = new LinkedHashSet<>();
     if(DEBUG_MODE_ACTIVATED) {
@@ -227,6 +228,7 @@ public class ExplodedGraphWalker {
     }
     programState = ProgramState.EMPTY_STATE;
     steps = 0;
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.maxMethodDurationMillis());
     for (ProgramState startingState : startingStates(tree, programState)) {
       enqueue(new ProgramPoint(cfg.entryBlock()), startingState);
     }
@@ -235,8 +237,10 @@ public class ExplodedGraphWalker {
       if (steps > maxSteps()) {
         throwMaxSteps(tree);
       }
-      // LIFO:
-      setNode(workList.removeFirst());
+      if (limits.isDurationLimited() && System.nanoTime() - deadline > 0) {
+        throwMaxDuration(tree);
+      }
+      setNode(workList.remove());
       CFG.Block block = (CFG.Block) programPosition.block;
       if (block.successors().isEmpty()) {
         endOfExecutionPath.add(node);
@@ -269,7 +273,9 @@ public class ExplodedGraphWalker {
     handleEndOfExecutionPath(false);
     checkerDispatcher.executeCheckEndOfExecution();
     // Cleanup:
+    explodedGraph.compact(methodBehavior == null ? Collections.emptyList() : methodBehavior.yieldNodes());
     workList = null;
+    loopHeadWidening = null;
     node = null;
     programState = null;
     constraintManager = null;
@@ -278,6 +284,7 @@ public class ExplodedGraphWalker {
   private void throwTooManyTransitiveRelationsException(MethodTree tree, RelationalSymbolicValue.TransitiveRelationExceededException e) {
     String message = String.format("reached maximum number of transitive relations generated for method %s in class %s",
       tree.simpleName().name(), tree.symbol().owner().name());
+    limits.reached(SymbolicExecutionLimits.Limit.DEDUCED_RELATIONS);
     MaximumStepsReachedException cause = new MaximumStepsReachedException(message, e);
     interrupted(cause);
     throw cause;
@@ -285,7 +292,8 @@ public class ExplodedGraphWalker {
 
   private void throwTooManyBooleanStates(MethodTree tree, TooManyNestedBooleanStatesException e) {
     String message = String.format("reached maximum number of %d branched states for method %s in class %s",
-      MAX_NESTED_BOOLEAN_STATES, tree.simpleName().name(), tree.symbol().owner().name());
+      limits.maxNestedBooleanStates(), tree.simpleName().name(), tree.symbol().owner().name());
+    limits.reached(SymbolicExecutionLimits.Limit.NESTED_BOOLEAN_STATES);
     MaximumStepsReachedException cause = new MaximumStepsReachedException(message, e);
     interrupted(cause);
     throw cause;
@@ -294,6 +302,16 @@ public class ExplodedGraphWalker {
   private void throwMaxSteps(MethodTree tree) {
     String message = String.format("reached limit of %d steps for method %s#%d in class %s",
       maxSteps(), tree.simpleName().name(), tree.simpleName().firstToken().line(), tree.symbol().owner().name());
+    limits.reached(SymbolicExecutionLimits.Limit.STEPS);
+    MaximumStepsReachedException cause = new MaximumStepsReachedException(message);
+    interrupted(cause);
+    throw cause;
+  }
+
+  private void throwMaxDuration(MethodTree tree) {
+    String message = String.format("reached limit of %d ms for method %s#%d in class %s",
+      limits.maxMethodDurationMillis(), tree.simpleName().name(), tree.simpleName().firstToken().line(), tree.symbol().owner().name());
+    limits.reached(SymbolicExecutionLimits.Limit.DURATION);
     MaximumStepsReachedException cause = new MaximumStepsReachedException(message);
     interrupted(cause);
     throw cause;
@@ -1100,6 +1118,11 @@ public class ExplodedGraphWalker {
     }
     checkExplodedGraphTooBig(programState);
     ProgramState ps = programState.visitedPoint(programPoint, nbOfExecution + 1);
+    if (loopHeadWidening != null && !explodedGraph.contains(programPoint, ps) && loopHeadWidening.isSubsumed(programPoint, ps, exitPath)) {
+      // merged with a state already explored from the loop head
+      debugPrint(programPoint);
+      return;
+    }
     ExplodedGraph.Node cachedNode = explodedGraph.node(programPoint, ps);
     if (!cachedNode.isNew() && exitPath == cachedNode.exitPath) {
       // has been enqueued earlier
@@ -1108,7 +1131,7 @@ public class ExplodedGraphWalker {
     }
     cachedNode.exitPath = exitPath;
     cachedNode.addParent(node, methodYield);
-    workList.addFirst(cachedNode);
+    workList.add(cachedNode);
   }
 
   private static boolean isRestartingForEachLoop(ProgramPoint programPoint) {
@@ -1119,6 +1142,7 @@ public class ExplodedGraphWalker {
   private void checkExplodedGraphTooBig(ProgramState programState) {
     // Arbitrary formula to avoid out of memory errors
     if (steps + workList.size() > maxSteps() / 2 && programState.constraintsSize() > 75) {
+      limits.reached(SymbolicExecutionLimits.Limit.EXPLODED_GRAPH_SIZE);
       throw new ExplodedGraphTooBigException("Program state constraints are too big : stopping Symbolic Execution for method "
         + methodTree.simpleName().name() + " in class " + methodTree.symbol().owner().name());
     }
@@ -1126,7 +1150,7 @@ public class ExplodedGraphWalker {
 
   @VisibleForTesting
   protected int maxSteps() {
-    return MAX_STEPS;
+    return limits.maxSteps();
   }
 
   AlwaysTrueOrFalseExpressionCollector alwaysTrueOrFalseExpressionCollector() {
@@ -0,0 +1,71 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Order in which the nodes of the exploded graph are explored. It does not change the graph of a method which is fully explored, but
+ * decides which paths are explored first, and therefore which are left out when the budgets of the exploration are exhausted.
+ */
+public enum ExplorationStrategy {
+
+  /**
+   * Last enqueued node is explored first: a path is followed until its end before exploring the alternatives.
+   */
+  DEPTH_FIRST {
+    @Override
+    Queue<ExplodedGraph.Node> newWorkList() {
+      return Collections.asLifoQueue(new ArrayDeque<>());
+    }
+  },
+
+  /**
+   * First enqueued node is explored first: all paths progress at the same pace.
+   */
+  BREADTH_FIRST {
+    @Override
+    Queue<ExplodedGraph.Node> newWorkList() {
+      return new ArrayDeque<>();
+    }
+  },
+
+  /**
+   * Node whose program point comes first in the CFG is explored first: paths reaching a loop all go through its iterations before
+   * any of them leaves the loop. Blocks of a CFG are built from its end, so the earlier a block is in the method, the higher its id.
+   */
+  PROGRAM_ORDER {
+    private final Comparator<ExplodedGraph.Node> programOrder = Comparator
+      .<ExplodedGraph.Node>comparingInt(node -> -node.programPoint.block.id())
+      .thenComparingInt(node -> node.programPoint.i);
+
+    @Override
+    Queue<ExplodedGraph.Node> newWorkList() {
+      return new PriorityQueue<>(programOrder);
+    }
+  };
+
+  abstract Queue<ExplodedGraph.Node> newWorkList();
+
+}
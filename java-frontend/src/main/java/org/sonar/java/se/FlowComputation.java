@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -76,7 +77,6 @@ public class FlowComputation {
   private static final String IMPLIES_CAN_BE_MSG = "Implies '%s' can be %s.";
   private static final String IMPLIES_SAME_VALUE = "Implies '%s' has the same value as '%s'.";
 
-  private static final int MAX_FLOW_STEPS = 3_000_000;
   private static final Logger LOG = Loggers.get(ExplodedGraphWalker.class);
   private final Predicate<Constraint> addToFlow;
   private final Predicate<Constraint> terminateTraversal;
@@ -161,6 +161,9 @@ public class FlowComputation {
     SameConstraints sameConstraints = new SameConstraints(node, trackedSymbols, domains);
     node.edges().stream().flatMap(e -> startPath(e, trackedSymbols, sameConstraints)).forEach(workList::push);
     int flowSteps = 0;
+    SymbolicExecutionLimits limits = node.limits();
+    // each flow computation has a time budget of its own, as long as the one of the exploration of a method
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.maxMethodDurationMillis());
     Set<ExecutionPath> visited = new HashSet<>(workList);
     while (!workList.isEmpty()) {
       ExecutionPath path = workList.pop();
@@ -177,8 +180,14 @@ public class FlowComputation {
           });
       }
       flowSteps++;
-      if(flowSteps == MAX_FLOW_STEPS) {
+      if(flowSteps == limits.maxFlowSteps()) {
         LOG.debug("Flow was not able to complete");
+        limits.reached(SymbolicExecutionLimits.Limit.FLOW_STEPS);
+        break;
+      }
+      if (limits.isDurationLimited() && System.nanoTime() - deadline > 0) {
+        LOG.debug("Flow was not able to complete in time");
+        limits.reached(SymbolicExecutionLimits.Limit.FLOW_DURATION);
         break;
       }
     }
@@ -0,0 +1,170 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.CFGLoop;
+import org.sonar.java.cfg.LiveVariables;
+import org.sonar.java.se.constraint.ConstraintsByDomain;
+import org.sonar.java.se.symbolicvalues.RelationalSymbolicValue;
+import org.sonar.java.se.symbolicvalues.SymbolicValue;
+import org.sonar.plugins.java.api.semantic.Symbol;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Widening of the states reaching the heads of the loops of a method: a state is not explored from a loop head when a state with the same
+ * projection was already explored from there.
+ *
+ * The projection of a state keeps the constraints of the values of the variables live at the loop head, and the constraints of the
+ * values which are not bound to these variables (such as resources still open). Symbolic values themselves are left out, so that states
+ * only differing by the values created during the previous iterations of the loop are merged. What is known of the variables through
+ * their values is kept nonetheless: which variables share the same value, and the relations known between values, each operand being
+ * replaced by the variables bound to it, or by its constraints when no variable is. A state knowing more of its variables than the
+ * explored ones is then explored as well.
+ */
+class LoopHeadWidening {
+
+  private final Map<CFG.IBlock<?>, Set<Symbol>> liveVariablesByLoopHead = new HashMap<>();
+  private final Map<CFG.IBlock<?>, Set<Projection>> exploredProjections = new HashMap<>();
+
+  LoopHeadWidening(CFG cfg, LiveVariables liveVariables) {
+    for (CFG.Block loopHead : CFGLoop.loopHeads(cfg)) {
+      liveVariablesByLoopHead.put(loopHead, liveVariables.getIn(loopHead));
+    }
+  }
+
+  /**
+   * @return true when the given state reaches a loop head where a state with the same projection was already explored
+   */
+  boolean isSubsumed(ProgramPoint programPoint, ProgramState programState, boolean exitPath) {
+    Set<Symbol> liveVariables = liveVariablesByLoopHead.get(programPoint.block);
+    if (programPoint.i != 0 || liveVariables == null || programState.peekValue() != null) {
+      return false;
+    }
+    Projection projection = new Projection(programState, liveVariables, exitPath);
+    return !exploredProjections.computeIfAbsent(programPoint.block, b -> new HashSet<>()).add(projection);
+  }
+
+  private static final class Projection {
+    private final Map<Symbol, ConstraintsByDomain> constraintsByVariable = new HashMap<>();
+    private final Set<ConstraintsByDomain> constraintsOfOtherValues = new HashSet<>();
+    /**
+     * Variables sharing a value, grouped together.
+     */
+    private final Set<Set<Symbol>> variablesByValue;
+    private final Set<ProjectedRelation> relations = new HashSet<>();
+    private final boolean exitPath;
+
+    private Projection(ProgramState programState, Set<Symbol> liveVariables, boolean exitPath) {
+      this.exitPath = exitPath;
+      Map<SymbolicValue, Set<Symbol>> boundValues = new HashMap<>();
+      programState.values.forEach((symbol, symbolicValue) -> {
+        if (!ProgramState.isField(symbol) && !liveVariables.contains(symbol)) {
+          return;
+        }
+        boundValues.computeIfAbsent(symbolicValue, sv -> new HashSet<>()).add(symbol);
+        ConstraintsByDomain constraints = programState.getConstraints(symbolicValue);
+        constraintsByVariable.put(symbol, constraints == null ? ConstraintsByDomain.empty() : constraints);
+      });
+      variablesByValue = new HashSet<>(boundValues.values());
+      programState.constraints.forEach((symbolicValue, constraints) -> {
+        if (!(symbolicValue instanceof RelationalSymbolicValue) && !boundValues.containsKey(symbolicValue)) {
+          constraintsOfOtherValues.add(constraints);
+        }
+      });
+      programState.knownRelations().forEach(relation -> relations.add(new ProjectedRelation(relation.kind(),
+        projectedOperand(relation.getLeftOp(), programState, boundValues), projectedOperand(relation.getRightOp(), programState, boundValues))));
+    }
+
+    private static Object projectedOperand(SymbolicValue operand, ProgramState programState, Map<SymbolicValue, Set<Symbol>> boundValues) {
+      Set<Symbol> variables = boundValues.get(operand);
+      if (variables != null) {
+        return variables;
+      }
+      if (SymbolicValue.PROTECTED_SYMBOLIC_VALUES.contains(operand)) {
+        return operand;
+      }
+      ConstraintsByDomain constraints = programState.getConstraints(operand);
+      return constraints == null ? ConstraintsByDomain.empty() : constraints;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Projection that = (Projection) o;
+      return exitPath == that.exitPath
+        && constraintsByVariable.equals(that.constraintsByVariable)
+        && constraintsOfOtherValues.equals(that.constraintsOfOtherValues)
+        && variablesByValue.equals(that.variablesByValue)
+        && relations.equals(that.relations);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(constraintsByVariable, constraintsOfOtherValues, variablesByValue, relations, exitPath);
+    }
+  }
+
+  private static final class ProjectedRelation {
+    private final RelationalSymbolicValue.Kind kind;
+    /**
+     * Operands in order, or as a set for the relations which are commutative.
+     */
+    private final Object operands;
+
+    private ProjectedRelation(RelationalSymbolicValue.Kind kind, Object leftOperand, Object rightOperand) {
+      this.kind = kind;
+      this.operands = isCommutative(kind) ? new HashSet<>(Arrays.asList(leftOperand, rightOperand)) : Arrays.asList(leftOperand, rightOperand);
+    }
+
+    private static boolean isCommutative(RelationalSymbolicValue.Kind kind) {
+      return kind == RelationalSymbolicValue.Kind.EQUAL || kind == RelationalSymbolicValue.Kind.NOT_EQUAL
+        || kind == RelationalSymbolicValue.Kind.METHOD_EQUALS || kind == RelationalSymbolicValue.Kind.NOT_METHOD_EQUALS;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ProjectedRelation that = (ProjectedRelation) o;
+      return kind == that.kind && operands.equals(that.operands);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(kind, operands);
+    }
+  }
+}
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -47,6 +48,7 @@ import org.sonar.java.se.constraint.ConstraintManager;
 import org.sonar.java.se.constraint.ConstraintsByDomain;
 import org.sonar.java.se.constraint.ObjectConstraint;
 import org.sonar.java.se.symbolicvalues.BinarySymbolicValue;
+import org.sonar.java.se.symbolicvalues.KnownRelations;
 import org.sonar.java.se.symbolicvalues.RelationalSymbolicValue;
 import org.sonar.java.se.symbolicvalues.SymbolicValue;
 import org.sonar.plugins.java.api.semantic.Symbol;
@@ -56,7 +58,11 @@ public class ProgramState {
 
   private static final Set<Class<? extends Constraint>> NON_DISPOSABLE_CONSTRAINTS = ImmutableSet.of(UnclosedResourcesCheck.ResourceConstraint.class,
     CustomUnclosedResourcesCheck.CustomResourceConstraint.class, LocksNotUnlockedCheck.LockConstraint.class, StreamConsumedCheck.StreamPipelineConstraint.class);
-  private Set<RelationalSymbolicValue> knownRelations;
+  /**
+   * Relations known to hold in this state, computed with the state and never modified afterwards, so that states can be read by several
+   * threads once published.
+   */
+  private final KnownRelations knownRelations;
 
   public static class Pop {
 
@@ -124,14 +130,15 @@ public class ProgramState {
   private final int constraintSize;
   public static final ProgramState EMPTY_STATE = new ProgramState(
     PCollections.emptyMap(),
-    PCollections.emptyMap(),
-    PCollections.<SymbolicValue, ConstraintsByDomain>emptyMap()
+    PCollections.emptyHashTrieMap(),
+    PCollections.<SymbolicValue, ConstraintsByDomain>emptyHashTrieMap()
       .put(SymbolicValue.NULL_LITERAL, ConstraintsByDomain.empty().put(ObjectConstraint.NULL))
       .put(SymbolicValue.TRUE_LITERAL, ConstraintsByDomain.empty().put(BooleanConstraint.TRUE).put(ObjectConstraint.NOT_NULL))
       .put(SymbolicValue.FALSE_LITERAL, ConstraintsByDomain.empty().put(BooleanConstraint.FALSE).put(ObjectConstraint.NOT_NULL)),
-        PCollections.emptyMap(),
+    PCollections.emptyHashTrieMap(),
     PCollections.emptyStack(),
-    null);
+    null,
+    KnownRelations.empty());
 
   private final PMap<ProgramPoint, Integer> visitedPoints;
   private final PStack<SymbolicValueSymbol> stack;
@@ -143,7 +150,7 @@ public class ProgramState {
 
   private ProgramState(PMap<Symbol, SymbolicValue> values,PMap<Integer, SymbolicValue> valuesByIndex, PMap<SymbolicValue, Integer> references,
                        PMap<SymbolicValue, ConstraintsByDomain> constraints, PMap<ProgramPoint, Integer> visitedPoints,
-                       PStack<SymbolicValueSymbol> stack, SymbolicValue exitSymbolicValue) {
+                       PStack<SymbolicValueSymbol> stack, SymbolicValue exitSymbolicValue, KnownRelations knownRelations) {
     this.values = values;
     this.valuesByIndex = valuesByIndex;
     this.references = references;
@@ -151,12 +158,13 @@ public class ProgramState {
     this.visitedPoints = visitedPoints;
     this.stack = stack;
     this.exitSymbolicValue = exitSymbolicValue;
+    this.knownRelations = knownRelations;
     constraintSize = 3;
   }
 
   private ProgramState(PMap<Symbol, SymbolicValue> values, PMap<SymbolicValue, Integer> references,
                        PMap<SymbolicValue, ConstraintsByDomain> constraints, PMap<ProgramPoint, Integer> visitedPoints,
-                       PStack<SymbolicValueSymbol> stack, SymbolicValue exitSymbolicValue) {
+                       PStack<SymbolicValueSymbol> stack, SymbolicValue exitSymbolicValue, KnownRelations knownRelations) {
     this.values = values;
     this.valuesByIndex = PCollections.emptyMap();
     this.references = references;
@@ -164,6 +172,7 @@ public class ProgramState {
     this.visitedPoints = visitedPoints;
     this.stack = stack;
     this.exitSymbolicValue = exitSymbolicValue;
+    this.knownRelations = knownRelations;
     constraintSize = 3;
   }
 
@@ -176,9 +185,10 @@ public class ProgramState {
     visitedPoints = ps.visitedPoints;
     exitSymbolicValue = ps.exitSymbolicValue;
     stack = newStack;
+    knownRelations = ps.knownRelations;
   }
 
-  private ProgramState(ProgramState ps, PMap<SymbolicValue, ConstraintsByDomain> newConstraints) {
+  private ProgramState(ProgramState ps, PMap<SymbolicValue, ConstraintsByDomain> newConstraints, KnownRelations knownRelations) {
     values = ps.values;
     valuesByIndex = ps.valuesByIndex;
     references = ps.references;
@@ -187,6 +197,40 @@ public class ProgramState {
     visitedPoints = ps.visitedPoints;
     exitSymbolicValue = ps.exitSymbolicValue;
     this.stack = ps.stack;
+    this.knownRelations = knownRelations;
+  }
+
+  private ProgramState(ProgramState ps, PMap<Symbol, SymbolicValue> values, PMap<SymbolicValue, ConstraintsByDomain> constraints) {
+    this.values = values;
+    valuesByIndex = ps.valuesByIndex;
+    references = ps.references;
+    this.constraints = constraints;
+    constraintSize = ps.constraintSize;
+    visitedPoints = ps.visitedPoints;
+    exitSymbolicValue = ps.exitSymbolicValue;
+    stack = ps.stack;
+    knownRelations = ps.knownRelations;
+  }
+
+  /**
+   * Maps of symbolic values and of constraints of the states of the exploded graph are hash-consed, see {@link ExplodedGraph#node}: states
+   * with equal maps share the same instances, so that comparing states when looking up nodes is mostly a matter of reference checks, and
+   * so that the many states of an exploration do not keep copies of the same maps.
+   *
+   * @return the state, or a copy of it with the maps of the table equal to its own ones
+   */
+  static ProgramState withInternedMaps(ProgramState state, Map<Object, Object> internedMaps) {
+    PMap<Symbol, SymbolicValue> internedValues = intern(internedMaps, state.values);
+    PMap<SymbolicValue, ConstraintsByDomain> internedConstraints = intern(internedMaps, state.constraints);
+    if (internedValues == state.values && internedConstraints == state.constraints) {
+      return state;
+    }
+    return new ProgramState(state, internedValues, internedConstraints);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> PMap<K, V> intern(Map<Object, Object> internedMaps, PMap<K, V> map) {
+    return (PMap<K, V>) internedMaps.computeIfAbsent(map, m -> m);
   }
 
   public ProgramState stackValue(SymbolicValue sv) {
@@ -257,6 +301,7 @@ public class ProgramState {
       return false;
     }
     ProgramState that = (ProgramState) o;
+    // maps being hash-consed, equal maps are usually the same instance
     return Objects.equals(values, that.values) &&
       Objects.equals(constraints, that.constraints) &&
       Objects.equals(exitSymbolicValue, that.exitSymbolicValue) &&
@@ -277,7 +322,7 @@ public class ProgramState {
   }
 
   public ProgramState addConstraintTransitively(SymbolicValue symbolicValue, Constraint constraint) {
-    List<SymbolicValue> transitiveSymbolicValues = knownRelations().stream()
+    List<SymbolicValue> transitiveSymbolicValues = knownRelations().withOperand(symbolicValue)
       .filter(rsv -> rsv.isEquality() && (rsv.getLeftOp() == symbolicValue || rsv.getRightOp() == symbolicValue))
       .map(rsv -> rsv.getLeftOp() == symbolicValue ? rsv.getRightOp() : rsv.getLeftOp())
       .collect(Collectors.toList());
@@ -288,15 +333,28 @@ public class ProgramState {
     return ps;
   }
 
-  public Set<RelationalSymbolicValue> knownRelations() {
-    if(knownRelations == null) {
-      knownRelations = Collections.unmodifiableSet(getValuesWithConstraints(BooleanConstraint.TRUE)
-        .stream()
-        .filter(RelationalSymbolicValue.class::isInstance)
-        .map(RelationalSymbolicValue.class::cast)
-        .collect(Collectors.toSet()));
+  /**
+   * @return relations known to hold in this program state, as a copy which can be modified without affecting this program state
+   */
+  public KnownRelations knownRelations() {
+    return knownRelations.copy();
+  }
+
+  /**
+   * Relations of this state still known once constraints are removed from it: removing constraints never makes a relation known.
+   */
+  private KnownRelations knownRelationsAfterRemoval(PMap<SymbolicValue, ConstraintsByDomain> newConstraints) {
+    if (newConstraints == constraints || knownRelations.isEmpty()) {
+      return knownRelations;
     }
-    return knownRelations;
+    KnownRelations relations = KnownRelations.empty();
+    knownRelations.forEach(relation -> {
+      ConstraintsByDomain constraintsByDomain = newConstraints.get(relation);
+      if (constraintsByDomain != null && constraintsByDomain.hasConstraint(BooleanConstraint.TRUE)) {
+        relations.add(relation);
+      }
+    });
+    return relations;
   }
 
   public ProgramState addConstraint(SymbolicValue symbolicValue, Constraint constraint) {
@@ -312,11 +370,33 @@ public class ProgramState {
   public ProgramState addConstraints(SymbolicValue symbolicValue, ConstraintsByDomain constraintsForSV) {
     PMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints.put(symbolicValue, constraintsForSV);
     if (newConstraints != constraints) {
-      return new ProgramState(this, newConstraints);
+      return new ProgramState(this, newConstraints, knownRelationsAfterPut(symbolicValue, newConstraints, constraintsForSV));
     }
     return this;
   }
 
+  /**
+   * Relations known once constraints of the given symbolic value are replaced, derived from the known relations of this state when no
+   * relation is removed.
+   */
+  private KnownRelations knownRelationsAfterPut(SymbolicValue symbolicValue, PMap<SymbolicValue, ConstraintsByDomain> newConstraints,
+                                                ConstraintsByDomain constraintsForSV) {
+    if (!(symbolicValue instanceof RelationalSymbolicValue)) {
+      return knownRelations;
+    }
+    RelationalSymbolicValue relation = (RelationalSymbolicValue) symbolicValue;
+    boolean wasKnown = knownRelations.contains(relation);
+    if (constraintsForSV.hasConstraint(BooleanConstraint.TRUE)) {
+      if (wasKnown) {
+        return knownRelations;
+      }
+      KnownRelations relations = knownRelations.copy();
+      relations.add(relation);
+      return relations;
+    }
+    return wasKnown ? knownRelationsAfterRemoval(newConstraints) : knownRelations;
+  }
+
   public ProgramState removeConstraintsOnDomain(SymbolicValue sv, Class<? extends Constraint> domain) {
     ConstraintsByDomain svConstraint = constraints.get(sv);
     if(svConstraint == null) {
@@ -324,7 +404,8 @@ public class ProgramState {
     }
     ConstraintsByDomain newConstraintForSv = svConstraint.remove(domain);
     if(newConstraintForSv.isEmpty()) {
-      return new ProgramState(this, constraints.remove(sv));
+      PMap<SymbolicValue, ConstraintsByDomain> newConstraints = constraints.remove(sv);
+      return new ProgramState(this, newConstraints, knownRelationsAfterRemoval(newConstraints));
     }
     return addConstraints(sv, newConstraintForSv);
   }
@@ -333,7 +414,7 @@ public class ProgramState {
   public ProgramState put(int index, SymbolicValue value) {
     SymbolicValue sv = valuesByIndex.get(index);
     if(sv == null || sv != value) {
-      return new ProgramState(values, valuesByIndex.put(index, value), references, constraints, visitedPoints, stack, exitSymbolicValue);
+      return new ProgramState(values, valuesByIndex.put(index, value), references, constraints, visitedPoints, stack, exitSymbolicValue, knownRelations);
     }
     return this;
   }
@@ -351,7 +432,7 @@ public class ProgramState {
       }
       newReferences = increaseReference(newReferences, value);
       PMap<Symbol, SymbolicValue> newValues = values.put(symbol, value);
-      return new ProgramState(newValues, newReferences, constraints, visitedPoints, stack, exitSymbolicValue);
+      return new ProgramState(newValues, newReferences, constraints, visitedPoints, stack, exitSymbolicValue, knownRelations);
     }
     return this;
   }
@@ -416,8 +497,8 @@ public class ProgramState {
     }
     CleanAction cleanAction = new CleanAction();
     values.forEach(cleanAction);
-    return cleanAction.newProgramState ? new ProgramState(cleanAction.newValues, cleanAction.newReferences, cleanAction.newConstraints, visitedPoints, stack, exitSymbolicValue
-    )
+    return cleanAction.newProgramState ? new ProgramState(cleanAction.newValues, cleanAction.newReferences, cleanAction.newConstraints, visitedPoints, stack, exitSymbolicValue,
+      knownRelationsAfterRemoval(cleanAction.newConstraints))
       : this;
   }
 
@@ -448,8 +529,8 @@ public class ProgramState {
     }
     CleanAction cleanAction = new CleanAction();
     constraints.forEach(cleanAction);
-    return cleanAction.newProgramState ? new ProgramState(values, cleanAction.newReferences, cleanAction.newConstraints, visitedPoints, stack, exitSymbolicValue
-    ) : this;
+    return cleanAction.newProgramState ? new ProgramState(values, cleanAction.newReferences, cleanAction.newConstraints, visitedPoints, stack, exitSymbolicValue,
+      knownRelationsAfterRemoval(cleanAction.newConstraints)) : this;
   }
 
   ProgramState resetFieldValues(ConstraintManager constraintManager, boolean resetOnlyStaticFields) {
@@ -480,7 +561,7 @@ public class ProgramState {
   }
 
   public ProgramState visitedPoint(ProgramPoint programPoint, int nbOfVisit) {
-    return new ProgramState(values, valuesByIndex, references, constraints, visitedPoints.put(programPoint, nbOfVisit), stack, exitSymbolicValue);
+    return new ProgramState(values, valuesByIndex, references, constraints, visitedPoints.put(programPoint, nbOfVisit), stack, exitSymbolicValue, knownRelations);
   }
 
   @Nullable
@@ -0,0 +1,140 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Budgets bounding the symbolic execution of a method, and how paths are explored within these budgets, created once for an analysis
+ * and handed to its {@link org.sonar.java.se.xproc.BehaviorCache}, from which walkers, exploded graphs and symbolic values get them.
+ * Exploration of a method is interrupted when one of them is exhausted: the number of times each limit is reached is counted, so that
+ * budgets can be tuned.
+ */
+public class SymbolicExecutionLimits {
+
+  public static final int DEFAULT_MAX_STEPS = 16_000;
+  public static final int DEFAULT_MAX_NESTED_BOOLEAN_STATES = 10_000;
+  public static final int DEFAULT_MAX_DEDUCED_RELATIONS = 100_000;
+  public static final int DEFAULT_MAX_FLOW_STEPS = 3_000_000;
+  /**
+   * Exploration of a method is not limited in time by default, so that results do not depend on the load of the machine.
+   */
+  public static final long NO_DURATION_LIMIT = 0L;
+  public static final ExplorationStrategy DEFAULT_EXPLORATION_STRATEGY = ExplorationStrategy.DEPTH_FIRST;
+
+  public enum Limit {
+    STEPS("steps"),
+    DURATION("duration"),
+    EXPLODED_GRAPH_SIZE("exploded graph size"),
+    NESTED_BOOLEAN_STATES("nested boolean states"),
+    DEDUCED_RELATIONS("deduced relations"),
+    FLOW_STEPS("flow steps"),
+    /**
+     * Each flow computation gets its own budget of {@link #maxMethodDurationMillis()}, counted apart from the one of explorations.
+     */
+    FLOW_DURATION("flow duration");
+
+    private final String description;
+
+    Limit(String description) {
+      this.description = description;
+    }
+  }
+
+  private final int maxSteps;
+  private final int maxNestedBooleanStates;
+  private final int maxDeducedRelations;
+  private final int maxFlowSteps;
+  private final long maxMethodDurationMillis;
+  private final ExplorationStrategy explorationStrategy;
+  private final boolean loopHeadWidening;
+  private final AtomicLongArray timesReached = new AtomicLongArray(Limit.values().length);
+
+  public SymbolicExecutionLimits(int maxSteps, int maxNestedBooleanStates, int maxDeducedRelations, int maxFlowSteps, long maxMethodDurationMillis,
+                                 ExplorationStrategy explorationStrategy, boolean loopHeadWidening) {
+    this.maxSteps = maxSteps;
+    this.maxNestedBooleanStates = maxNestedBooleanStates;
+    this.maxDeducedRelations = maxDeducedRelations;
+    this.maxFlowSteps = maxFlowSteps;
+    this.maxMethodDurationMillis = maxMethodDurationMillis;
+    this.explorationStrategy = explorationStrategy;
+    this.loopHeadWidening = loopHeadWidening;
+  }
+
+  public static SymbolicExecutionLimits defaultLimits() {
+    return new SymbolicExecutionLimits(DEFAULT_MAX_STEPS, DEFAULT_MAX_NESTED_BOOLEAN_STATES, DEFAULT_MAX_DEDUCED_RELATIONS, DEFAULT_MAX_FLOW_STEPS, NO_DURATION_LIMIT,
+      DEFAULT_EXPLORATION_STRATEGY, false);
+  }
+
+  public int maxSteps() {
+    return maxSteps;
+  }
+
+  public int maxNestedBooleanStates() {
+    return maxNestedBooleanStates;
+  }
+
+  public int maxDeducedRelations() {
+    return maxDeducedRelations;
+  }
+
+  public int maxFlowSteps() {
+    return maxFlowSteps;
+  }
+
+  public long maxMethodDurationMillis() {
+    return maxMethodDurationMillis;
+  }
+
+  public ExplorationStrategy explorationStrategy() {
+    return explorationStrategy;
+  }
+
+  /**
+   * @return true when states reaching a loop head are merged with the states already explored from there, see {@link LoopHeadWidening}
+   */
+  public boolean loopHeadWidening() {
+    return loopHeadWidening;
+  }
+
+  public boolean isDurationLimited() {
+    return maxMethodDurationMillis > NO_DURATION_LIMIT;
+  }
+
+  public void reached(Limit limit) {
+    timesReached.incrementAndGet(limit.ordinal());
+  }
+
+  public long timesReached(Limit limit) {
+    return timesReached.get(limit.ordinal());
+  }
+
+  /**
+   * @return limits reached during the analysis with the number of times they were reached, empty when none was reached
+   */
+  public String reachedLimitsDescription() {
+    return Arrays.stream(Limit.values())
+      .filter(limit -> timesReached(limit) > 0)
+      .map(limit -> limit.description + ": " + timesReached(limit))
+      .collect(Collectors.joining(", "));
+  }
+}
@@ -20,8 +20,14 @@
 package org.sonar.java.se;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.java.ast.visitors.SubscriptionVisitor;
@@ -36,22 +42,66 @@ import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
 
+/**
+ * Explores the methods of a file. When an executor is provided, methods which can not be overridden are explored first, in the order of
+ * the file, as their behaviors are used when exploring the other methods. Remaining methods only read completed behaviors and are then
+ * explored concurrently.
+ */
 public class SymbolicExecutionVisitor extends SubscriptionVisitor {
   private static final Logger LOG = Loggers.get(SymbolicExecutionVisitor.class);
 
   @VisibleForTesting
   public BehaviorCache behaviorCache;
   private final ExplodedGraphWalker.ExplodedGraphWalkerFactory egwFactory;
+  @Nullable
+  private final ExecutorService executor;
+  private final List<MethodTree> deferredMethods = new ArrayList<>();
 
   public SymbolicExecutionVisitor(List<JavaFileScanner> executableScanners, BehaviorCache behaviorCache) {
+    this(executableScanners, behaviorCache, null);
+  }
+
+  public SymbolicExecutionVisitor(List<JavaFileScanner> executableScanners, BehaviorCache behaviorCache, @Nullable ExecutorService executor) {
     egwFactory = new ExplodedGraphWalker.ExplodedGraphWalkerFactory(executableScanners);
     this.behaviorCache = behaviorCache;
+    this.executor = executor;
   }
 
   @Override
   public void scanFile(JavaFileScannerContext context) {
     behaviorCache.setFileContext(this, (SemanticModel) context.getSemanticModel());
+    deferredMethods.clear();
     super.scanFile(context);
+    if (!deferredMethods.isEmpty()) {
+      executeConcurrently();
+    }
+  }
+
+  private void executeConcurrently() {
+    List<Future<?>> futures = new ArrayList<>(deferredMethods.size());
+    deferredMethods.forEach(methodTree -> futures.add(executor.submit(() -> execute(methodTree))));
+    deferredMethods.clear();
+    Throwable failure = null;
+    try {
+      // every exploration is awaited, so that no thread is still reporting issues or reading the trees once the file is done
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Symbolic execution has been interrupted", e);
+    }
+    if (failure != null) {
+      Throwables.throwIfUnchecked(failure);
+      throw new IllegalStateException(failure);
+    }
   }
 
   @Override
@@ -61,7 +111,12 @@ public class SymbolicExecutionVisitor extends SubscriptionVisitor {
 
   @Override
   public void visitNode(Tree tree) {
-    execute((MethodTree) tree);
+    MethodTree methodTree = (MethodTree) tree;
+    if (executor != null && !methodCanNotBeOverriden(methodTree.symbol())) {
+      deferredMethods.add(methodTree);
+    } else {
+      execute(methodTree);
+    }
   }
 
   public void execute(MethodTree methodTree) {
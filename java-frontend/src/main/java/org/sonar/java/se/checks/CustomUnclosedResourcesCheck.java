@@ -87,11 +87,12 @@ public class CustomUnclosedResourcesCheck extends SECheck {
       + " E.G. \"org.assoc.res.MyResource#closeMe\" or \"org.assoc.res.MySpecialResource#closeMe(java.lang.String, int)\"")
   public String closingMethod = "";
 
-  private MethodMatcherCollection classConstructor;
+  // matchers are created lazily, possibly by several threads exploring methods concurrently
+  private volatile MethodMatcherCollection classConstructor;
 
-  private MethodMatcherCollection factoryList;
-  private MethodMatcherCollection openingList;
-  private MethodMatcherCollection closingList;
+  private volatile MethodMatcherCollection factoryList;
+  private volatile MethodMatcherCollection openingList;
+  private volatile MethodMatcherCollection closingList;
 
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
@@ -249,10 +250,11 @@ public class CustomUnclosedResourcesCheck extends SECheck {
 
     private MethodMatcherCollection constructorClasses() {
       if (classConstructor == null) {
-        classConstructor = MethodMatcherCollection.create();
+        MethodMatcherCollection matchers = MethodMatcherCollection.create();
         if (constructor.length() > 0) {
-          classConstructor.add(MethodMatcherFactory.constructorMatcher(constructor));
+          matchers.add(MethodMatcherFactory.constructorMatcher(constructor));
         }
+        classConstructor = matchers;
       }
       return classConstructor;
     }
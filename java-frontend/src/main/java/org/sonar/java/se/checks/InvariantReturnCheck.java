@@ -44,9 +44,7 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -82,16 +80,14 @@ public class InvariantReturnCheck extends SECheck {
     }
   }
 
-  private Deque<MethodInvariantContext> methodInvariantContexts = new LinkedList<>();
-
   @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    methodInvariantContexts.push(new MethodInvariantContext(methodTree));
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, new MethodInvariantContext(methodTree));
   }
 
   @Override
   public void scanFile(JavaFileScannerContext context) {
-    for (SEIssue seIssue : issues) {
+    for (SEIssue seIssue : sortedIssues()) {
       context.reportIssueWithFlow(this, seIssue.getTree(), seIssue.getMessage(), seIssue.getFlows(), seIssue.getFlows().iterator().next().size());
     }
     issues.clear();
@@ -102,7 +98,7 @@ public class InvariantReturnCheck extends SECheck {
     if (context.getState().exitingOnRuntimeException()) {
       return;
     }
-    MethodInvariantContext methodInvariantContext = methodInvariantContexts.peek();
+    MethodInvariantContext methodInvariantContext = context.methodState(this);
     if (!methodInvariantContext.methodToCheck) {
       return;
     }
@@ -123,17 +119,11 @@ public class InvariantReturnCheck extends SECheck {
 
   @Override
   public void checkEndOfExecution(CheckerContext context) {
-    reportIssues();
-  }
-
-  @Override
-  public void interruptedExecution(CheckerContext context) {
-    // pop but do nothing with it : can't report on incomplete execution
-    methodInvariantContexts.pop();
+    // nothing is reported on incomplete executions
+    reportIssues(context.methodState(this));
   }
 
-  private void reportIssues() {
-    MethodInvariantContext methodInvariantContext = methodInvariantContexts.pop();
+  private void reportIssues(MethodInvariantContext methodInvariantContext) {
     if (!methodInvariantContext.methodToCheck) {
       return;
     }
@@ -58,8 +58,6 @@ public class MapComputeIfAbsentOrPresentCheck extends SECheck implements JavaVer
   private static final MethodMatcher MAP_GET = mapMethod("get", TypeCriteria.anyType());
   private static final MethodMatcher MAP_PUT = mapMethod("put", TypeCriteria.anyType(), TypeCriteria.anyType());
 
-  private final Multimap<SymbolicValue, MapGetInvocation> mapGetInvocations = LinkedListMultimap.create();
-  private final List<CheckIssue> checkIssues = new ArrayList<>();
 
   @Override
   public boolean isCompatibleWithJavaVersion(JavaVersion version) {
@@ -67,9 +65,17 @@ public class MapComputeIfAbsentOrPresentCheck extends SECheck implements JavaVer
   }
 
   @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    mapGetInvocations.clear();
-    checkIssues.clear();
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, new MethodContext());
+  }
+
+  private static class MethodContext {
+    private final Multimap<SymbolicValue, MapGetInvocation> mapGetInvocations = LinkedListMultimap.create();
+    private final List<CheckIssue> checkIssues = new ArrayList<>();
+  }
+
+  private MethodContext methodContext(CheckerContext context) {
+    return context.methodState(this);
   }
 
   private static MethodMatcher mapMethod(String methodName, TypeCriteria... parameterTypes) {
@@ -88,7 +94,7 @@ public class MapComputeIfAbsentOrPresentCheck extends SECheck implements JavaVer
         SymbolicValue mapSV = psBeforeInvocation.peekValue(1);
         SymbolicValue valueSV = psAfterInvocation.peekValue();
 
-        mapGetInvocations.put(mapSV, new MapGetInvocation(valueSV, keySV, mit));
+        methodContext(context).mapGetInvocations.put(mapSV, new MapGetInvocation(valueSV, keySV, mit));
       }
     }
     return super.checkPostStatement(context, syntaxNode);
@@ -103,13 +109,14 @@ public class MapComputeIfAbsentOrPresentCheck extends SECheck implements JavaVer
 
         SymbolicValue keySV = ps.peekValue(1);
         SymbolicValue mapSV = ps.peekValue(2);
-        mapGetInvocations.get(mapSV).stream()
+        MethodContext methodContext = methodContext(context);
+        methodContext.mapGetInvocations.get(mapSV).stream()
           .filter(getOnSameMap -> getOnSameMap.withSameKey(keySV))
           .findAny()
           .ifPresent(getOnSameMap -> {
             ObjectConstraint constraint = ps.getConstraint(getOnSameMap.value, ObjectConstraint.class);
             if (constraint != null && isInsideIfStatementWithNullCheckWithoutElse(mit)) {
-              checkIssues.add(new CheckIssue(context.getNode(), getOnSameMap.mit, mit, getOnSameMap.value, constraint));
+              methodContext.checkIssues.add(new CheckIssue(context.getNode(), getOnSameMap.mit, mit, getOnSameMap.value, constraint));
             }
           });
       }
@@ -148,7 +155,8 @@ public class MapComputeIfAbsentOrPresentCheck extends SECheck implements JavaVer
   @Override
   public void checkEndOfExecution(CheckerContext context) {
     SECheck check = this;
-    checkIssues.stream().filter(checkIssue -> checkIssue.isOnlyPossibleIssueForReportTree(checkIssues)).forEach(issue -> issue.report(context, check));
+    List<CheckIssue> issuesOfMethod = methodContext(context).checkIssues;
+    issuesOfMethod.stream().filter(checkIssue -> checkIssue.isOnlyPossibleIssueForReportTree(issuesOfMethod)).forEach(issue -> issue.report(context, check));
   }
 
   private static class CheckIssue {
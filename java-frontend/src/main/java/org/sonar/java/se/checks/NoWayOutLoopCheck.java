@@ -42,9 +42,7 @@ import org.sonar.plugins.java.api.tree.UnaryExpressionTree;
 import org.sonar.plugins.java.api.tree.WhileStatementTree;
 
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -58,17 +56,18 @@ public class NoWayOutLoopCheck extends SECheck {
     INCREMENT, DECREMENT, INDETERMINATE
   }
 
-  private final Deque<MethodContext> contexts = new LinkedList<>();
-
   @Override
-  public void init(MethodTree tree, CFG cfg) {
-    MethodContext context = new MethodContext(tree, cfg);
-    contexts.push(context);
+  public void init(CheckerContext context, MethodTree tree, CFG cfg) {
+    context.setMethodState(this, new MethodContext(tree, cfg));
+  }
+
+  private MethodContext methodContext(CheckerContext context) {
+    return context.methodState(this);
   }
 
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
-    if (contexts.peek().isThreadRunMethod()) {
+    if (methodContext(context).isThreadRunMethod()) {
       // It is OK to have an endless Thread run method
       return context.getState();
     }
@@ -85,21 +84,15 @@ public class NoWayOutLoopCheck extends SECheck {
         checkLoopWithAlwaysTrueCondition(context, statementParent);
       }
     });
-    contexts.pop();
   }
 
   private void checkLoopWithAlwaysTrueCondition(CheckerContext context, Tree statementParent) {
-    CFGLoop loopBlocks = contexts.peek().getLoop(statementParent);
+    CFGLoop loopBlocks = methodContext(context).getLoop(statementParent);
     if (loopBlocks != null && loopBlocks.hasNoWayOut()) {
       context.reportIssue(statementParent, NoWayOutLoopCheck.this, "Add an end condition to this loop.");
     }
   }
 
-  @Override
-  public void interruptedExecution(CheckerContext context) {
-    contexts.pop();
-  }
-
   private class PreStatementVisitor extends CheckerTreeNodeVisitor {
 
     private final CheckerContext context;
@@ -21,8 +21,6 @@ package org.sonar.java.se.checks;
 
 import com.google.common.collect.Lists;
 import java.text.MessageFormat;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.List;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -63,21 +61,9 @@ public class NonNullSetToNullCheck extends SECheck {
     "javax.persistence.MappedSuperclass"
   };
 
-  private Deque<MethodTree> methodTrees = new ArrayDeque<>();
-
-  @Override
-  public void init(MethodTree tree, CFG cfg) {
-    methodTrees.push(tree);
-  }
-
-  @Override
-  public void checkEndOfExecution(CheckerContext context) {
-    methodTrees.pop();
-  }
-
   @Override
-  public void interruptedExecution(CheckerContext context) {
-    methodTrees.pop();
+  public void init(CheckerContext context, MethodTree tree, CFG cfg) {
+    context.setMethodState(this, tree);
   }
 
   @Override
@@ -96,7 +82,7 @@ public class NonNullSetToNullCheck extends SECheck {
 
   @Override
   public void checkEndOfExecutionPath(CheckerContext context, ConstraintManager constraintManager) {
-    MethodTree methodTree = methodTrees.peek();
+    MethodTree methodTree = context.methodState(this);
     if (methodTree.is(Tree.Kind.CONSTRUCTOR)
       && !isDefaultConstructorForJpa(methodTree)
       && !callsThisConstructor(methodTree)
@@ -45,9 +45,7 @@ import org.sonar.plugins.java.api.tree.Tree;
 
 import javax.annotation.Nullable;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -75,11 +73,13 @@ public class NullDereferenceCheck extends SECheck {
     }
   }
 
-  private Deque<Set<NullDereferenceIssue>> detectedIssues = new ArrayDeque<>();
-
   @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    detectedIssues.push(new HashSet<>());
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, new HashSet<NullDereferenceIssue>());
+  }
+
+  private Set<NullDereferenceIssue> detectedIssues(CheckerContext context) {
+    return context.methodState(this);
   }
 
   @Override
@@ -135,7 +135,7 @@ public class NullDereferenceCheck extends SECheck {
     ObjectConstraint constraint = programState.getConstraint(currentVal, ObjectConstraint.class);
     if (constraint != null && constraint.isNull()) {
       NullDereferenceIssue issue = new NullDereferenceIssue(context.getNode(), currentVal, syntaxNode);
-      detectedIssues.peek().add(issue);
+      detectedIssues(context).add(issue);
 
       // we reported the issue and stopped the exploration, but we still need to create a yield for x-procedural calls
       context.addExceptionalYield(currentVal, programState, JAVA_LANG_NPE, this);
@@ -201,7 +201,7 @@ public class NullDereferenceCheck extends SECheck {
   public ProgramState checkPostStatement(CheckerContext context, Tree syntaxNode) {
     if (syntaxNode.is(Tree.Kind.SWITCH_STATEMENT, Tree.Kind.THROW_STATEMENT) && context.getConstraintManager().isNull(context.getState(), context.getState().peekValue())) {
       NullDereferenceIssue issue = new NullDereferenceIssue(context.getNode(), context.getState().peekValue(), syntaxNode);
-      detectedIssues.peek().add(issue);
+      detectedIssues(context).add(issue);
       context.createSink();
       return context.getState();
     }
@@ -235,16 +235,15 @@ public class NullDereferenceCheck extends SECheck {
 
   @Override
   public void checkEndOfExecution(CheckerContext context) {
-    reportIssues();
+    reportIssues(context);
   }
 
   @Override
   public void interruptedExecution(CheckerContext context) {
-    reportIssues();
+    reportIssues(context);
   }
 
-  private void reportIssues() {
-    Set<NullDereferenceIssue> issues = detectedIssues.pop();
-    issues.forEach(issue -> reportIssue(issue.symbolicValue, issue.tree, issue.node));
+  private void reportIssues(CheckerContext context) {
+    detectedIssues(context).forEach(issue -> reportIssue(issue.symbolicValue, issue.tree, issue.node));
   }
 }
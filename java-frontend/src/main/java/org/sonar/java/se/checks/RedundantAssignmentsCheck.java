@@ -33,7 +33,6 @@ import org.sonar.java.se.FlowComputation;
 import org.sonar.java.se.ProgramState;
 import org.sonar.java.se.ProgramState.SymbolicValueSymbol;
 import org.sonar.java.se.symbolicvalues.SymbolicValue;
-import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.AssignmentExpressionTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
@@ -43,8 +42,6 @@ import javax.annotation.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -57,17 +54,13 @@ public class RedundantAssignmentsCheck extends SECheck {
     "java.util.stream.IntStream",
     "java.util.stream.LongStream",
     "java.util.stream.DoubleStream");
-  private final Deque<Multimap<AssignmentExpressionTree, AssignmentDataHolder>> assignmentsByMethod = new LinkedList<>();
-
   @Override
-  public void scanFile(JavaFileScannerContext context) {
-    assignmentsByMethod.clear();
-    super.scanFile(context);
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, ArrayListMultimap.<AssignmentExpressionTree, AssignmentDataHolder>create());
   }
 
-  @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    assignmentsByMethod.push(ArrayListMultimap.create());
+  private Multimap<AssignmentExpressionTree, AssignmentDataHolder> assignments(CheckerContext context) {
+    return context.methodState(this);
   }
 
   @Override
@@ -92,17 +85,12 @@ public class RedundantAssignmentsCheck extends SECheck {
     SymbolicValue oldValue = previousState.getValue(assignedSymbol);
     SymbolicValue newValue = assignedVariable.symbolicValue();
     Symbol fromSymbol = previousState.peekValueSymbol().symbol();
-    assignmentsByMethod.peek().put(assignmentExpressionTree, new AssignmentDataHolder(assignedSymbol, oldValue, newValue, fromSymbol, node));
-  }
-
-  @Override
-  public void interruptedExecution(CheckerContext context) {
-    this.assignmentsByMethod.pop();
+    assignments(context).put(assignmentExpressionTree, new AssignmentDataHolder(assignedSymbol, oldValue, newValue, fromSymbol, node));
   }
 
   @Override
   public void checkEndOfExecution(CheckerContext context) {
-    for (Map.Entry<AssignmentExpressionTree, Collection<AssignmentDataHolder>> assignmentForTree : assignmentsByMethod.pop().asMap().entrySet()) {
+    for (Map.Entry<AssignmentExpressionTree, Collection<AssignmentDataHolder>> assignmentForTree : assignments(context).asMap().entrySet()) {
       Collection<AssignmentDataHolder> allAssignments = assignmentForTree.getValue();
       if (allAssignments.stream().allMatch(AssignmentDataHolder::isRedundant)) {
         Set<Flow> flows = allAssignments.stream().map(AssignmentDataHolder::flows).flatMap(Set::stream).collect(Collectors.toSet());
@@ -20,6 +20,7 @@
 package org.sonar.java.se.checks;
 
 import org.sonar.java.cfg.CFG;
+import org.sonar.java.model.JavaTree;
 import org.sonar.java.se.CheckerContext;
 import org.sonar.java.se.Flow;
 import org.sonar.java.se.ProgramState;
@@ -27,22 +28,42 @@ import org.sonar.java.se.constraint.ConstraintManager;
 import org.sonar.plugins.java.api.JavaFileScanner;
 import org.sonar.plugins.java.api.JavaFileScannerContext;
 import org.sonar.plugins.java.api.tree.MethodTree;
+import org.sonar.plugins.java.api.tree.SyntaxToken;
 import org.sonar.plugins.java.api.tree.Tree;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Methods of a file can be explored concurrently, see {@link org.sonar.java.se.SymbolicExecutionVisitor}: state of a check related to
+ * the method being explored has to be kept in its {@link CheckerContext}. Issues are reported once all the methods of the file have been
+ * explored, in the order of their position in the file.
+ */
 public abstract class SECheck implements JavaFileScanner {
 
+  private static final Comparator<SEIssue> ISSUE_ORDER = Comparator.<SEIssue>comparingInt(seIssue -> line(seIssue.tree))
+    .thenComparingInt(seIssue -> column(seIssue.tree))
+    .thenComparing(SEIssue::getMessage);
+
   protected Set<SEIssue> issues = new HashSet<>();
 
   public void init(MethodTree methodTree, CFG cfg) {
 
   }
 
+  /**
+   * Called when the exploration of a method starts. A state of the check for this method is set with
+   * {@link CheckerContext#setMethodState(SECheck, Object)}, not kept in fields: the exploration of a method can be nested in the one of
+   * a method invoking it, and other methods can be explored concurrently.
+   */
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    init(methodTree, cfg);
+  }
+
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     return context.getState();
   }
@@ -61,17 +82,33 @@ public abstract class SECheck implements JavaFileScanner {
 
   @Override
   public void scanFile(JavaFileScannerContext context) {
-    for (SEIssue seIssue : issues) {
+    for (SEIssue seIssue : sortedIssues()) {
       context.reportIssueWithFlow(this, seIssue.getTree(), seIssue.getMessage(), seIssue.getFlows(), null);
     }
     issues.clear();
   }
 
+  /**
+   * @return issues detected on the file, in a deterministic order
+   */
+  protected synchronized List<SEIssue> sortedIssues() {
+    return issues.stream().sorted(ISSUE_ORDER).collect(Collectors.toList());
+  }
+
+  private static int line(Tree tree) {
+    return ((JavaTree) tree).getLine();
+  }
+
+  private static int column(Tree tree) {
+    SyntaxToken firstToken = tree.firstToken();
+    return firstToken == null ? -1 : firstToken.column();
+  }
+
   public void reportIssue(Tree tree, String message) {
     reportIssue(tree, message, Collections.emptySet());
   }
 
-  public void reportIssue(Tree tree, String message, Set<Flow> flows) {
+  public synchronized void reportIssue(Tree tree, String message, Set<Flow> flows) {
     issues.add(issues.stream()
       .filter(seIssue -> seIssue.tree.equals(tree))
       .findFirst()
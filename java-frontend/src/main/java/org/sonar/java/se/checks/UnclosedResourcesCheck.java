@@ -88,8 +88,6 @@ public class UnclosedResourcesCheck extends SECheck {
   public String excludedTypes = "";
   private final List<String> excludedTypesList = new ArrayList<>();
 
-  private Type visitedMethodOwnerType;
-
   private static final String JAVA_IO_AUTO_CLOSEABLE = "java.lang.AutoCloseable";
   private static final String JAVA_IO_CLOSEABLE = "java.io.Closeable";
   private static final String JAVA_SQL_STATEMENT = "java.sql.Statement";
@@ -132,9 +130,12 @@ public class UnclosedResourcesCheck extends SECheck {
     MethodMatcher.create().typeDefinition("java.nio.file.FileSystems").name("getDefault").withoutParameter()
   );
 
+  /**
+   * Keeps the type owning the method being explored.
+   */
   @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    this.visitedMethodOwnerType = methodTree.symbol().owner().type();
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, methodTree.symbol().owner().type());
   }
 
   @Override
@@ -213,7 +214,7 @@ public class UnclosedResourcesCheck extends SECheck {
     return false;
   }
 
-  private List<String> loadExcludedTypesList() {
+  private synchronized List<String> loadExcludedTypesList() {
     if ( excludedTypesList.isEmpty() && !StringUtils.isBlank(excludedTypes)) {
       for (String excludedType : excludedTypes.split(",")) {
         excludedTypesList.add(excludedType.trim());
@@ -451,8 +452,11 @@ public class UnclosedResourcesCheck extends SECheck {
 
   private class PostStatementVisitor extends CheckerTreeNodeVisitor {
 
+    private final Type visitedMethodOwnerType;
+
     PostStatementVisitor(CheckerContext context) {
       super(context.getState());
+      visitedMethodOwnerType = context.methodState(UnclosedResourcesCheck.this);
     }
 
     @Override
@@ -20,8 +20,6 @@
 package org.sonar.java.se.checks.debug;
 
 import com.google.common.base.Preconditions;
-import java.util.Deque;
-import java.util.LinkedList;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.java.DebugCheck;
@@ -40,23 +38,16 @@ import org.sonar.plugins.java.api.tree.MethodTree;
   tags = "debug")
 public class DebugInterruptedExecutionCheck extends SECheck implements DebugCheck {
 
-  private Deque<IdentifierTree> methodNames = new LinkedList<>();
-
   @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    methodNames.push(methodTree.simpleName());
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, methodTree.simpleName());
   }
 
   @Override
   public void interruptedExecution(CheckerContext context) {
     Exception cause = ((CheckerDispatcher) context).interruptionCause();
     Preconditions.checkNotNull(cause, "cause should always be present when exploration is interrupted");
-    reportIssue(methodNames.pop(), "SE Interrupted: " + cause.getMessage());
-  }
-
-  @Override
-  public void checkEndOfExecution(CheckerContext context) {
-    methodNames.pop();
+    reportIssue(context.<IdentifierTree>methodState(this), "SE Interrupted: " + cause.getMessage());
   }
 
 }
@@ -20,8 +20,6 @@
 package org.sonar.java.se.checks.debug;
 
 import java.util.Collections;
-import java.util.Deque;
-import java.util.LinkedList;
 import java.util.Set;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
@@ -44,27 +42,20 @@ import org.sonar.plugins.java.api.tree.MethodTree;
   tags = "debug")
 public class DebugMethodYieldsCheck extends SECheck implements DebugCheck {
 
-  private Deque<IdentifierTree> methodNames = new LinkedList<>();
-
   @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    methodNames.push(methodTree.simpleName());
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, methodTree.simpleName());
   }
 
   @Override
   public void checkEndOfExecution(CheckerContext context) {
     MethodBehavior mb = ((CheckerDispatcher) context).methodBehavior();
-    IdentifierTree methodName = methodNames.pop();
+    IdentifierTree methodName = context.methodState(this);
     if (mb != null) {
       reportIssue(methodName, String.format("Method '%s' has %d method yields.", methodName.name(), mb.yields().size()), flowFromYield(mb, methodName));
     }
   }
 
-  @Override
-  public void interruptedExecution(CheckerContext context) {
-    methodNames.pop();
-  }
-
   private static Set<Flow> flowFromYield(MethodBehavior mb, IdentifierTree methodName) {
     Flow.Builder builder = Flow.builder();
     mb.yields().stream().map(yield -> new JavaFileScannerContext.Location(yield.toString(), methodName)).forEach(builder::add);
@@ -21,8 +21,6 @@ package org.sonar.java.se.checks.debug;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import org.sonar.check.Priority;
@@ -52,17 +50,15 @@ import org.sonar.plugins.java.api.tree.Tree;
   tags = "debug")
 public class DebugMethodYieldsOnInvocationsCheck extends SECheck implements DebugCheck {
 
-  private Deque<List<MethodInvocationTree>> methodInvocations = new LinkedList<>();
-
   @Override
-  public void init(MethodTree methodTree, CFG cfg) {
-    methodInvocations.push(new ArrayList<>());
+  public void init(CheckerContext context, MethodTree methodTree, CFG cfg) {
+    context.setMethodState(this, new ArrayList<MethodInvocationTree>());
   }
 
   @Override
   public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
     if (syntaxNode.is(Tree.Kind.METHOD_INVOCATION)) {
-      methodInvocations.peek().add((MethodInvocationTree) syntaxNode);
+      methodInvocations(context).add((MethodInvocationTree) syntaxNode);
     }
     // No operation on state, just monitoring
     return context.getState();
@@ -80,11 +76,15 @@ public class DebugMethodYieldsOnInvocationsCheck extends SECheck implements Debu
 
   private void reportAll(CheckerContext context) {
     CheckerDispatcher checkerDispatcher = (CheckerDispatcher) context;
-    methodInvocations.pop().stream()
+    methodInvocations(context).stream()
       .filter(mit -> mit.symbol().isMethodSymbol())
       .forEach(mit -> reportYields(mit, checkerDispatcher));
   }
 
+  private List<MethodInvocationTree> methodInvocations(CheckerContext context) {
+    return context.methodState(this);
+  }
+
   private void reportYields(MethodInvocationTree mit, CheckerDispatcher checkerDispatcher) {
     MethodBehavior mb = checkerDispatcher.peekMethodBehavior((Symbol.MethodSymbol) mit.symbol());
     if (mb != null && mb.isComplete()) {
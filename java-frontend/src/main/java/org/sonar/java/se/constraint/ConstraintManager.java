@@ -19,6 +19,7 @@
  */
 package org.sonar.java.se.constraint;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -26,6 +27,7 @@ import org.sonar.java.bytecode.cfg.Instruction;
 import org.sonar.java.se.ExplodedGraphWalker;
 import org.sonar.java.se.Pair;
 import org.sonar.java.se.ProgramState;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.java.se.SymbolicValueFactory;
 import org.sonar.java.se.symbolicvalues.RelationalSymbolicValue;
 import org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind;
@@ -44,8 +46,18 @@ import static org.objectweb.asm.Opcodes.*;
 
 public class ConstraintManager {
 
+  private final SymbolicExecutionLimits limits;
   private SymbolicValueFactory symbolicValueFactory;
 
+  @VisibleForTesting
+  public ConstraintManager() {
+    this(SymbolicExecutionLimits.defaultLimits());
+  }
+
+  public ConstraintManager(SymbolicExecutionLimits limits) {
+    this.limits = limits;
+  }
+
   public void setValueFactory(SymbolicValueFactory valueFactory) {
     Preconditions.checkState(symbolicValueFactory == null, "The symbolic value factory has already been defined by another checker!");
     symbolicValueFactory = valueFactory;
@@ -95,17 +107,17 @@ public class ConstraintManager {
         break;
       case AND:
       case AND_ASSIGNMENT:
-        result = new SymbolicValue.AndSymbolicValue();
+        result = new SymbolicValue.AndSymbolicValue(limits.maxNestedBooleanStates());
         result.computedFrom(computedFrom);
         break;
       case OR:
       case OR_ASSIGNMENT:
-        result = new SymbolicValue.OrSymbolicValue();
+        result = new SymbolicValue.OrSymbolicValue(limits.maxNestedBooleanStates());
         result.computedFrom(computedFrom);
         break;
       case XOR:
       case XOR_ASSIGNMENT:
-        result = new SymbolicValue.XorSymbolicValue();
+        result = new SymbolicValue.XorSymbolicValue(limits.maxNestedBooleanStates());
         result.computedFrom(computedFrom);
         break;
       default:
@@ -115,8 +127,8 @@ public class ConstraintManager {
     return result;
   }
 
-  private static RelationalSymbolicValue createRelationalSymbolicValue(Kind kind, List<ProgramState.SymbolicValueSymbol> computedFrom) {
-    RelationalSymbolicValue result = new RelationalSymbolicValue(kind);
+  private RelationalSymbolicValue createRelationalSymbolicValue(Kind kind, List<ProgramState.SymbolicValueSymbol> computedFrom) {
+    RelationalSymbolicValue result = new RelationalSymbolicValue(kind, limits.maxDeducedRelations());
     result.computedFrom(computedFrom);
     return result;
   }
@@ -132,7 +144,7 @@ public class ConstraintManager {
   public SymbolicValue createMethodSymbolicValue(MethodInvocationTree syntaxNode, List<ProgramState.SymbolicValueSymbol> values) {
     SymbolicValue result;
     if (ExplodedGraphWalker.EQUALS_METHODS.anyMatch(syntaxNode)) {
-      result = new RelationalSymbolicValue(RelationalSymbolicValue.Kind.METHOD_EQUALS);
+      result = new RelationalSymbolicValue(RelationalSymbolicValue.Kind.METHOD_EQUALS, limits.maxDeducedRelations());
       ProgramState.SymbolicValueSymbol leftOp = values.get(1);
       ProgramState.SymbolicValueSymbol rightOp = values.get(0);
       result.computedFrom(ImmutableList.of(rightOp, leftOp));
@@ -180,17 +192,17 @@ public class ConstraintManager {
     switch (inst.opcode) {
       case IAND:
       case LAND:
-        result = new SymbolicValue.AndSymbolicValue();
+        result = new SymbolicValue.AndSymbolicValue(limits.maxNestedBooleanStates());
         result.computedFrom(computedFrom);
         break;
       case IOR:
       case LOR:
-        result = new SymbolicValue.OrSymbolicValue();
+        result = new SymbolicValue.OrSymbolicValue(limits.maxNestedBooleanStates());
         result.computedFrom(computedFrom);
         break;
       case IXOR:
       case LXOR:
-        result = new SymbolicValue.XorSymbolicValue();
+        result = new SymbolicValue.XorSymbolicValue(limits.maxNestedBooleanStates());
         result.computedFrom(computedFrom);
         break;
       case IF_ICMPEQ:
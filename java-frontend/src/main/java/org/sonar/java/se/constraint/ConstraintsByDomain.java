@@ -19,6 +19,9 @@
  */
 package org.sonar.java.se.constraint;
 
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -26,59 +29,135 @@ import javax.annotation.Nullable;
 import org.sonar.java.collections.PCollections;
 import org.sonar.java.collections.PMap;
 
+/**
+ * Constraints of a symbolic value, at most one per domain, the domain of a constraint being its class.
+ *
+ * Each domain gets an ordinal the first time it is used. Constraints of the first {@link #MAX_SLOTS} domains are stored in an array
+ * indexed by ordinal, constraints of the other domains (only expected with many custom rules) are stored in a map.
+ */
 public class ConstraintsByDomain {
 
-  private final PMap<Class<? extends Constraint>, Constraint> constraintPMap;
+  @VisibleForTesting
+  static final int MAX_SLOTS = 16;
+
+  private static final AtomicInteger NEXT_ORDINAL = new AtomicInteger();
+  private static final ClassValue<Integer> ORDINALS = new ClassValue<Integer>() {
+    @Override
+    protected Integer computeValue(Class<?> domain) {
+      // if two threads race for the same domain, only one of the two ordinals is kept
+      return NEXT_ORDINAL.getAndIncrement();
+    }
+  };
+
+  static {
+    // domains of the engine get the first slots
+    ordinal(ObjectConstraint.class);
+    ordinal(BooleanConstraint.class);
+  }
+
+  private static final Constraint[] NO_SLOTS = new Constraint[0];
+
+  private static final ConstraintsByDomain EMPTY = new ConstraintsByDomain(NO_SLOTS, PCollections.emptyMap());
 
-  private static final ConstraintsByDomain EMPTY = new ConstraintsByDomain(PCollections.emptyMap());
+  /**
+   * Constraints indexed by the ordinals of their domains, without trailing nulls.
+   */
+  private final Constraint[] slots;
+  private final PMap<Class<? extends Constraint>, Constraint> overflow;
+  private int hashCode;
 
-  private ConstraintsByDomain(PMap<Class<? extends Constraint>, Constraint> constraintPMap) {
-    this.constraintPMap = constraintPMap;
+  private ConstraintsByDomain(Constraint[] slots, PMap<Class<? extends Constraint>, Constraint> overflow) {
+    this.slots = slots;
+    this.overflow = overflow;
   }
 
   public static ConstraintsByDomain empty() {
     return EMPTY;
   }
 
+  @VisibleForTesting
+  static int ordinal(Class<?> domain) {
+    return ORDINALS.get(domain);
+  }
+
+  private static ConstraintsByDomain create(Constraint[] slots, PMap<Class<? extends Constraint>, Constraint> overflow) {
+    int length = slots.length;
+    while (length > 0 && slots[length - 1] == null) {
+      length--;
+    }
+    if (length == 0 && overflow.isEmpty()) {
+      return EMPTY;
+    }
+    return new ConstraintsByDomain(length == slots.length ? slots : Arrays.copyOf(slots, length), overflow);
+  }
+
   public ConstraintsByDomain remove(Class<? extends Constraint> domain) {
-    PMap<Class<? extends Constraint>, Constraint> remove = constraintPMap.remove(domain);
-    if (remove == constraintPMap) {
+    int ordinal = ordinal(domain);
+    if (ordinal < MAX_SLOTS) {
+      if (ordinal >= slots.length || slots[ordinal] == null) {
+        return this;
+      }
+      Constraint[] newSlots = slots.clone();
+      newSlots[ordinal] = null;
+      return create(newSlots, overflow);
+    }
+    PMap<Class<? extends Constraint>, Constraint> remove = overflow.remove(domain);
+    if (remove == overflow) {
       return this;
     }
-    return remove.isEmpty() ? EMPTY : new ConstraintsByDomain(remove);
+    return create(slots, remove);
   }
 
   @Nullable
   public Constraint get(Class<? extends Constraint> domain) {
-    return constraintPMap.get(domain);
+    int ordinal = ordinal(domain);
+    if (ordinal < MAX_SLOTS) {
+      return ordinal < slots.length ? slots[ordinal] : null;
+    }
+    return overflow.get(domain);
   }
 
   public boolean hasConstraint(Constraint constraint) {
-    return constraint.equals(constraintPMap.get(constraint.getClass()));
+    return constraint.equals(get(constraint.getClass()));
   }
 
   public void forEach(BiConsumer<Class<? extends Constraint>, Constraint> action) {
-    constraintPMap.forEach(action);
+    for (Constraint constraint : slots) {
+      if (constraint != null) {
+        action.accept(constraint.getClass(), constraint);
+      }
+    }
+    overflow.forEach(action);
   }
 
   public boolean isEmpty() {
-    return constraintPMap.isEmpty();
+    return this == EMPTY;
   }
 
   public ConstraintsByDomain put(Constraint constraint) {
-    PMap<Class<? extends Constraint>, Constraint> newConstraints = constraintPMap.put(constraint.getClass(), constraint);
-    return newConstraints == constraintPMap ? this : new ConstraintsByDomain(newConstraints);
+    Class<? extends Constraint> domain = constraint.getClass();
+    int ordinal = ordinal(domain);
+    if (ordinal < MAX_SLOTS) {
+      if (ordinal < slots.length && constraint.equals(slots[ordinal])) {
+        return this;
+      }
+      Constraint[] newSlots = Arrays.copyOf(slots, Math.max(slots.length, ordinal + 1));
+      newSlots[ordinal] = constraint;
+      return new ConstraintsByDomain(newSlots, overflow);
+    }
+    PMap<Class<? extends Constraint>, Constraint> newOverflow = overflow.put(domain, constraint);
+    return newOverflow == overflow ? this : new ConstraintsByDomain(slots, newOverflow);
   }
 
   public Stream<Constraint> stream() {
     Stream.Builder<Constraint> builder = Stream.builder();
-    constraintPMap.forEach((d, constraint) -> builder.add(constraint));
+    forEach((d, constraint) -> builder.add(constraint));
     return builder.build();
   }
 
   public Stream<Class<? extends Constraint>> domains() {
     Stream.Builder<Class<? extends Constraint>> builder = Stream.builder();
-    constraintPMap.forEach((domain, constraint) -> builder.add(domain));
+    forEach((domain, constraint) -> builder.add(domain));
     return builder.build();
   }
 
@@ -91,7 +170,7 @@ public class ConstraintsByDomain {
       return false;
     }
     ConstraintsByDomain that = (ConstraintsByDomain) o;
-    return constraintPMap.equals(that.constraintPMap);
+    return Arrays.equals(slots, that.slots) && overflow.equals(that.overflow);
   }
 
   @Override
@@ -101,6 +180,9 @@ public class ConstraintsByDomain {
 
   @Override
   public int hashCode() {
-    return constraintPMap.hashCode();
+    if (hashCode == 0) {
+      hashCode = 31 * Arrays.hashCode(slots) + overflow.hashCode();
+    }
+    return hashCode;
   }
 }
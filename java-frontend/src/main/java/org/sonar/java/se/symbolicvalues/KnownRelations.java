@@ -0,0 +1,139 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.symbolicvalues;
+
+import org.sonar.java.collections.PCollections;
+import org.sonar.java.collections.PMap;
+import org.sonar.java.collections.PSet;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Relations known to hold in a program state, indexed by their operands, so that deductions on a relation only go through the
+ * relations sharing an operand with it.
+ *
+ * The index is made of persistent collections: copies are made in constant time and adding a relation to a copy does not modify the
+ * original.
+ */
+public final class KnownRelations {
+
+  private PMap<SymbolicValue, PSet<RelationalSymbolicValue>> relationsByOperand;
+  private int size;
+
+  private KnownRelations(PMap<SymbolicValue, PSet<RelationalSymbolicValue>> relationsByOperand, int size) {
+    this.relationsByOperand = relationsByOperand;
+    this.size = size;
+  }
+
+  public static KnownRelations empty() {
+    return new KnownRelations(PCollections.emptyHashTrieMap(), 0);
+  }
+
+  public static KnownRelations of(Iterable<RelationalSymbolicValue> relations) {
+    KnownRelations knownRelations = empty();
+    relations.forEach(knownRelations::add);
+    return knownRelations;
+  }
+
+  public KnownRelations copy() {
+    return new KnownRelations(relationsByOperand, size);
+  }
+
+  public void add(RelationalSymbolicValue relation) {
+    if (contains(relation)) {
+      return;
+    }
+    size++;
+    index(relation.getLeftOp(), relation);
+    if (!relation.getLeftOp().equals(relation.getRightOp())) {
+      index(relation.getRightOp(), relation);
+    }
+  }
+
+  private void index(SymbolicValue operand, RelationalSymbolicValue relation) {
+    PSet<RelationalSymbolicValue> relations = relationsByOperand.get(operand);
+    if (relations == null) {
+      relations = PCollections.emptySet();
+    }
+    relationsByOperand = relationsByOperand.put(operand, relations.add(relation));
+  }
+
+  public boolean contains(RelationalSymbolicValue relation) {
+    PSet<RelationalSymbolicValue> relations = relationsByOperand.get(relation.getLeftOp());
+    return relations != null && relations.contains(relation);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void forEach(Consumer<RelationalSymbolicValue> action) {
+    // relations are indexed once by their left operand
+    relationsByOperand.forEach((operand, relations) -> relations.forEach(relation -> {
+      if (relation.getLeftOp().equals(operand)) {
+        action.accept(relation);
+      }
+    }));
+  }
+
+  public void forEachWithOperand(SymbolicValue operand, Consumer<RelationalSymbolicValue> action) {
+    PSet<RelationalSymbolicValue> relations = relationsByOperand.get(operand);
+    if (relations != null) {
+      relations.forEach(action);
+    }
+  }
+
+  /**
+   * Relations having the left or the right operand of the given relation as operand, each relation being visited once.
+   */
+  void forEachSharingOperandWith(RelationalSymbolicValue relation, Consumer<RelationalSymbolicValue> action) {
+    SymbolicValue leftOp = relation.getLeftOp();
+    forEachWithOperand(leftOp, action);
+    if (!leftOp.equals(relation.getRightOp())) {
+      forEachWithOperand(relation.getRightOp(), r -> {
+        if (!r.hasOperand(leftOp)) {
+          action.accept(r);
+        }
+      });
+    }
+  }
+
+  public Stream<RelationalSymbolicValue> withOperand(SymbolicValue operand) {
+    Stream.Builder<RelationalSymbolicValue> builder = Stream.builder();
+    forEachWithOperand(operand, builder::add);
+    return builder.build();
+  }
+
+  public Stream<RelationalSymbolicValue> stream() {
+    Stream.Builder<RelationalSymbolicValue> builder = Stream.builder();
+    forEach(builder::add);
+    return builder.build();
+  }
+
+  @Override
+  public String toString() {
+    return relationsByOperand.toString();
+  }
+}
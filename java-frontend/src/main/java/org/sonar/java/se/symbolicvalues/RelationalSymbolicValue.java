@@ -24,6 +24,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
 import org.sonar.java.se.ProgramState;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.java.se.constraint.BooleanConstraint;
 import org.sonar.java.se.constraint.Constraint;
 import org.sonar.java.se.constraint.ConstraintsByDomain;
@@ -50,7 +51,6 @@ import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.METH
 public class RelationalSymbolicValue extends BinarySymbolicValue {
 
   private static final int MAX_ITERATIONS = 10_000;
-  private static final int MAX_DEDUCED_RELATIONS = 100_000;
 
   public enum Kind {
     EQUAL("=="),
@@ -88,25 +88,39 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
   }
 
   final Kind kind;
+  /**
+   * Bound of the number of relations deduced when this relation is added to the known ones, see {@link #transitiveRelations}.
+   */
+  private final int maxDeducedRelations;
 
+  @VisibleForTesting
   public RelationalSymbolicValue(Kind kind) {
+    this(kind, SymbolicExecutionLimits.DEFAULT_MAX_DEDUCED_RELATIONS);
+  }
+
+  public RelationalSymbolicValue(Kind kind, int maxDeducedRelations) {
     this.kind = kind;
+    this.maxDeducedRelations = maxDeducedRelations;
   }
 
   @VisibleForTesting
   RelationalSymbolicValue(Kind kind, SymbolicValue leftOp, SymbolicValue rightOp) {
-    this.kind = kind;
+    this(kind, leftOp, rightOp, SymbolicExecutionLimits.DEFAULT_MAX_DEDUCED_RELATIONS);
+  }
+
+  private RelationalSymbolicValue(Kind kind, SymbolicValue leftOp, SymbolicValue rightOp, int maxDeducedRelations) {
+    this(kind, maxDeducedRelations);
     this.leftOp = leftOp;
     this.rightOp = rightOp;
   }
 
   @Override
   public List<ProgramState> setConstraint(ProgramState initialProgramState, BooleanConstraint booleanConstraint) {
-    return setConstraint(initialProgramState, booleanConstraint, new HashSet<>(initialProgramState.knownRelations()));
+    return setConstraint(initialProgramState, booleanConstraint, initialProgramState.knownRelations());
   }
 
   @Override
-  protected List<ProgramState> setConstraint(ProgramState initialProgramState, Constraint constraint, Set<RelationalSymbolicValue> knownRelations) {
+  protected List<ProgramState> setConstraint(ProgramState initialProgramState, Constraint constraint, KnownRelations knownRelations) {
     if (constraint == BooleanConstraint.FALSE) {
       return inverse().setConstraint(initialProgramState, BooleanConstraint.TRUE, knownRelations);
     }
@@ -133,7 +147,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
   }
 
   private static List<ProgramState> getNewProgramStates(ProgramState initialProgramState, Set<RelationalSymbolicValue> newRelations,
-                                                        Set<RelationalSymbolicValue> knownRelations) {
+                                                        KnownRelations knownRelations) {
     List<ProgramState> programStates = new ArrayList<>();
     programStates.add(initialProgramState);
     for (RelationalSymbolicValue relationalSymbolicValue : newRelations) {
@@ -147,10 +161,10 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
   }
 
   RelationalSymbolicValue inverse() {
-    return new RelationalSymbolicValue(kind.inverse(), leftOp, rightOp);
+    return new RelationalSymbolicValue(kind.inverse(), leftOp, rightOp, maxDeducedRelations);
   }
 
-  private List<ProgramState> copyAllConstraints(ProgramState initialState, Set<RelationalSymbolicValue> knownRelations) {
+  private List<ProgramState> copyAllConstraints(ProgramState initialState, KnownRelations knownRelations) {
     ProgramState programState = initialState;
     if (programState.canReach(leftOp) || programState.canReach(rightOp)) {
       programState = programState.addConstraint(this, BooleanConstraint.TRUE);
@@ -184,7 +198,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     return copiedConstraints;
   }
 
-  private List<ProgramState> copyConstraintFromTo(SymbolicValue from, SymbolicValue to, ProgramState programState, Set<RelationalSymbolicValue> knownRelations) {
+  private List<ProgramState> copyConstraintFromTo(SymbolicValue from, SymbolicValue to, ProgramState programState, KnownRelations knownRelations) {
     List<ProgramState> states = new ArrayList<>();
     states.add(programState);
     ConstraintsByDomain leftConstraints = programState.getConstraints(from);
@@ -202,19 +216,19 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     return states;
   }
 
-  private static List<ProgramState> applyConstraint(Constraint constraint, SymbolicValue to, List<ProgramState> states, Set<RelationalSymbolicValue> knownRelations) {
+  private static List<ProgramState> applyConstraint(Constraint constraint, SymbolicValue to, List<ProgramState> states, KnownRelations knownRelations) {
     List<ProgramState> newStates = new ArrayList<>();
     states.forEach(state -> newStates.addAll(to.setConstraint(state, constraint, knownRelations)));
     return newStates;
   }
 
   @VisibleForTesting
-  RelationState resolveRelationState(Set<RelationalSymbolicValue> knownRelations) {
+  RelationState resolveRelationState(KnownRelations knownRelations) {
     if (hasSameOperand()) {
       return relationStateForSameOperand();
     }
 
-    return knownRelations.stream()
+    return knownRelations.withOperand(leftOp)
       .map(r -> r.implies(this))
       .filter(RelationState::isDetermined)
       .findAny().orElse(RelationState.UNDETERMINED);
@@ -249,25 +263,26 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
   }
 
   @VisibleForTesting
-  Set<RelationalSymbolicValue> transitiveRelations(Set<RelationalSymbolicValue> knownRelations) {
+  Set<RelationalSymbolicValue> transitiveRelations(KnownRelations knownRelations) {
     Set<RelationalSymbolicValue> newRelations = new HashSet<>();
     Deque<RelationalSymbolicValue> workList = new ArrayDeque<>();
     int iterations = 0;
     workList.add(this);
     while (!workList.isEmpty()) {
       int relationSize = newRelations.size() * knownRelations.size();
-      if (relationSize > MAX_DEDUCED_RELATIONS || iterations > MAX_ITERATIONS) {
+      if (relationSize > maxDeducedRelations || iterations > MAX_ITERATIONS) {
         // safety mechanism in case of an error in the algorithm
         throw new RelationalSymbolicValue.TransitiveRelationExceededException("Used relations: " + relationSize + ". Iterations " + iterations);
       }
       iterations++;
       RelationalSymbolicValue relation = workList.pop();
-      for (RelationalSymbolicValue knownRelation : knownRelations) {
+      // only relations sharing an operand with the relation can be combined with it
+      knownRelations.forEachSharingOperandWith(relation, knownRelation -> {
         RelationalSymbolicValue r = relation.deduceTransitiveOrSimplified(knownRelation);
         if (r != null && !knownRelations.contains(r) && newRelations.add(r)) {
           workList.add(r);
         }
-      }
+      });
     }
     return newRelations;
   }
@@ -286,7 +301,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     // a >= b && b >= a -> a == b
     if (kind == GREATER_THAN_OR_EQUAL && other.kind == GREATER_THAN_OR_EQUAL
       && hasSameOperandsAs(other) && !equals(other)) {
-      return new RelationalSymbolicValue(EQUAL, leftOp, rightOp);
+      return new RelationalSymbolicValue(EQUAL, leftOp, rightOp, maxDeducedRelations);
     }
     return null;
   }
@@ -333,7 +348,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
 
     return new RelationalSymbolicValue(other.kind,
       hasOperand(other.leftOp) ? differentOperand(other) : other.leftOp,
-      hasOperand(other.leftOp) ? other.rightOp : differentOperand(other));
+      hasOperand(other.leftOp) ? other.rightOp : differentOperand(other), maxDeducedRelations);
   }
 
   @CheckForNull
@@ -344,21 +359,21 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     if (other.kind == LESS_THAN) {
       // a < x && x < b => a < b
       if (rightOp.equals(other.leftOp)) {
-        return new RelationalSymbolicValue(LESS_THAN, leftOp, other.rightOp);
+        return new RelationalSymbolicValue(LESS_THAN, leftOp, other.rightOp, maxDeducedRelations);
       }
       // x < a && b < x => b < a
       if (leftOp.equals(other.rightOp)) {
-        return new RelationalSymbolicValue(LESS_THAN, other.leftOp, rightOp);
+        return new RelationalSymbolicValue(LESS_THAN, other.leftOp, rightOp, maxDeducedRelations);
       }
     }
     if (other.kind == GREATER_THAN_OR_EQUAL) {
       // a < x && b >= x => a < b
       if (rightOp.equals(other.rightOp)) {
-        return new RelationalSymbolicValue(LESS_THAN, leftOp, other.leftOp);
+        return new RelationalSymbolicValue(LESS_THAN, leftOp, other.leftOp, maxDeducedRelations);
       }
       // x < a && x >= b => b < a
       if (leftOp.equals(other.leftOp)) {
-        return new RelationalSymbolicValue(LESS_THAN, other.rightOp, rightOp);
+        return new RelationalSymbolicValue(LESS_THAN, other.rightOp, rightOp, maxDeducedRelations);
       }
     }
     return null;
@@ -368,7 +383,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
   private RelationalSymbolicValue greaterThanEqualTransitiveBuilder(RelationalSymbolicValue other) {
     // a >= x && x >= b -> a >= b
     if (kind == GREATER_THAN_OR_EQUAL && other.kind == GREATER_THAN_OR_EQUAL && rightOp.equals(other.leftOp)) {
-      return new RelationalSymbolicValue(GREATER_THAN_OR_EQUAL, leftOp, other.rightOp);
+      return new RelationalSymbolicValue(GREATER_THAN_OR_EQUAL, leftOp, other.rightOp, maxDeducedRelations);
     }
     return null;
   }
@@ -377,7 +392,7 @@ public class RelationalSymbolicValue extends BinarySymbolicValue {
     return leftOp.equals(rightOp);
   }
 
-  private boolean hasOperand(SymbolicValue operand) {
+  boolean hasOperand(SymbolicValue operand) {
     return leftOp.equals(operand) || rightOp.equals(operand);
   }
 
@@ -19,17 +19,19 @@
  */
 package org.sonar.java.se.symbolicvalues;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.java.resolve.Symbols;
 import org.sonar.java.se.ExplodedGraphWalker;
 import org.sonar.java.se.ProgramState;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.java.se.constraint.BooleanConstraint;
 import org.sonar.java.se.constraint.Constraint;
 import org.sonar.java.se.constraint.ConstraintsByDomain;
@@ -81,12 +83,14 @@ public class SymbolicValue {
     FALSE_LITERAL
   );
 
-  private static int idGenerator;
+  /**
+   * Shared by the threads exploring methods concurrently.
+   */
+  private static final AtomicInteger ID_GENERATOR = new AtomicInteger();
   private final int id;
 
   public SymbolicValue() {
-    id = idGenerator;
-    idGenerator++;
+    id = ID_GENERATOR.getAndIncrement();
   }
 
   @Override
@@ -181,7 +185,7 @@ public class SymbolicValue {
     return states.get(0);
   }
 
-  protected List<ProgramState> setConstraint(ProgramState state, Constraint constraint, Set<RelationalSymbolicValue> knownRelations) {
+  protected List<ProgramState> setConstraint(ProgramState state, Constraint constraint, KnownRelations knownRelations) {
     return setConstraint(state, constraint);
   }
 
@@ -288,8 +292,14 @@ public class SymbolicValue {
 
   public abstract static class BooleanExpressionSymbolicValue extends BinarySymbolicValue {
 
-    protected static void addStates(List<ProgramState> states, List<ProgramState> newStates) {
-      if (states.size() > ExplodedGraphWalker.MAX_NESTED_BOOLEAN_STATES || newStates.size() > ExplodedGraphWalker.MAX_NESTED_BOOLEAN_STATES) {
+    private final int maxNestedBooleanStates;
+
+    protected BooleanExpressionSymbolicValue(int maxNestedBooleanStates) {
+      this.maxNestedBooleanStates = maxNestedBooleanStates;
+    }
+
+    protected void addStates(List<ProgramState> states, List<ProgramState> newStates) {
+      if (states.size() > maxNestedBooleanStates || newStates.size() > maxNestedBooleanStates) {
         throw new ExplodedGraphWalker.TooManyNestedBooleanStatesException();
       }
       states.addAll(newStates);
@@ -298,6 +308,14 @@ public class SymbolicValue {
 
   public static class AndSymbolicValue extends BooleanExpressionSymbolicValue {
 
+    @VisibleForTesting
+    public AndSymbolicValue() {
+      this(SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES);
+    }
+
+    public AndSymbolicValue(int maxNestedBooleanStates) {
+      super(maxNestedBooleanStates);
+    }
 
     @Override
     public List<ProgramState> setConstraint(ProgramState programState, BooleanConstraint booleanConstraint) {
@@ -324,6 +342,14 @@ public class SymbolicValue {
 
   public static class OrSymbolicValue extends BooleanExpressionSymbolicValue {
 
+    @VisibleForTesting
+    public OrSymbolicValue() {
+      this(SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES);
+    }
+
+    public OrSymbolicValue(int maxNestedBooleanStates) {
+      super(maxNestedBooleanStates);
+    }
 
     @Override
     public List<ProgramState> setConstraint(ProgramState programState, BooleanConstraint booleanConstraint) {
@@ -350,6 +376,14 @@ public class SymbolicValue {
 
   public static class XorSymbolicValue extends BooleanExpressionSymbolicValue {
 
+    @VisibleForTesting
+    public XorSymbolicValue() {
+      this(SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES);
+    }
+
+    public XorSymbolicValue(int maxNestedBooleanStates) {
+      super(maxNestedBooleanStates);
+    }
 
     @Override
     public List<ProgramState> setConstraint(ProgramState programState, BooleanConstraint booleanConstraint) {
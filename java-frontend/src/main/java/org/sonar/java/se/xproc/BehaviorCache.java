@@ -21,28 +21,63 @@ package org.sonar.java.se.xproc;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.java.bytecode.loader.SquidClassLoader;
 import org.sonar.java.bytecode.se.BytecodeEGWalker;
 import org.sonar.java.resolve.JavaSymbol;
 import org.sonar.java.resolve.SemanticModel;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.java.se.SymbolicExecutionVisitor;
 import org.sonar.plugins.java.api.semantic.Symbol;
 import org.sonar.plugins.java.api.tree.MethodTree;
 
+/**
+ * Behaviors of the methods invoked during symbolic execution, computed once on demand from their source, when declared in the current
+ * file and not overridable, or from bytecode.
+ * <p/>
+ * Methods of a file can be explored concurrently (see {@link SymbolicExecutionVisitor}): behaviors computed from source are computed on
+ * the analysis thread, before the concurrent explorations which only read them. Behaviors computed from bytecode are computed by the
+ * thread requesting them, without holding any lock, and published once complete: when two threads compute the same behavior, the first
+ * one published is kept.
+ */
 public class BehaviorCache {
 
   private final SquidClassLoader classLoader;
   private final boolean crossFileEnabled;
+  private final SymbolicExecutionLimits limits;
   private  SymbolicExecutionVisitor sev;
   private  SemanticModel semanticModel;
   @VisibleForTesting
-  public final Map<String, MethodBehavior> behaviors = new LinkedHashMap<>();
-  private final Map<String, MethodBehavior> bytecodeBehaviors = new LinkedHashMap<>();
+  public final Map<String, MethodBehavior> behaviors = Collections.synchronizedMap(new LinkedHashMap<>());
+  private final Map<String, MethodBehavior> bytecodeBehaviors = new ConcurrentHashMap<>();
+  /**
+   * Behaviors computed from bytecode by the current thread, not yet published.
+   */
+  private final ThreadLocal<Map<String, MethodBehavior>> bytecodeBehaviorsInComputation = ThreadLocal.withInitial(HashMap::new);
+  @Nullable
+  private final BytecodeBehaviorStore bytecodeBehaviorStore;
+  /**
+   * Classes read to compute each bytecode behavior, including the classes of the methods it invokes.
+   */
+  private final Map<String, Set<String>> bytecodeClassesBySignature = new ConcurrentHashMap<>();
+  /**
+   * Classes read by the bytecode behaviors being computed by the current thread, innermost computation first.
+   */
+  private final ThreadLocal<Deque<Set<String>>> bytecodeClassesInComputation = ThreadLocal.withInitial(ArrayDeque::new);
+  /**
+   * Classes read by the bytecode behaviors used by the current file.
+   */
+  private final Set<String> bytecodeClassesOfFile = ConcurrentHashMap.newKeySet();
 
   // methods known to be well covered using bytecode-generated behavior
   private static final Set<String> WHITELIST = ImmutableSet.of(
@@ -101,8 +136,26 @@ public class BehaviorCache {
   }
 
   public BehaviorCache(SquidClassLoader classLoader, boolean crossFileEnabled) {
+    this(classLoader, crossFileEnabled, null);
+  }
+
+  public BehaviorCache(SquidClassLoader classLoader, boolean crossFileEnabled, @Nullable BytecodeBehaviorStore bytecodeBehaviorStore) {
+    this(classLoader, crossFileEnabled, bytecodeBehaviorStore, SymbolicExecutionLimits.defaultLimits());
+  }
+
+  public BehaviorCache(SquidClassLoader classLoader, boolean crossFileEnabled, @Nullable BytecodeBehaviorStore bytecodeBehaviorStore,
+                       SymbolicExecutionLimits limits) {
     this.classLoader = classLoader;
     this.crossFileEnabled = crossFileEnabled;
+    this.bytecodeBehaviorStore = bytecodeBehaviorStore;
+    this.limits = limits;
+  }
+
+  /**
+   * @return limits of the analysis, shared by every method explored to compute behaviors of this cache
+   */
+  public SymbolicExecutionLimits limits() {
+    return limits;
   }
 
   public void setFileContext(@Nullable SymbolicExecutionVisitor sev,@Nullable SemanticModel semanticModel) {
@@ -112,6 +165,14 @@ public class BehaviorCache {
 
   public void cleanup() {
     behaviors.clear();
+    bytecodeClassesOfFile.clear();
+  }
+
+  /**
+   * @return the classes whose bytecode has been used to compute the behaviors of the methods invoked by the current file
+   */
+  public Set<String> bytecodeClassesOfFile() {
+    return Collections.unmodifiableSet(bytecodeClassesOfFile);
   }
 
   public MethodBehavior methodBehaviorForSymbol(Symbol.MethodSymbol symbol) {
@@ -121,7 +182,11 @@ public class BehaviorCache {
   }
 
   public MethodBehavior methodBehaviorForSymbol(String signature) {
-    return bytecodeBehaviors.computeIfAbsent(signature, k -> new MethodBehavior(signature));
+    MethodBehavior mb = bytecodeBehaviors.get(signature);
+    if (mb != null) {
+      return mb;
+    }
+    return bytecodeBehaviorsInComputation.get().computeIfAbsent(signature, k -> new MethodBehavior(signature));
   }
 
   @CheckForNull
@@ -137,26 +202,97 @@ public class BehaviorCache {
   @CheckForNull
   private MethodBehavior get(String signature, @Nullable Symbol.MethodSymbol symbol) {
     MethodBehavior mb = behaviors.get(signature);
-    if(mb != null) {
+    if (mb != null && mb.isVisited()) {
       return mb;
     }
     if (symbol != null) {
       MethodTree declaration = symbol.declaration();
       if (SymbolicExecutionVisitor.methodCanNotBeOverriden(symbol) && declaration != null) {
-        sev.execute(declaration);
-        return behaviors.get(signature);
+        return sourceBehavior(signature, declaration);
       }
     }
+    if (mb != null) {
+      return mb;
+    }
 
     // disabled x-file analysis, behavior based on source code can still be used
     if (!crossFileEnabled && !isKnownSignature(signature)) {
       return null;
     }
 
-    if (!bytecodeBehaviors.containsKey(signature)) {
-      new BytecodeEGWalker(this, semanticModel).getMethodBehavior(signature, classLoader);
+    mb = bytecodeBehaviors.get(signature);
+    if (mb == null) {
+      // behavior being computed, when invoked recursively
+      mb = bytecodeBehaviorsInComputation.get().get(signature);
+    }
+    if (mb == null) {
+      mb = computeBytecodeBehavior(signature);
+    }
+    Set<String> classes = bytecodeClassesBySignature.getOrDefault(signature, Collections.singleton(ownerClass(signature)));
+    Deque<Set<String>> classesInComputation = bytecodeClassesInComputation.get();
+    if (classesInComputation.isEmpty()) {
+      bytecodeClassesOfFile.addAll(classes);
+    } else {
+      classesInComputation.peek().addAll(classes);
+    }
+    return mb;
+  }
+
+  /**
+   * Only invoked on the analysis thread, as the methods which can not be overridden are explored before the concurrent explorations.
+   * When invoked recursively by the exploration of the method, the behavior being computed is returned.
+   */
+  private MethodBehavior sourceBehavior(String signature, MethodTree declaration) {
+    MethodBehavior mb = behaviors.get(signature);
+    if (mb == null) {
+      sev.execute(declaration);
+      mb = behaviors.get(signature);
+    }
+    return mb;
+  }
+
+  @CheckForNull
+  private MethodBehavior computeBytecodeBehavior(String signature) {
+    Set<String> classes = new HashSet<>();
+    classes.add(ownerClass(signature));
+    MethodBehavior computed = bytecodeBehaviorStore == null ? null : bytecodeBehaviorStore.load(signature, classes);
+    boolean loaded = computed != null;
+    if (!loaded) {
+      Deque<Set<String>> classesInComputation = bytecodeClassesInComputation.get();
+      classesInComputation.push(classes);
+      try {
+        computed = new BytecodeEGWalker(this, semanticModel).getMethodBehavior(signature, classLoader);
+      } finally {
+        classesInComputation.pop();
+        bytecodeBehaviorsInComputation.get().remove(signature);
+      }
+    }
+    bytecodeClassesBySignature.putIfAbsent(signature, classes);
+    if (computed == null) {
+      return null;
+    }
+    MethodBehavior published = bytecodeBehaviors.putIfAbsent(signature, computed);
+    if (published != null) {
+      // computed concurrently by another thread
+      return published;
+    }
+    if (!loaded && bytecodeBehaviorStore != null && computed.isVisited()) {
+      bytecodeBehaviorStore.store(computed, classes);
+    }
+    return computed;
+  }
+
+  static String ownerClass(String signature) {
+    return signature.substring(0, signature.indexOf('#'));
+  }
+
+  /**
+   * Persists the behaviors computed from bytecode, if a store is configured.
+   */
+  public void saveBytecodeBehaviors() {
+    if (bytecodeBehaviorStore != null) {
+      bytecodeBehaviorStore.save();
     }
-    return bytecodeBehaviors.get(signature);
   }
 
   /**
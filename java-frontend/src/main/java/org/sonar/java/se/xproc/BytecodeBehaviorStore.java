@@ -0,0 +1,421 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.xproc;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+import org.sonar.java.resolve.Convert;
+import org.sonar.java.se.checks.DivisionByZeroCheck;
+import org.sonar.java.se.constraint.BooleanConstraint;
+import org.sonar.java.se.constraint.Constraint;
+import org.sonar.java.se.constraint.ConstraintsByDomain;
+import org.sonar.java.se.constraint.ObjectConstraint;
+import org.sonar.java.se.constraint.TypedConstraint;
+
+/**
+ * Behaviors of library methods computed from bytecode, persisted in the working directory so that following analyses
+ * do not compute them again.
+ * <p/>
+ * Behaviors are stored in one file per jar, named after the hash of the jar content, so that a behavior is reused as long
+ * as the jar holding the method is unchanged. Each behavior also records the classes of the methods it invokes, with the
+ * jars holding them, and is discarded if one of them changed. Behaviors depending on classes which are not in jars are not stored. Files are only read when a behavior of one of their methods is first requested.
+ * <p/>
+ * Only behaviors whose yields hold well known constraints are stored, the other ones are computed at each analysis.
+ * <p/>
+ * Behaviors can be loaded and stored by concurrent explorations, accesses are synchronized.
+ */
+public class BytecodeBehaviorStore {
+
+  private static final Logger LOG = Loggers.get(BytecodeBehaviorStore.class);
+  private static final int FORMAT_VERSION = 2;
+  private static final String FILE_EXTENSION = ".bin";
+  private static final byte HAPPY_PATH_YIELD = 0;
+  private static final byte EXCEPTIONAL_YIELD = 1;
+  private static final String JAVA_HOME = new File(System.getProperty("java.home")).getAbsolutePath();
+  private static final String ABSENT = "absent";
+  private static final String TYPED_CONSTRAINT_PREFIX = "T:";
+  private static final Map<String, Constraint> ENUM_CONSTRAINTS = enumConstraints(ObjectConstraint.values(), BooleanConstraint.values(), DivisionByZeroCheck.ZeroConstraint.values());
+
+  private final File directory;
+  private final String suffix;
+  private final SquidClassLoader classLoader;
+  /**
+   * Key of the jar holding each class, {@link #ABSENT} for classes which are not on the classpath, and empty for classes which are
+   * not in a jar.
+   */
+  private final Map<String, Optional<String>> jarKeysByClass = new HashMap<>();
+  private final Map<String, String> jarKeysByLocation = new HashMap<>();
+  private final Map<String, Map<String, StoredBehavior>> behaviorsByJarKey = new HashMap<>();
+  private final Set<String> modifiedJarKeys = new HashSet<>();
+
+  /**
+   * @param directory where behaviors are stored
+   * @param crossFileEnabled behaviors of methods invoked by library methods are only known with cross-file analysis,
+   *                         so behaviors computed with and without it are stored separately.
+   */
+  public BytecodeBehaviorStore(File directory, SquidClassLoader classLoader, boolean crossFileEnabled) {
+    this.directory = directory;
+    this.suffix = crossFileEnabled ? "-xfile" : "";
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * @param dependencies filled with the classes read to compute the behavior
+   * @return the stored behavior of the method, or null if it is not known or outdated
+   */
+  @CheckForNull
+  public synchronized MethodBehavior load(String signature, Set<String> dependencies) {
+    String jarKey = ownerJarKey(signature);
+    if (jarKey == null) {
+      return null;
+    }
+    StoredBehavior stored = behaviorsByJarKey.computeIfAbsent(jarKey, this::read).get(signature);
+    if (stored == null || stored.dependencies.entrySet().stream().anyMatch(dependency -> !dependency.getValue().equals(jarKey(dependency.getKey())))) {
+      return null;
+    }
+    dependencies.addAll(stored.dependencies.keySet());
+    return stored.behavior;
+  }
+
+  /**
+   * Remembers a behavior computed from bytecode, to be written by {@link #save()}.
+   *
+   * @param dependencies classes read to compute the behavior, including the classes of the methods it invokes
+   */
+  public synchronized void store(MethodBehavior behavior, Set<String> dependencies) {
+    String jarKey = ownerJarKey(behavior.signature());
+    if (jarKey == null || !isStorable(behavior)) {
+      return;
+    }
+    Map<String, String> jarKeysByDependency = new HashMap<>();
+    for (String dependency : dependencies) {
+      String dependencyJarKey = jarKey(dependency);
+      if (dependencyJarKey == null) {
+        return;
+      }
+      jarKeysByDependency.put(dependency, dependencyJarKey);
+    }
+    behaviorsByJarKey.computeIfAbsent(jarKey, this::read).put(behavior.signature(), new StoredBehavior(behavior, ImmutableMap.copyOf(jarKeysByDependency)));
+    modifiedJarKeys.add(jarKey);
+  }
+
+  /**
+   * Writes the files of the jars for which new behaviors have been stored.
+   */
+  public synchronized void save() {
+    if (modifiedJarKeys.isEmpty()) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory.toPath());
+      for (String jarKey : modifiedJarKeys) {
+        write(jarKey, behaviorsByJarKey.get(jarKey));
+      }
+      LOG.debug("Behaviors of library methods stored for {} jars", modifiedJarKeys.size());
+    } catch (IOException e) {
+      LOG.debug("Unable to store behaviors of library methods in {}: {}", directory, e.getMessage());
+    }
+    modifiedJarKeys.clear();
+  }
+
+  @CheckForNull
+  private String ownerJarKey(String signature) {
+    String jarKey = jarKey(BehaviorCache.ownerClass(signature));
+    return ABSENT.equals(jarKey) ? null : jarKey;
+  }
+
+  @CheckForNull
+  private String jarKey(String className) {
+    return jarKeysByClass.computeIfAbsent(className, k -> {
+      URL url = classLoader.getResource(Convert.bytecodeName(className) + ".class");
+      if (url == null) {
+        return Optional.of(ABSENT);
+      }
+      return Optional.ofNullable(jarKey(url));
+    }).orElse(null);
+  }
+
+  @CheckForNull
+  private String jarKey(URL url) {
+    if ("jrt".equals(url.getProtocol())) {
+      return runtimeKey();
+    }
+    if (!"jar".equals(url.getProtocol())) {
+      // classes of the project are changing between analyses
+      return null;
+    }
+    String path = url.getPath();
+    int separator = path.indexOf("!/");
+    if (separator < 0) {
+      return null;
+    }
+    String location = path.substring(0, separator);
+    if (jarKeysByLocation.containsKey(location)) {
+      return jarKeysByLocation.get(location);
+    }
+    String jarKey = null;
+    try {
+      File jar = location.startsWith("file:") ? new File(URI.create(location)) : new File(location);
+      if (jar.getAbsolutePath().startsWith(JAVA_HOME)) {
+        // jars of the running JDK are not hashed, as they are large and only change with the JDK version
+        jarKey = runtimeKey();
+      } else {
+        jarKey = com.google.common.io.Files.asByteSource(jar).hash(Hashing.sha256()).toString();
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.debug("Unable to compute hash of {}: {}", location, e.getMessage());
+    }
+    jarKeysByLocation.put(location, jarKey);
+    return jarKey;
+  }
+
+  private static String runtimeKey() {
+    return Hashing.sha256().hashString(JAVA_HOME + System.getProperty("java.runtime.version"), StandardCharsets.UTF_8).toString();
+  }
+
+  private File file(String jarKey) {
+    return new File(directory, jarKey + suffix + FILE_EXTENSION);
+  }
+
+  private Map<String, StoredBehavior> read(String jarKey) {
+    Map<String, StoredBehavior> behaviors = new LinkedHashMap<>();
+    File file = file(jarKey);
+    if (!file.isFile()) {
+      return behaviors;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        return behaviors;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        StoredBehavior stored = readBehavior(in);
+        behaviors.put(stored.behavior.signature(), stored);
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.debug("Unable to read behaviors of library methods from {}: {}", file, e.getMessage());
+      behaviors.clear();
+    }
+    return behaviors;
+  }
+
+  private void write(String jarKey, Map<String, StoredBehavior> behaviors) throws IOException {
+    Path target = file(jarKey).toPath();
+    Path temp = Files.createTempFile(directory.toPath(), jarKey, ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(behaviors.size());
+      for (StoredBehavior stored : behaviors.values()) {
+        writeBehavior(out, stored);
+      }
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static void writeBehavior(DataOutputStream out, StoredBehavior stored) throws IOException {
+    MethodBehavior behavior = stored.behavior;
+    out.writeUTF(behavior.signature());
+    out.writeBoolean(behavior.isComplete());
+    out.writeBoolean(behavior.isMethodVarArgs());
+    writeStrings(out, behavior.getDeclaredExceptions());
+    out.writeInt(stored.dependencies.size());
+    for (Map.Entry<String, String> dependency : stored.dependencies.entrySet()) {
+      out.writeUTF(dependency.getKey());
+      out.writeUTF(dependency.getValue());
+    }
+    out.writeInt(behavior.yields.size());
+    for (MethodYield yield : behavior.yields) {
+      if (yield instanceof HappyPathYield) {
+        HappyPathYield happyPathYield = (HappyPathYield) yield;
+        out.writeByte(HAPPY_PATH_YIELD);
+        writeParametersConstraints(out, yield);
+        out.writeInt(happyPathYield.resultIndex());
+        ConstraintsByDomain resultConstraint = happyPathYield.resultConstraint();
+        out.writeBoolean(resultConstraint != null);
+        if (resultConstraint != null) {
+          writeConstraints(out, resultConstraint);
+        }
+      } else {
+        String exceptionType = ((ExceptionalYield) yield).exceptionTypeName();
+        out.writeByte(EXCEPTIONAL_YIELD);
+        writeParametersConstraints(out, yield);
+        out.writeBoolean(exceptionType != null);
+        if (exceptionType != null) {
+          out.writeUTF(exceptionType);
+        }
+      }
+    }
+  }
+
+  private static StoredBehavior readBehavior(DataInputStream in) throws IOException {
+    String signature = in.readUTF();
+    boolean complete = in.readBoolean();
+    MethodBehavior behavior = new MethodBehavior(signature, in.readBoolean());
+    behavior.setDeclaredExceptions(readStrings(in));
+    Map<String, String> dependencies = new HashMap<>();
+    int dependencyCount = in.readInt();
+    for (int i = 0; i < dependencyCount; i++) {
+      dependencies.put(in.readUTF(), in.readUTF());
+    }
+    int yieldCount = in.readInt();
+    for (int i = 0; i < yieldCount; i++) {
+      byte kind = in.readByte();
+      MethodYield yield;
+      if (kind == HAPPY_PATH_YIELD) {
+        HappyPathYield happyPathYield = new HappyPathYield(behavior);
+        happyPathYield.parametersConstraints = readParametersConstraints(in);
+        int resultIndex = in.readInt();
+        happyPathYield.setResult(resultIndex, in.readBoolean() ? readConstraints(in) : null);
+        yield = happyPathYield;
+      } else if (kind == EXCEPTIONAL_YIELD) {
+        ExceptionalYield exceptionalYield = new ExceptionalYield(behavior);
+        exceptionalYield.parametersConstraints = readParametersConstraints(in);
+        exceptionalYield.setExceptionType(in.readBoolean() ? in.readUTF() : null);
+        yield = exceptionalYield;
+      } else {
+        throw new IOException("Unknown yield kind " + kind);
+      }
+      behavior.yields.add(yield);
+    }
+    behavior.restored(complete);
+    return new StoredBehavior(behavior, ImmutableMap.copyOf(dependencies));
+  }
+
+  private static void writeParametersConstraints(DataOutputStream out, MethodYield yield) throws IOException {
+    out.writeInt(yield.parametersConstraints.size());
+    for (ConstraintsByDomain constraints : yield.parametersConstraints) {
+      writeConstraints(out, constraints);
+    }
+  }
+
+  private static List<ConstraintsByDomain> readParametersConstraints(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    List<ConstraintsByDomain> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(readConstraints(in));
+    }
+    return result;
+  }
+
+  private static void writeConstraints(DataOutputStream out, ConstraintsByDomain constraints) throws IOException {
+    List<String> encoded = new ArrayList<>();
+    constraints.forEach((domain, constraint) -> encoded.add(encode(constraint)));
+    writeStrings(out, encoded);
+  }
+
+  private static ConstraintsByDomain readConstraints(DataInputStream in) throws IOException {
+    ConstraintsByDomain result = ConstraintsByDomain.empty();
+    for (String encoded : readStrings(in)) {
+      result = result.put(decode(encoded));
+    }
+    return result;
+  }
+
+  private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+    out.writeInt(strings.size());
+    for (String string : strings) {
+      out.writeUTF(string);
+    }
+  }
+
+  private static List<String> readStrings(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    List<String> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(in.readUTF());
+    }
+    return result;
+  }
+
+  @VisibleForTesting
+  static boolean isStorable(MethodBehavior behavior) {
+    return behavior.yields.stream().allMatch(yield -> (yield instanceof HappyPathYield || yield.getClass() == ExceptionalYield.class)
+      && yield.parametersConstraints.stream().allMatch(BytecodeBehaviorStore::isStorable)
+      && (!(yield instanceof HappyPathYield) || isStorable(((HappyPathYield) yield).resultConstraint())));
+  }
+
+  private static boolean isStorable(@CheckForNull ConstraintsByDomain constraints) {
+    return constraints == null || constraints.stream().allMatch(constraint -> constraint instanceof TypedConstraint || ENUM_CONSTRAINTS.containsValue(constraint));
+  }
+
+  private static String encode(Constraint constraint) {
+    if (constraint instanceof TypedConstraint) {
+      return TYPED_CONSTRAINT_PREFIX + ((TypedConstraint) constraint).type;
+    }
+    Enum<?> enumConstraint = (Enum<?>) constraint;
+    return enumConstraint.getDeclaringClass().getName() + "#" + enumConstraint.name();
+  }
+
+  private static Constraint decode(String encoded) throws IOException {
+    if (encoded.startsWith(TYPED_CONSTRAINT_PREFIX)) {
+      return new TypedConstraint(encoded.substring(TYPED_CONSTRAINT_PREFIX.length()));
+    }
+    Constraint constraint = ENUM_CONSTRAINTS.get(encoded);
+    if (constraint == null) {
+      throw new IOException("Unknown constraint " + encoded);
+    }
+    return constraint;
+  }
+
+  private static Map<String, Constraint> enumConstraints(Constraint[]... domains) {
+    Map<String, Constraint> result = new HashMap<>();
+    for (Constraint[] constraints : domains) {
+      for (Constraint constraint : constraints) {
+        result.put(encode(constraint), constraint);
+      }
+    }
+    return result;
+  }
+
+  private static class StoredBehavior {
+    private final MethodBehavior behavior;
+    private final Map<String, String> dependencies;
+
+    StoredBehavior(MethodBehavior behavior, Map<String, String> dependencies) {
+      this.behavior = behavior;
+      this.dependencies = dependencies;
+    }
+  }
+}
@@ -50,8 +50,11 @@ public class MethodBehavior {
   final Set<MethodYield> yields;
   private final List<SymbolicValue> parameters;
   private final String signature;
-  private boolean complete = false;
-  private boolean visited = false;
+  /**
+   * Behaviors are published to other threads exploring methods concurrently once visited, see {@link BehaviorCache}.
+   */
+  private volatile boolean complete = false;
+  private volatile boolean visited = false;
   private List<String> declaredExceptions;
 
   public MethodBehavior(String signature, boolean varArgs) {
@@ -169,6 +172,13 @@ public class MethodBehavior {
     return ImmutableList.<MethodYield>builder().addAll(yields).build();
   }
 
+  /**
+   * Nodes of the exploded graph the yields were created from, which their flows are computed from.
+   */
+  public List<ExplodedGraph.Node> yieldNodes() {
+    return yields.stream().map(y -> y.node).filter(Objects::nonNull).collect(Collectors.toList());
+  }
+
   public Stream<ExceptionalYield> exceptionalPathYields() {
     return yields.stream()
       .filter(y -> y instanceof ExceptionalYield)
@@ -194,9 +204,17 @@ public class MethodBehavior {
   }
 
   public void completed() {
+    reduceYields();
     this.complete = true;
     this.visited = true;
-    reduceYields();
+  }
+
+  /**
+   * Restores a behavior whose yields have been computed by a previous analysis, see {@link BytecodeBehaviorStore}.
+   */
+  void restored(boolean complete) {
+    this.complete = complete;
+    this.visited = true;
   }
 
   private void reduceYields() {
@@ -0,0 +1,13 @@
+import java.util.Iterator;
+
+class LoopHeadWidening {
+
+  Object last(Iterator<Object> it) {
+    Object last = null;
+    while (it.hasNext()) {
+      last = it.next();
+    }
+    return last;
+  }
+
+}
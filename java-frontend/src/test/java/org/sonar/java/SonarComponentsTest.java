@@ -58,6 +58,8 @@ import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.Version;
+import org.sonar.java.se.ExplorationStrategy;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.plugins.java.api.CheckRegistrar;
 import org.sonar.plugins.java.api.JavaCheck;
 
@@ -473,4 +475,40 @@ public class SonarComponentsTest {
     sensorContext.setActiveRules(activeRules);
     assertThat(sonarComponents.shouldGenerateUCFG()).isTrue();
   }
+
+  @Test
+  public void symbolic_execution_limits_are_read_from_settings() {
+    SensorContextTester sensorContext = SensorContextTester.create(new File("src/test/files").getAbsoluteFile());
+    SonarComponents sonarComponents = new SonarComponents(null, null, null, null, null);
+    sonarComponents.setSensorContext(sensorContext);
+    SymbolicExecutionLimits limits = sonarComponents.symbolicExecutionLimits();
+    assertThat(limits.maxSteps()).isEqualTo(SymbolicExecutionLimits.DEFAULT_MAX_STEPS);
+    assertThat(limits.maxFlowSteps()).isEqualTo(SymbolicExecutionLimits.DEFAULT_MAX_FLOW_STEPS);
+    assertThat(limits.isDurationLimited()).isFalse();
+
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_MAX_STEPS_KEY, 1000);
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_MAX_NESTED_BOOLEAN_STATES_KEY, 100);
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_MAX_DEDUCED_RELATIONS_KEY, 200);
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_MAX_FLOW_STEPS_KEY, 300);
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_MAX_METHOD_DURATION_KEY, 400);
+    limits = sonarComponents.symbolicExecutionLimits();
+    assertThat(limits.maxSteps()).isEqualTo(1000);
+    assertThat(limits.maxNestedBooleanStates()).isEqualTo(100);
+    assertThat(limits.maxDeducedRelations()).isEqualTo(200);
+    assertThat(limits.maxFlowSteps()).isEqualTo(300);
+    assertThat(limits.maxMethodDurationMillis()).isEqualTo(400L);
+    assertThat(limits.explorationStrategy()).isEqualTo(ExplorationStrategy.DEPTH_FIRST);
+    assertThat(limits.loopHeadWidening()).isFalse();
+
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_EXPLORATION_STRATEGY_KEY, "program_order");
+    assertThat(sonarComponents.symbolicExecutionLimits().explorationStrategy()).isEqualTo(ExplorationStrategy.PROGRAM_ORDER);
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_EXPLORATION_STRATEGY_KEY, "random");
+    assertThat(sonarComponents.symbolicExecutionLimits().explorationStrategy()).isEqualTo(ExplorationStrategy.DEPTH_FIRST);
+    sensorContext.settings().setProperty(SonarComponents.SYMBOLIC_EXECUTION_LOOP_HEAD_WIDENING_KEY, true);
+    assertThat(sonarComponents.symbolicExecutionLimits().loopHeadWidening()).isTrue();
+
+    // budgets can not be changed in SonarLint
+    sensorContext.setRuntime(SonarRuntimeImpl.forSonarLint(Version.create(6, 7)));
+    assertThat(sonarComponents.symbolicExecutionLimits().maxSteps()).isEqualTo(SymbolicExecutionLimits.DEFAULT_MAX_STEPS);
+  }
 }
@@ -30,6 +30,8 @@ import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.junit.Before;
@@ -68,6 +70,7 @@ import org.sonar.sslr.grammar.GrammarRuleKey;
 import org.sonar.sslr.grammar.LexerlessGrammarBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -211,6 +214,62 @@ public class JavaAstScannerTest {
     assertThat(sonarComponent.analysisErrors.get(0).getKind()).isSameAs(AnalysisError.Kind.SE_ERROR);
   }
 
+  @Test
+  public void should_parse_files_ahead_on_several_threads_and_visit_them_in_order() {
+    SonarComponents sonarComponents = mock(SonarComponents.class);
+    when(sonarComponents.analysisThreads()).thenReturn(3);
+    when(sonarComponents.isSonarLintContext()).thenReturn(true);
+    when(sonarComponents.fileContent(any(File.class))).thenReturn("");
+    List<String> visitedFiles = new ArrayList<>();
+    FakeAuditListener listener = spy(new FakeAuditListener() {
+      @Override
+      public void scanFile(JavaFileScannerContext context) {
+        visitedFiles.add(context.getFile().getName());
+      }
+    });
+    JavaAstScanner scanner = new JavaAstScanner(JavaParser::createParser, sonarComponents);
+    scanner.setVisitorBridge(new VisitorsBridge(Lists.newArrayList(listener), Lists.newArrayList(), sonarComponents));
+    List<File> files = ImmutableList.of(
+      new File("src/test/files/metrics/Comments.java"),
+      new File("src/test/resources/AstScannerParseError.txt"),
+      new File("src/test/files/metrics/NoSonar.java"),
+      new File("src/test/files/metrics/Comments.java"),
+      new File("src/test/files/metrics/NoSonar.java"),
+      new File("src/test/files/metrics/Comments.java"),
+      new File("src/test/files/metrics/NoSonar.java"),
+      new File("src/test/files/metrics/Comments.java"));
+    scanner.scan(files);
+
+    assertThat(visitedFiles).containsExactly("Comments.java", "AstScannerParseError.txt", "NoSonar.java", "Comments.java", "NoSonar.java", "Comments.java", "NoSonar.java",
+      "Comments.java");
+    verify(listener).processRecognitionException(any(RecognitionException.class));
+  }
+
+  @Test
+  public void should_keep_interrupt_and_stop_analysis_when_interrupted_while_waiting_for_a_parsed_file() {
+    SonarComponents sonarComponents = mock(SonarComponents.class);
+    when(sonarComponents.analysisThreads()).thenReturn(2);
+    when(sonarComponents.isSonarLintContext()).thenReturn(true);
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    when(sonarComponents.fileContent(any(File.class))).thenAnswer(invocation -> {
+      neverReleased.await();
+      return "";
+    });
+    JavaAstScanner scanner = new JavaAstScanner(JavaParser::createParser, sonarComponents);
+    scanner.setVisitorBridge(new VisitorsBridge(Lists.newArrayList(), Lists.newArrayList(), sonarComponents));
+
+    Thread.currentThread().interrupt();
+    try {
+      scanner.scan(ImmutableList.of(new File("src/test/files/metrics/NoSonar.java")));
+      fail("analysis should have been stopped");
+    } catch (AnalysisException e) {
+      assertThat(e).hasMessage("Analysis cancelled").hasCauseInstanceOf(InterruptedException.class);
+      assertThat(Thread.currentThread().isInterrupted()).isTrue();
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
   @Test
   public void should_propagate_SOError() {
     thrown.expect(StackOverflowError.class);
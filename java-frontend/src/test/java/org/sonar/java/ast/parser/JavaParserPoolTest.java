@@ -0,0 +1,69 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.ast.parser;
+
+import com.sonar.sslr.api.typed.ActionParser;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JavaParserPoolTest {
+
+  @Test
+  public void parsers_are_reused_once_given_back() {
+    AtomicInteger createdParsers = new AtomicInteger();
+    JavaParserPool pool = new JavaParserPool(() -> {
+      createdParsers.incrementAndGet();
+      return JavaParser.createParser();
+    });
+    Tree first = pool.withParser(parser -> parser.parse("class A {}"));
+    Tree second = pool.withParser(parser -> parser.parse("class B {}"));
+    assertThat(first).isInstanceOf(CompilationUnitTree.class);
+    assertThat(second).isInstanceOf(CompilationUnitTree.class);
+    assertThat(createdParsers.get()).isEqualTo(1);
+    assertThat(pool.idleParsers()).isEqualTo(1);
+  }
+
+  @Test
+  public void parsers_are_not_shared_while_in_use() {
+    JavaParserPool pool = JavaParserPool.create();
+    ActionParser<Tree> outer = pool.withParser(parser -> {
+      ActionParser<Tree> inner = pool.withParser(innerParser -> innerParser);
+      assertThat(inner).isNotSameAs(parser);
+      return parser;
+    });
+    assertThat(pool.idleParsers()).isEqualTo(2);
+    assertThat(pool.withParser(parser -> parser)).isSameAs(outer);
+  }
+
+  @Test
+  public void parser_is_given_back_when_parsing_fails() {
+    JavaParserPool pool = JavaParserPool.create();
+    try {
+      pool.withParser(parser -> parser.parse("class {"));
+    } catch (RuntimeException e) {
+      // expected parse error
+    }
+    assertThat(pool.idleParsers()).isEqualTo(1);
+  }
+}
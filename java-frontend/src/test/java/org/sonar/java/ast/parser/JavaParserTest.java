@@ -20,10 +20,12 @@
 package org.sonar.java.ast.parser;
 
 import org.junit.Test;
+import org.sonar.java.model.JavaTree;
 import org.sonar.plugins.java.api.tree.ClassTree;
 import org.sonar.plugins.java.api.tree.CompilationUnitTree;
 import org.sonar.plugins.java.api.tree.MethodTree;
 import org.sonar.plugins.java.api.tree.Tree;
+import org.sonar.plugins.java.api.tree.VariableTree;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -40,6 +42,24 @@ public class JavaParserTest {
     assertThat(cut.parent()).isNull();
   }
 
+  @Test
+  public void token_ranges_should_be_computed() {
+    CompilationUnitTree cut = (CompilationUnitTree) JavaParser.createParser().parse("class A { int a, b = 1; void foo() {} }");
+    ClassTree classTree = (ClassTree) cut.types().get(0);
+    VariableTree a = (VariableTree) classTree.members().get(0);
+    VariableTree b = (VariableTree) classTree.members().get(1);
+    MethodTree method = (MethodTree) classTree.members().get(2);
+    assertThat(classTree.firstToken().text()).isEqualTo("class");
+    assertThat(classTree.lastToken().text()).isEqualTo("}");
+    assertThat(b.firstToken()).isSameAs(a.firstToken());
+    assertThat(b.lastToken().text()).isEqualTo(";");
+    assertThat(a.type().parent()).isSameAs(a);
+    assertThat(((JavaTree) method.modifiers()).firstToken()).isNull();
+    assertThat(method.firstToken().text()).isEqualTo("void");
+    assertThat(method.lastToken().text()).isEqualTo("}");
+    assertThat(cut.lastToken()).isSameAs(cut.eofToken());
+  }
+
   @Test
   public void receiver_type_should_be_parsed() throws Exception {
     try {
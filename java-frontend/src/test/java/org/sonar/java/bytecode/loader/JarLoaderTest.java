@@ -23,11 +23,17 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -36,6 +42,9 @@ public class JarLoaderTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   @Test
   public void shouldThrowIllegalArgumentException() throws Exception {
     thrown.expect(IllegalArgumentException.class);
@@ -88,6 +97,45 @@ public class JarLoaderTest {
     loader.loadBytes("META-INF/MANIFEST.MF");
   }
 
+  @Test
+  public void testPackages() throws Exception {
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+    JarLoader loader = new JarLoader(jar);
+    assertThat(loader.packages()).contains("META-INF", "org/sonar/tests", "META-INF/maven/org.sonar.tests/no-tests");
+    loader.close();
+  }
+
+  @Test
+  public void testStoredAndDeflatedEntries() throws Exception {
+    File jar = temp.newFile("entries.jar");
+    byte[] content = "stored and deflated content, stored and deflated content".getBytes(StandardCharsets.UTF_8);
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+      out.setComment("archive comment");
+      ZipEntry stored = new ZipEntry("org/foo/Stored.class");
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(content.length);
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      stored.setCrc(crc.getValue());
+      out.putNextEntry(stored);
+      out.write(content);
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("org/foo/bar/Deflated.class"));
+      out.write(content);
+      out.closeEntry();
+    }
+    JarLoader loader = new JarLoader(jar);
+
+    assertThat(loader.loadBytes("org/foo/Stored.class")).isEqualTo(content);
+    assertThat(loader.loadBytes("org/foo/bar/Deflated.class")).isEqualTo(content);
+    assertThat(loader.loadBytes("org/foo/Deflated.class")).isEmpty();
+    assertThat(loader.packages()).containsOnly("org/foo", "org/foo/bar");
+    try (InputStream is = loader.findResource("org/foo/bar/Deflated.class").openStream()) {
+      assertThat(IOUtils.toByteArray(is)).isEqualTo(content);
+    }
+    loader.close();
+  }
+
   @Test
   public void closeCanBeCalledMultipleTimes() throws Exception {
     File jar = new File("src/test/files/bytecode/lib/hello.jar");
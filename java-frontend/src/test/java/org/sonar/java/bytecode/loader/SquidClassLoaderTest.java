@@ -172,6 +172,49 @@ public class SquidClassLoaderTest {
     assertThat(Iterators.forEnumeration(classLoader.findResources("notfound"))).hasSize(0);
   }
 
+  @Test
+  public void lookups_only_query_loaders_holding_the_package() throws Exception {
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+    File aar = new File("src/test/files/classpath/lib/oklog-1.0.1.aar");
+    File dir = new File("src/test/files/bytecode/bin/");
+    classLoader = new SquidClassLoader(Arrays.asList(jar, aar, dir));
+
+    assertThat(classLoader.getResource("org/sonar/tests/Hello.class")).isNotNull();
+    assertThat(classLoader.statistics().lookups.sum()).isEqualTo(1);
+    // aar does not contain package org/sonar/tests, directory is not indexed
+    assertThat(classLoader.statistics().loadersSkipped.sum()).isEqualTo(1);
+
+    assertThat(classLoader.loadClass("tags.TagName")).isNotNull();
+    assertThat(classLoader.loadClass("com.github.simonpercic.oklog.BuildConfig")).isNotNull();
+    assertThat(classLoader.statistics().loadersSkipped.sum()).isEqualTo(4);
+  }
+
+  @Test
+  public void missing_resources_are_looked_up_only_once() throws Exception {
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+    classLoader = new SquidClassLoader(Arrays.asList(jar));
+
+    assertThat(classLoader.getResource("org/sonar/tests/Unknown.class")).isNull();
+    assertThat(classLoader.getBytesForClass("org.sonar.tests.Unknown")).isNull();
+    assertThat(classLoader.getResource("org/sonar/tests/Unknown.class")).isNull();
+    assertThat(classLoader.statistics().lookups.sum()).isEqualTo(1);
+    assertThat(classLoader.statistics().negativeCacheHits.sum()).isEqualTo(2);
+  }
+
+  @Test
+  public void missing_resources_cache_is_bounded() throws Exception {
+    File jar = new File("src/test/files/bytecode/lib/hello.jar");
+    classLoader = new SquidClassLoader(Arrays.asList(jar), 1);
+
+    assertThat(classLoader.getResource("org/sonar/tests/Unknown.class")).isNull();
+    assertThat(classLoader.getResource("org/sonar/tests/Unknown.class")).isNull();
+    assertThat(classLoader.statistics().negativeCacheHits.sum()).isEqualTo(1);
+    assertThat(classLoader.getResource("org/sonar/tests/Other.class")).isNull();
+    assertThat(classLoader.getResource("org/sonar/tests/Unknown.class")).isNull();
+    assertThat(classLoader.statistics().lookups.sum()).isEqualTo(3);
+    assertThat(classLoader.statistics().negativeCacheHits.sum()).isEqualTo(1);
+  }
+
   @Test
   public void closeCanBeCalledMultipleTimes() throws Exception {
     File jar = new File("src/test/files/bytecode/lib/hello.jar");
@@ -777,7 +777,7 @@ public class BytecodeEGWalkerExecuteTest {
     BytecodeCFG cfg = instr.cfg();
 
     CFG.IBlock<Instruction> entry = cfg.entry();
-    BytecodeEGWalker walker = new BytecodeEGWalker(null, null);
+    BytecodeEGWalker walker = new BytecodeEGWalker(new BehaviorCache(squidClassLoader), null);
     walker.programState = ProgramState.EMPTY_STATE.stackValue(new SymbolicValue());
     walker.handleBlockExit(new ProgramPoint(entry));
 
@@ -815,7 +815,7 @@ public class BytecodeEGWalkerExecuteTest {
     BytecodeCFG cfg = instr.cfg();
 
     CFG.IBlock<Instruction> entry = cfg.entry();
-    BytecodeEGWalker walker = new BytecodeEGWalker(null, null);
+    BytecodeEGWalker walker = new BytecodeEGWalker(new BehaviorCache(squidClassLoader), null);
     walker.programState = ProgramState.EMPTY_STATE.stackValue(new SymbolicValue());
     walker.handleBlockExit(new ProgramPoint(entry));
 
@@ -187,7 +187,7 @@ public class BytecodeEGWalkerTest {
 
   @Test
   public void test_starting_states() throws Exception {
-    BytecodeEGWalker walker = new BytecodeEGWalker(null, semanticModel);
+    BytecodeEGWalker walker = new BytecodeEGWalker(new BehaviorCache(squidClassLoader), semanticModel);
 
     String signature = "type#foo()V";
     walker.methodBehavior = new MethodBehavior(signature);
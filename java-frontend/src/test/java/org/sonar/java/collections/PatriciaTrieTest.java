@@ -0,0 +1,154 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PatriciaTrieTest {
+
+  private static final class Key {
+    private final int hashCode;
+    private final String toString;
+
+    private Key(int hashCode, String toString) {
+      this.hashCode = hashCode;
+      this.toString = toString;
+    }
+
+    @Override
+    public final int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public final String toString() {
+      return toString;
+    }
+  }
+
+  @Test
+  public void empty() {
+    PMap<Object, Object> empty = PatriciaTrie.create();
+    assertThat(empty.isEmpty()).isTrue();
+    assertThat(empty.get("k")).isNull();
+    assertThat(empty.remove("k")).isSameAs(empty);
+    assertThat(empty.toString()).isEmpty();
+    assertThat(empty.hashCode()).isZero();
+    assertThat(empty).isEqualTo(PCollections.emptyHashTrieMap());
+    assertThat(empty.put("k", "v").remove("k")).isSameAs(empty);
+  }
+
+  @Test
+  public void put_get_remove() {
+    PMap<Integer, String> map = PatriciaTrie.create();
+    map = map.put(1, "a").put(-1, "b").put(Integer.MIN_VALUE, "c").put(Integer.MAX_VALUE, "d").put(0, "e");
+    assertThat(map.isEmpty()).isFalse();
+    assertThat(map.get(1)).isEqualTo("a");
+    assertThat(map.get(-1)).isEqualTo("b");
+    assertThat(map.get(Integer.MIN_VALUE)).isEqualTo("c");
+    assertThat(map.get(Integer.MAX_VALUE)).isEqualTo("d");
+    assertThat(map.get(0)).isEqualTo("e");
+    assertThat(map.get(2)).isNull();
+    assertThat(map.put(1, "a")).isSameAs(map);
+    assertThat(map.remove(2)).isSameAs(map);
+    assertThat(map.put(1, "z").get(1)).isEqualTo("z");
+    assertThat(map.remove(1).get(1)).isNull();
+    assertThat(map.remove(1).get(-1)).isEqualTo("b");
+  }
+
+  @Test
+  public void iteration_in_ascending_order_of_hash_codes() {
+    PMap<Integer, String> map = PatriciaTrie.create();
+    map = map.put(3, "a").put(-7, "b").put(Integer.MAX_VALUE, "c").put(Integer.MIN_VALUE, "d").put(0, "e");
+    List<Integer> keys = new ArrayList<>();
+    map.forEach((k, v) -> keys.add(k));
+    assertThat(keys).containsExactly(Integer.MIN_VALUE, -7, 0, 3, Integer.MAX_VALUE);
+    assertThat(map.toString()).isEqualTo(" -2147483648->d -7->b 0->e 3->a 2147483647->c");
+  }
+
+  @Test
+  public void buckets() {
+    Object k1 = new Key(42, "k1");
+    Object k2 = new Key(42, "k2");
+    Object k3 = new Key(42, "k3");
+    PMap<Object, Object> map = PatriciaTrie.create();
+    map = map.put(k1, "v1").put(k2, "v2").put(k3, "v3").put(new Key(7, "k4"), "v4");
+    assertThat(map.get(k1)).isEqualTo("v1");
+    assertThat(map.get(k2)).isEqualTo("v2");
+    assertThat(map.get(k3)).isEqualTo("v3");
+    assertThat(map.get(new Key(42, "other"))).isNull();
+    assertThat(map.put(k2, "v2")).isSameAs(map);
+    assertThat(map.put(k2, "new").get(k2)).isEqualTo("new");
+    assertThat(map.put(k2, "new").get(k1)).isEqualTo("v1");
+
+    PMap<Object, Object> withoutK2 = map.remove(k2);
+    assertThat(withoutK2.get(k2)).isNull();
+    assertThat(withoutK2.get(k1)).isEqualTo("v1");
+    assertThat(withoutK2.get(k3)).isEqualTo("v3");
+    assertThat(withoutK2.remove(new Key(42, "other"))).isSameAs(withoutK2);
+    assertThat(withoutK2.remove(k1).remove(k3).get(new Key(7, "k4"))).isNull();
+
+    // buckets are compared as sets
+    PMap<Object, Object> other = PatriciaTrie.create();
+    other = other.put(new Key(7, "k4"), "v4").put(k3, "v3").put(k1, "v1").put(k2, "v2");
+    assertThat(other).isEqualTo(map);
+    assertThat(other.hashCode()).isEqualTo(map.hashCode());
+    assertThat(other.put(k1, "x")).isNotEqualTo(map);
+    assertThat(other.remove(k1)).isNotEqualTo(map);
+  }
+
+  @Test
+  public void equality_does_not_depend_on_insertion_order() {
+    Random random = new Random(42);
+    Map<Integer, Integer> expected = new HashMap<>();
+    PMap<Integer, Integer> map = PatriciaTrie.create();
+    for (int i = 0; i < 1000; i++) {
+      int key = random.nextInt(200) - 100;
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.remove(key);
+      } else {
+        expected.put(key, i);
+        map = map.put(key, i);
+      }
+    }
+    PMap<Integer, Integer> copy = PatriciaTrie.create();
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      copy = copy.put(entry.getKey(), entry.getValue());
+    }
+    Map<Integer, Integer> actual = new HashMap<>();
+    map.forEach(actual::put);
+    assertThat(actual).isEqualTo(expected);
+    assertThat(map).isEqualTo(copy);
+    assertThat(map.hashCode()).isEqualTo(copy.hashCode());
+    assertThat(map).isNotEqualTo(copy.put(1000, 0));
+    assertThat(map).isNotEqualTo(null);
+    assertThat(map.equals(map)).isTrue();
+  }
+
+}
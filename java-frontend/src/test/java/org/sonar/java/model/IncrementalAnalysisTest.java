@@ -0,0 +1,227 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.java.JavaClasspath;
+import org.sonar.java.JavaSquid;
+import org.sonar.java.JavaTestClasspath;
+import org.sonar.java.SonarComponents;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
+import org.sonar.plugins.java.api.JavaCheck;
+import org.sonar.plugins.java.api.JavaFileScannerContext;
+import org.sonar.plugins.java.api.JavaResourceLocator;
+import org.sonar.plugins.java.api.tree.ClassTree;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IncrementalAnalysisTest {
+
+  private static final String REPOSITORY = "incremental";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File baseDir;
+  private File workDir;
+  private File classpathDir;
+
+  @Before
+  public void setUp() throws Exception {
+    baseDir = temp.newFolder("src");
+    workDir = temp.newFolder("work");
+    classpathDir = temp.newFolder("bin");
+    ClassDeclarationCheck.scannedFiles = 0;
+  }
+
+  @Test
+  public void issues_of_unchanged_files_are_replayed() throws Exception {
+    write("A.java", "class A {}\n");
+    write("B.java", "class B {\n  class Inner {}\n}\n");
+
+    SensorContextTester context = analyze("A.java", "B.java");
+    assertThat(ClassDeclarationCheck.scannedFiles).isEqualTo(2);
+    assertThat(context.allIssues()).hasSize(3);
+
+    ClassDeclarationCheck.scannedFiles = 0;
+    context = analyze("A.java", "B.java");
+    assertThat(ClassDeclarationCheck.scannedFiles).isZero();
+    assertThat(context.allIssues()).hasSize(3);
+    assertThat(context.allIssues()).extracting(issue -> issue.primaryLocation().message()).containsOnly("class A", "class B", "class Inner");
+    Issue inner = context.allIssues().stream().filter(issue -> "class Inner".equals(issue.primaryLocation().message())).findFirst().get();
+    assertThat(inner.primaryLocation().textRange().start().line()).isEqualTo(2);
+    assertThat(inner.ruleKey()).isEqualTo(RuleKey.of(REPOSITORY, "ClassDeclaration"));
+
+    write("B.java", "class B {}\n");
+    ClassDeclarationCheck.scannedFiles = 0;
+    context = analyze("A.java", "B.java");
+    assertThat(ClassDeclarationCheck.scannedFiles).isEqualTo(1);
+    assertThat(context.allIssues()).extracting(issue -> issue.primaryLocation().message()).containsOnly("class A", "class B");
+  }
+
+  @Test
+  public void files_are_checked_again_when_a_dependency_changes() throws Exception {
+    File compiledDependency = new File("target/test-classes/org/sonar/java/bytecode/se/testdata/BytecodeTestClass.class");
+    File dependency = new File(classpathDir, "org/sonar/java/bytecode/se/testdata/BytecodeTestClass.class");
+    Files.createDirectories(dependency.getParentFile().toPath());
+    Files.copy(compiledDependency.toPath(), dependency.toPath());
+    write("A.java", "class A {\n  org.sonar.java.bytecode.se.testdata.BytecodeTestClass field;\n}\n");
+    write("B.java", "class B {}\n");
+
+    analyze("A.java", "B.java");
+    assertThat(ClassDeclarationCheck.scannedFiles).isEqualTo(2);
+
+    ClassDeclarationCheck.scannedFiles = 0;
+    analyze("A.java", "B.java");
+    assertThat(ClassDeclarationCheck.scannedFiles).isZero();
+
+    Files.delete(dependency.toPath());
+    ClassDeclarationCheck.scannedFiles = 0;
+    SensorContextTester context = analyze("A.java", "B.java");
+    assertThat(ClassDeclarationCheck.scannedFiles).isEqualTo(1);
+    assertThat(context.allIssues()).hasSize(2);
+  }
+
+  @Test
+  public void results_of_another_configuration_are_discarded() throws Exception {
+    write("A.java", "class A {}\n");
+    analyze("A.java");
+
+    ClassDeclarationCheck.scannedFiles = 0;
+    SensorContextTester context = createContext();
+    SonarComponents sonarComponents = sonarComponents(context);
+    sonarComponents.registerCheckClasses(REPOSITORY, Collections.<Class<? extends JavaCheck>>singletonList(ClassDeclarationCheck.class));
+    JavaSquid javaSquid = new JavaSquid(new JavaVersionImpl(7), sonarComponents, null, mock(JavaResourceLocator.class), null, sonarComponents.checkClasses());
+    javaSquid.scan(Collections.singletonList(addFile("A.java", context)), Collections.emptyList());
+    assertThat(ClassDeclarationCheck.scannedFiles).isEqualTo(1);
+  }
+
+  @Test
+  public void class_hashes() throws Exception {
+    File compiledDependency = new File("target/test-classes/org/sonar/java/bytecode/se/testdata/BytecodeTestClass.class");
+    File dependency = new File(classpathDir, "org/sonar/java/bytecode/se/testdata/BytecodeTestClass.class");
+    Files.createDirectories(dependency.getParentFile().toPath());
+    Files.copy(compiledDependency.toPath(), dependency.toPath());
+    SonarComponents sonarComponents = sonarComponents(createContext());
+    try (SquidClassLoader classLoader = new SquidClassLoader(Collections.singletonList(classpathDir))) {
+      IncrementalAnalysis incrementalAnalysis = new IncrementalAnalysis(new File(workDir, "store.json"), "", sonarComponents, classLoader);
+      assertThat(incrementalAnalysis.classHash("java.lang.Object")).isEqualTo("jdk");
+      assertThat(incrementalAnalysis.classHash("org.foo.Unknown")).isEqualTo("absent");
+      assertThat(incrementalAnalysis.classHash("org.sonar.java.bytecode.se.testdata.BytecodeTestClass")).hasSize(64);
+    }
+  }
+
+  private SensorContextTester analyze(String... files) throws IOException {
+    SensorContextTester context = createContext();
+    SonarComponents sonarComponents = sonarComponents(context);
+    sonarComponents.registerCheckClasses(REPOSITORY, Collections.<Class<? extends JavaCheck>>singletonList(ClassDeclarationCheck.class));
+    List<File> sourceFiles = new ArrayList<>();
+    for (String file : files) {
+      sourceFiles.add(addFile(file, context));
+    }
+    JavaSquid javaSquid = new JavaSquid(new JavaVersionImpl(), sonarComponents, null, mock(JavaResourceLocator.class), null, sonarComponents.checkClasses());
+    javaSquid.scan(sourceFiles, Collections.emptyList());
+    return context;
+  }
+
+  private SensorContextTester createContext() {
+    SensorContextTester context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir.toPath());
+    context.settings().setProperty(SonarComponents.INCREMENTAL_ANALYSIS_KEY, true);
+    context.setActiveRules(new ActiveRulesBuilder().create(RuleKey.of(REPOSITORY, "ClassDeclaration")).activate().build());
+    return context;
+  }
+
+  private SonarComponents sonarComponents(SensorContextTester context) {
+    FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+    when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
+    JavaClasspath javaClasspath = mock(JavaClasspath.class);
+    when(javaClasspath.getElements()).thenReturn(Collections.singletonList(classpathDir));
+    SonarComponents sonarComponents = new SonarComponents(fileLinesContextFactory, context.fileSystem(), javaClasspath, mock(JavaTestClasspath.class),
+      new CheckFactory(context.activeRules()));
+    sonarComponents.setSensorContext(context);
+    sonarComponents.setRuleRepositoryKey(REPOSITORY);
+    return sonarComponents;
+  }
+
+  private void write(String name, String code) throws IOException {
+    Files.write(new File(baseDir, name).toPath(), code.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private File addFile(String name, SensorContextTester context) throws IOException {
+    File file = new File(baseDir, name).getAbsoluteFile();
+    DefaultInputFile inputFile = new TestInputFileBuilder(baseDir.getAbsolutePath(), name)
+      .setLanguage("java")
+      .initMetadata(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+      .setCharset(StandardCharsets.UTF_8)
+      .build();
+    context.fileSystem().add(inputFile);
+    return file;
+  }
+
+  @org.sonar.check.Rule(key = "ClassDeclaration")
+  public static class ClassDeclarationCheck extends IssuableSubscriptionVisitor {
+
+    private static int scannedFiles = 0;
+
+    @Override
+    public List<Tree.Kind> nodesToVisit() {
+      return ImmutableList.of(Tree.Kind.CLASS);
+    }
+
+    @Override
+    public void scanFile(JavaFileScannerContext context) {
+      scannedFiles++;
+      super.scanFile(context);
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      ClassTree classTree = (ClassTree) tree;
+      reportIssue(classTree.simpleName(), "class " + classTree.simpleName().name());
+    }
+  }
+}
@@ -90,6 +90,7 @@ import org.sonar.plugins.java.api.tree.WhileStatementTree;
 import org.sonar.plugins.java.api.tree.WildcardTree;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 public class JavaTreeModelTest {
 
@@ -104,6 +105,25 @@ public class JavaTreeModelTest {
     assertThat(((JavaTree) classTree.modifiers()).getLine()).isEqualTo(-1);
   }
 
+  @Test
+  public void children_of_tree() {
+    ClassTree classTree = firstType("class A { void f() {} }");
+    JavaTree javaTree = (JavaTree) classTree;
+    List<Tree> children = javaTree.getChildren();
+    assertThat(javaTree.childrenCount()).isEqualTo(children.size());
+    for (int i = 0; i < javaTree.childrenCount(); i++) {
+      assertThat(javaTree.child(i)).isSameAs(children.get(i)).isNotNull();
+    }
+    assertThat(children).contains(classTree.modifiers(), classTree.simpleName(), classTree.members().get(0));
+    assertThat(((JavaTree) classTree.modifiers()).childrenCount()).isZero();
+    try {
+      children.clear();
+      fail("children should not be modifiable");
+    } catch (UnsupportedOperationException e) {
+      assertThat(javaTree.childrenCount()).isEqualTo(children.size());
+    }
+  }
+
   @Test
   public void explicit_generic_invocation() {
     p.parse("class A { void f() { <A>foo(); } }");
@@ -0,0 +1,107 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.model;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PerformanceMeasureTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private final File a = new File("A.java");
+  private final File b = new File("B.java");
+
+  @Test
+  public void report_cumulated_and_max_times() throws Exception {
+    PerformanceMeasure measure = new PerformanceMeasure();
+    measure.add(PerformanceMeasure.Phase.PARSE, a, millis(3));
+    measure.add(PerformanceMeasure.Phase.PARSE, b, millis(5));
+    measure.add(PerformanceMeasure.Phase.SEMANTIC, a, millis(7));
+    measure.addScanner("squid:S1", a, millis(2));
+    measure.addScanner("squid:S1", b, millis(4));
+    measure.addScanner("squid:S2", a, millis(10));
+    measure.addAnalysis(a, millis(20));
+    measure.addAnalysis(b, millis(6));
+
+    JsonObject report = save(measure);
+
+    JsonObject parse = report.getAsJsonObject("phases").getAsJsonObject("parse");
+    assertThat(parse.get("total").getAsDouble()).isEqualTo(8.0);
+    assertThat(parse.get("max").getAsDouble()).isEqualTo(5.0);
+    assertThat(parse.get("maxFile").getAsString()).isEqualTo(b.getPath());
+    assertThat(parse.get("files").getAsInt()).isEqualTo(2);
+    assertThat(report.getAsJsonObject("phases").getAsJsonObject("semantic").get("files").getAsInt()).isEqualTo(1);
+    assertThat(report.getAsJsonObject("phases").getAsJsonObject("symbolicExecution").get("files").getAsInt()).isZero();
+    assertThat(report.getAsJsonObject("phases").getAsJsonObject("checks").get("total").getAsDouble()).isEqualTo(16.0);
+
+    // slowest scanners and files come first
+    JsonObject scanners = report.getAsJsonObject("scanners");
+    assertThat(keys(scanners)).containsExactly("squid:S2", "squid:S1");
+    assertThat(scanners.getAsJsonObject("squid:S1").get("total").getAsDouble()).isEqualTo(6.0);
+    assertThat(scanners.getAsJsonObject("squid:S1").get("max").getAsDouble()).isEqualTo(4.0);
+    JsonObject files = report.getAsJsonObject("files");
+    assertThat(keys(files)).containsExactly(a.getPath(), b.getPath());
+    assertThat(files.getAsJsonObject(a.getPath()).get("total").getAsDouble()).isEqualTo(23.0);
+    assertThat(files.getAsJsonObject(a.getPath()).get("checks").getAsDouble()).isEqualTo(12.0);
+    assertThat(files.getAsJsonObject(b.getPath()).get("total").getAsDouble()).isEqualTo(11.0);
+  }
+
+  @Test
+  public void unable_to_write_report() throws Exception {
+    File notADirectory = temp.newFile();
+    new PerformanceMeasure().save(new File(notADirectory, "performance-measure.json"));
+    assertThat(logTester.logs(LoggerLevel.WARN)).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.WARN).get(0)).startsWith("Unable to write performance measures of the analysis to");
+  }
+
+  private JsonObject save(PerformanceMeasure measure) throws IOException {
+    File reportFile = new File(temp.getRoot(), "work/performance-measure.json");
+    measure.save(reportFile);
+    return new JsonParser().parse(new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8)).getAsJsonObject();
+  }
+
+  private static List<String> keys(JsonObject object) {
+    return object.entrySet().stream().map(Map.Entry::getKey).collect(Collectors.toList());
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
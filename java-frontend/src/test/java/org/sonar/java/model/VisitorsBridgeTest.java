@@ -23,8 +23,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.sonar.sslr.api.RecognitionException;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.IntFunction;
@@ -34,11 +37,13 @@ import javax.annotation.Nullable;
 import org.assertj.core.api.Fail;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.ast.visitors.SubscriptionVisitor;
 import org.sonar.java.resolve.SemanticModel;
 import org.sonar.plugins.java.api.IssuableSubscriptionVisitor;
 import org.sonar.plugins.java.api.JavaFileScanner;
@@ -54,6 +59,9 @@ public class VisitorsBridgeTest {
   @Rule
   public LogTester logTester = new LogTester();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void test_semantic_exclusions() {
     VisitorsBridge visitorsBridgeWithoutSemantic = new VisitorsBridge(Collections.singletonList((JavaFileScanner) context -> {
@@ -103,6 +111,154 @@ public class VisitorsBridgeTest {
     );
   }
 
+  @Test
+  public void subscription_visitors_are_executed_during_a_single_visit() {
+    List<String> events = new ArrayList<>();
+    SubscriptionVisitor methodVisitor = new RecordingVisitor("method", Tree.Kind.METHOD, events);
+    IssuableSubscriptionVisitor classVisitor = new IssuableSubscriptionVisitor() {
+      @Override
+      public List<Kind> nodesToVisit() {
+        return ImmutableList.of(Tree.Kind.CLASS);
+      }
+
+      @Override
+      public void setContext(JavaFileScannerContext context) {
+        super.setContext(context);
+        events.add("class: setContext");
+      }
+
+      @Override
+      public void visitNode(Tree tree) {
+        events.add("class: visit");
+      }
+
+      @Override
+      public void leaveFile(JavaFileScannerContext context) {
+        events.add("class: leaveFile");
+      }
+    };
+    JavaFileScanner scanner = context -> events.add("scanner: scanFile");
+    checkFile("Foo.java", "class Foo { void foo() {} }", new VisitorsBridge(Arrays.asList(methodVisitor, classVisitor, scanner), Lists.newArrayList(), null));
+
+    // visitors which are not checks are set up before the execution of other scanners, as NOSONAR lines have to be known first
+    assertThat(events).containsExactly(
+      "method: setContext",
+      "scanner: scanFile",
+      "class: setContext",
+      "class: visit",
+      "method: visit",
+      "method: leave",
+      "method: leaveFile",
+      "class: leaveFile");
+  }
+
+  @Test
+  public void subscription_visitors_driving_the_visit_are_executed_separately() {
+    List<String> events = new ArrayList<>();
+    SubscriptionVisitor visitor = new RecordingVisitor("method", Tree.Kind.METHOD, events) {
+      @Override
+      public void scanFile(JavaFileScannerContext context) {
+        events.add("method: scanFile");
+        super.scanFile(context);
+      }
+    };
+    checkFile("Foo.java", "class Foo { void foo() {} }", new VisitorsBridge(visitor));
+
+    assertThat(events).containsExactly(
+      "method: scanFile",
+      "method: setContext",
+      "method: visit",
+      "method: leave",
+      "method: leaveFile");
+  }
+
+  @Test
+  public void time_spent_by_each_scanner_is_measured() throws Exception {
+    List<String> events = new ArrayList<>();
+    SubscriptionVisitor methodVisitor = new RecordingVisitor("method", Tree.Kind.METHOD, events);
+    JavaFileScanner scanner = context -> events.add("scanner: scanFile");
+    VisitorsBridge visitorsBridge = new VisitorsBridge(Arrays.asList(methodVisitor, scanner), Lists.newArrayList(), null);
+    PerformanceMeasure performanceMeasure = new PerformanceMeasure();
+    visitorsBridge.enablePerformanceMeasure(performanceMeasure);
+    assertThat(visitorsBridge.performanceMeasure()).isSameAs(performanceMeasure);
+    checkFile("Foo.java", "class Foo { void foo() {} }", visitorsBridge);
+
+    // measured visitors are executed exactly as without measure
+    assertThat(events).containsExactly(
+      "method: setContext",
+      "scanner: scanFile",
+      "method: visit",
+      "method: leave",
+      "method: leaveFile");
+
+    File report = temporaryFolder.newFile();
+    performanceMeasure.save(report);
+    String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+    assertThat(content)
+      .contains("\"semantic\"", "\"checks\"", "\"Foo.java\"")
+      .contains("\"" + methodVisitor.getClass().getName() + "\"", "\"" + scanner.getClass().getName() + "\"");
+  }
+
+  @Test
+  public void analyzed_files_are_released() throws Exception {
+    List<JavaFileScannerContext> contexts = new ArrayList<>();
+    List<SemanticModel> semanticModels = new ArrayList<>();
+    List<Tree> classes = new ArrayList<>();
+    JavaFileScanner scanner = context -> {
+      contexts.add(context);
+      semanticModels.add((SemanticModel) context.getSemanticModel());
+      classes.add(context.getTree().types().get(0));
+    };
+    VisitorsBridge visitorsBridge = new VisitorsBridge(Collections.singletonList(scanner), Lists.newArrayList(), null);
+    checkFile("Foo.java", "class Foo {}", visitorsBridge);
+    assertThat(contexts.get(0).getTree()).isNotNull();
+    assertThat(semanticModels.get(0).getSymbol(classes.get(0))).isNotNull();
+
+    visitorsBridge.enableReleaseOfAnalyzedFiles();
+    checkFile("Bar.java", "class Bar {}", visitorsBridge);
+    assertThat(contexts.get(1).getTree()).isNull();
+    assertThat(contexts.get(1).getSemanticModel()).isNull();
+    assertThat(semanticModels.get(1).getSymbol(classes.get(1))).isNull();
+  }
+
+  private static class RecordingVisitor extends SubscriptionVisitor {
+    private final String name;
+    private final Tree.Kind kind;
+    private final List<String> events;
+
+    RecordingVisitor(String name, Tree.Kind kind, List<String> events) {
+      this.name = name;
+      this.kind = kind;
+      this.events = events;
+    }
+
+    @Override
+    public List<Kind> nodesToVisit() {
+      return ImmutableList.of(kind);
+    }
+
+    @Override
+    public void setContext(JavaFileScannerContext context) {
+      super.setContext(context);
+      events.add(name + ": setContext");
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      events.add(name + ": visit");
+    }
+
+    @Override
+    public void leaveNode(Tree tree) {
+      events.add(name + ": leave");
+    }
+
+    @Override
+    public void leaveFile(JavaFileScannerContext context) {
+      events.add(name + ": leaveFile");
+    }
+  }
+
   private static String contstructFileName(String... path) {
     String result = "";
     for (String s : path) {
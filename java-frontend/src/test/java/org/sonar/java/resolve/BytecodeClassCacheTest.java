@@ -0,0 +1,105 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.resolve;
+
+import com.google.common.collect.Lists;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.objectweb.asm.tree.ClassNode;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+import org.sonar.plugins.java.api.semantic.Symbol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BytecodeClassCacheTest {
+
+  private final SquidClassLoader classLoader = new SquidClassLoader(Lists.newArrayList(new File("target/test-classes"), new File("target/classes")));
+
+  @Test
+  public void class_structure_is_read_only_once() {
+    BytecodeClassCache classCache = new BytecodeClassCache(classLoader);
+    ClassNode classNode = classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass");
+    assertThat(classNode).isNotNull();
+    assertThat(classNode.name).isEqualTo("org/sonar/java/resolve/targets/HasInnerClass");
+    assertThat(classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass")).isSameAs(classNode);
+    assertThat(classCache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void missing_classes_are_cached() {
+    BytecodeClassCache classCache = new BytecodeClassCache(classLoader);
+    assertThat(classCache.classNode("org.foo.Unknown")).isNull();
+    assertThat(classCache.classNode("org.foo.Unknown")).isNull();
+    assertThat(classCache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void least_recently_used_classes_are_evicted() {
+    BytecodeClassCache classCache = new BytecodeClassCache(classLoader, 2);
+    ClassNode hasInnerClass = classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass");
+    classCache.classNode("org.sonar.java.resolve.targets.AnonymousClass");
+    assertThat(classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass")).isSameAs(hasInnerClass);
+    classCache.classNode("org.sonar.java.resolve.targets.Annotations");
+    assertThat(classCache.size()).isEqualTo(2);
+    assertThat(classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass")).isSameAs(hasInnerClass);
+  }
+
+  @Test
+  public void classes_read_concurrently_are_shared() throws Exception {
+    BytecodeClassCache classCache = new BytecodeClassCache(classLoader);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<ClassNode>> classNodes = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        classNodes.add(executor.submit(() -> classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass")));
+      }
+      ClassNode classNode = classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass");
+      for (Future<ClassNode> future : classNodes) {
+        assertThat(future.get()).isSameAs(classNode);
+      }
+      assertThat(classCache.size()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void symbols_are_not_shared_between_completers() {
+    BytecodeClassCache classCache = new BytecodeClassCache(classLoader);
+    BytecodeCompleter completer1 = new BytecodeCompleter(classCache, new ParametrizedTypeCache());
+    new Symbols(completer1);
+    BytecodeCompleter completer2 = new BytecodeCompleter(classCache, new ParametrizedTypeCache());
+    new Symbols(completer2);
+
+    JavaSymbol.TypeJavaSymbol symbol1 = completer1.getClassSymbol("org.sonar.java.resolve.targets.HasInnerClass");
+    JavaSymbol.TypeJavaSymbol symbol2 = completer2.getClassSymbol("org.sonar.java.resolve.targets.HasInnerClass");
+    symbol1.complete();
+    symbol2.complete();
+
+    assertThat(symbol1).isNotSameAs(symbol2);
+    assertThat(symbol1.memberSymbols().stream().map(Symbol::name)).containsExactlyInAnyOrder(symbol2.memberSymbols().stream().map(Symbol::name).toArray(String[]::new));
+    assertThat(classCache.classNode("org.sonar.java.resolve.targets.HasInnerClass")).isNotNull();
+  }
+}
@@ -24,9 +24,11 @@ import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class JavaSymbolTest {
   private static final JavaSymbol.PackageJavaSymbol P_PACKAGE_JAVA_SYMBOL = new JavaSymbol.PackageJavaSymbol(null, null);
@@ -43,12 +45,29 @@ public class JavaSymbolTest {
   public void completion_should_use_completer() {
     JavaSymbol symbol = new JavaSymbol(0, 0, null, null);
     JavaSymbol.Completer completer = mock(JavaSymbol.Completer.class);
+    when(completer.completionLock()).thenReturn(completer);
     symbol.completer = completer;
     symbol.complete();
     verify(completer).complete(symbol);
     assertThat(symbol.completer).isNull();
   }
 
+  @Test
+  public void completer_should_be_cleared_before_completion() {
+    JavaSymbol symbol = new JavaSymbol(0, 0, null, null);
+    JavaSymbol.Completer completer = mock(JavaSymbol.Completer.class);
+    when(completer.completionLock()).thenReturn(completer);
+    doAnswer(invocation -> {
+      assertThat(symbol.completer).isNull();
+      // completing again while completing is a no-op
+      symbol.complete();
+      return null;
+    }).when(completer).complete(symbol);
+    symbol.completer = completer;
+    symbol.complete();
+    verify(completer).complete(symbol);
+  }
+
   @Test
   public void test_PackageSymbol() {
     JavaSymbol owner = mock(JavaSymbol.class);
@@ -19,6 +19,9 @@
  */
 package org.sonar.java.se;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -54,6 +57,32 @@ public class ExplodedGraphTest {
     assertThat(child.parents()).hasSize(2);
   }
 
+  @Test
+  public void test_compact() {
+    ExplodedGraph eg = new ExplodedGraph();
+    ProgramPoint programPoint = mockProgramPoint("pp");
+    ExplodedGraph.Node start = eg.node(mockProgramPoint("start"), null);
+    ExplodedGraph.Node otherStart = eg.node(mockProgramPoint("otherStart"), null);
+    ExplodedGraph.Node root = eg.node(programPoint, mock(ProgramState.class));
+    root.addParent(start, null);
+    root.addParent(otherStart, null);
+    ExplodedGraph.Node sibling = eg.node(programPoint, mock(ProgramState.class));
+    sibling.addParent(start, null);
+    ExplodedGraph.Node unreachable = eg.node(mockProgramPoint("unreachable"), null);
+    unreachable.addParent(start, null);
+
+    List<ExplodedGraph.Node> parents = new ArrayList<>(root.parents());
+
+    eg.compact(Collections.singletonList(root));
+
+    assertThat(eg.nodes()).isEmpty();
+    assertThat(parents).containsOnly(start, otherStart);
+    assertThat(root.parents()).containsExactlyElementsOf(parents);
+    assertThat(root.siblings()).containsExactly(sibling);
+    assertThat(sibling.edges()).isEmpty();
+    assertThat(unreachable.siblings()).isEmpty();
+  }
+
   private ProgramPoint mockProgramPoint(String toString) {
     ProgramPoint mock = mock(ProgramPoint.class);
     when(mock.toString()).thenReturn(toString);
@@ -0,0 +1,54 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import org.junit.Test;
+import org.sonar.java.se.xproc.MethodBehavior;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.java.se.SETestUtils.createSymbolicExecutionVisitor;
+
+public class ExplorationStrategyTest {
+
+  @Test
+  public void fully_explored_methods_have_the_same_behaviors_whatever_the_strategy() {
+    Map<String, MethodBehavior> depthFirst = behaviors(ExplorationStrategy.DEPTH_FIRST);
+    assertThat(depthFirst).isNotEmpty();
+    for (ExplorationStrategy strategy : ExplorationStrategy.values()) {
+      Map<String, MethodBehavior> behaviors = behaviors(strategy);
+      assertThat(behaviors.keySet()).isEqualTo(depthFirst.keySet());
+      behaviors.forEach((signature, behavior) -> {
+        MethodBehavior expected = depthFirst.get(signature);
+        assertThat(behavior.isComplete()).as(signature).isEqualTo(expected.isComplete());
+        assertThat(behavior.yields()).as(signature).hasSameElementsAs(expected.yields());
+      });
+    }
+  }
+
+  private static Map<String, MethodBehavior> behaviors(ExplorationStrategy strategy) {
+    SymbolicExecutionLimits limits = new SymbolicExecutionLimits(SymbolicExecutionLimits.DEFAULT_MAX_STEPS,
+      SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES, SymbolicExecutionLimits.DEFAULT_MAX_DEDUCED_RELATIONS,
+      SymbolicExecutionLimits.DEFAULT_MAX_FLOW_STEPS, SymbolicExecutionLimits.NO_DURATION_LIMIT, strategy, false);
+    return createSymbolicExecutionVisitor("src/test/resources/se/MethodBehavior.java", limits).behaviorCache.behaviors;
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.cfg.CFGLoop;
+import org.sonar.java.cfg.CFGTest;
+import org.sonar.java.cfg.LiveVariables;
+import org.sonar.java.se.checks.SECheck;
+import org.sonar.java.se.constraint.BooleanConstraint;
+import org.sonar.java.se.constraint.ObjectConstraint;
+import org.sonar.java.se.symbolicvalues.RelationalSymbolicValue;
+import org.sonar.java.se.symbolicvalues.SymbolicValue;
+import org.sonar.plugins.java.api.semantic.Symbol;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.java.se.SETestUtils.createSymbolicExecutionVisitor;
+
+public class LoopHeadWideningTest {
+
+  @Test
+  public void states_only_differing_by_values_of_previous_iterations_are_merged_at_loop_heads() {
+    int withoutWidening = visitedStatements(false);
+    int withWidening = visitedStatements(true);
+    assertThat(withWidening).isPositive();
+    assertThat(withWidening).isLessThan(withoutWidening);
+  }
+
+  @Test
+  public void states_knowing_other_relations_between_live_variables_are_not_subsumed() {
+    CFG cfg = CFGTest.buildCFG("void foo(int a, int b) { while (a < b) { a++; } }");
+    LiveVariables liveVariables = LiveVariables.analyze(cfg);
+    CFG.Block loopHeadBlock = CFGLoop.loopHeads(cfg).iterator().next();
+    ProgramPoint loopHead = new ProgramPoint(loopHeadBlock);
+    LoopHeadWidening loopHeadWidening = new LoopHeadWidening(cfg, liveVariables);
+    Symbol a = liveVariable(liveVariables, loopHeadBlock, "a");
+    Symbol b = liveVariable(liveVariables, loopHeadBlock, "b");
+    SymbolicValue valueOfA = new SymbolicValue();
+    SymbolicValue valueOfB = new SymbolicValue();
+    ProgramState state = ProgramState.EMPTY_STATE.put(a, valueOfA).put(b, valueOfB);
+
+    assertThat(loopHeadWidening.isSubsumed(loopHead, state, false)).isFalse();
+    assertThat(loopHeadWidening.isSubsumed(loopHead, state.addConstraint(lessThan(valueOfA, valueOfB), BooleanConstraint.TRUE), false)).isFalse();
+    assertThat(loopHeadWidening.isSubsumed(loopHead, state.addConstraint(lessThan(valueOfB, valueOfA), BooleanConstraint.TRUE), false)).isFalse();
+    assertThat(loopHeadWidening.isSubsumed(loopHead, state.addConstraint(valueOfA, ObjectConstraint.NULL), false)).isFalse();
+
+    // same relation between the variables, with the value of the next iteration
+    SymbolicValue nextValueOfA = new SymbolicValue();
+    ProgramState nextIteration = ProgramState.EMPTY_STATE.put(a, nextValueOfA).put(b, valueOfB)
+      .addConstraint(lessThan(nextValueOfA, valueOfB), BooleanConstraint.TRUE);
+    assertThat(loopHeadWidening.isSubsumed(loopHead, nextIteration, false)).isTrue();
+  }
+
+  @Test
+  public void states_where_other_live_variables_share_a_value_are_not_subsumed() {
+    CFG cfg = CFGTest.buildCFG("void foo(Object a, Object b) { while (a != b) { a = b; } }");
+    LiveVariables liveVariables = LiveVariables.analyze(cfg);
+    CFG.Block loopHeadBlock = CFGLoop.loopHeads(cfg).iterator().next();
+    ProgramPoint loopHead = new ProgramPoint(loopHeadBlock);
+    LoopHeadWidening loopHeadWidening = new LoopHeadWidening(cfg, liveVariables);
+    Symbol a = liveVariable(liveVariables, loopHeadBlock, "a");
+    Symbol b = liveVariable(liveVariables, loopHeadBlock, "b");
+    SymbolicValue value = new SymbolicValue();
+
+    assertThat(loopHeadWidening.isSubsumed(loopHead, ProgramState.EMPTY_STATE.put(a, new SymbolicValue()).put(b, value), false)).isFalse();
+    assertThat(loopHeadWidening.isSubsumed(loopHead, ProgramState.EMPTY_STATE.put(a, value).put(b, value), false)).isFalse();
+    assertThat(loopHeadWidening.isSubsumed(loopHead, ProgramState.EMPTY_STATE.put(a, new SymbolicValue()).put(b, new SymbolicValue()), false)).isTrue();
+  }
+
+  private static Symbol liveVariable(LiveVariables liveVariables, CFG.Block block, String name) {
+    return liveVariables.getIn(block).stream().filter(symbol -> name.equals(symbol.name())).findFirst().orElseThrow(IllegalStateException::new);
+  }
+
+  private static RelationalSymbolicValue lessThan(SymbolicValue leftOp, SymbolicValue rightOp) {
+    RelationalSymbolicValue relation = new RelationalSymbolicValue(RelationalSymbolicValue.Kind.LESS_THAN);
+    relation.computedFrom(Arrays.asList(new ProgramState.SymbolicValueSymbol(rightOp, null), new ProgramState.SymbolicValueSymbol(leftOp, null)));
+    return relation;
+  }
+
+  private static int visitedStatements(boolean loopHeadWidening) {
+    SymbolicExecutionLimits limits = new SymbolicExecutionLimits(SymbolicExecutionLimits.DEFAULT_MAX_STEPS,
+      SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES, SymbolicExecutionLimits.DEFAULT_MAX_DEDUCED_RELATIONS,
+      SymbolicExecutionLimits.DEFAULT_MAX_FLOW_STEPS, SymbolicExecutionLimits.NO_DURATION_LIMIT, ExplorationStrategy.DEPTH_FIRST, loopHeadWidening);
+    StatementCounter counter = new StatementCounter();
+    createSymbolicExecutionVisitor("src/test/files/se/LoopHeadWidening.java", limits, counter);
+    return counter.count;
+  }
+
+  private static class StatementCounter extends SECheck {
+    private int count;
+
+    @Override
+    public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
+      count++;
+      return context.getState();
+    }
+  }
+
+}
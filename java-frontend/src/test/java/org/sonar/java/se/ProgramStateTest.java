@@ -36,6 +36,7 @@ import org.sonar.java.se.symbolicvalues.SymbolicValue;
 import org.sonar.java.se.symbolicvalues.SymbolicValueTestUtil;
 import org.sonar.plugins.java.api.semantic.Symbol;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -55,6 +56,27 @@ public class ProgramStateTest {
     assertThat(state.equals(state2)).isTrue();
   }
 
+  @Test
+  public void equal_maps_are_shared_by_program_states_of_the_exploded_graph() {
+    SymbolicValue sv1 = new SymbolicValue();
+    SymbolicValue sv2 = new SymbolicValue();
+    ProgramState state = ProgramState.EMPTY_STATE.addConstraint(sv1, ObjectConstraint.NOT_NULL);
+    ProgramState state2 = ProgramState.EMPTY_STATE.stackValue(sv2).addConstraint(sv1, ObjectConstraint.NOT_NULL);
+    assertThat(state).isNotEqualTo(state2);
+    // only states of the exploded graph are interned
+    assertThat(state2.constraints).isNotSameAs(state.constraints);
+
+    ExplodedGraph explodedGraph = new ExplodedGraph();
+    ProgramState node1State = explodedGraph.node(mock(ProgramPoint.class), state).programState;
+    ProgramState node2State = explodedGraph.node(mock(ProgramPoint.class), state2).programState;
+    assertThat(node1State).isSameAs(state);
+    assertThat(node2State).isEqualTo(state2);
+    assertThat(node2State.constraints).isSameAs(state.constraints);
+
+    ProgramState state3 = ProgramState.EMPTY_STATE.addConstraint(sv2, ObjectConstraint.NOT_NULL);
+    assertThat(explodedGraph.node(mock(ProgramPoint.class), state3).programState.constraints).isNotSameAs(state.constraints);
+  }
+
   @Test
   public void testStackUnstack() {
     SymbolicValue sv1 = new SymbolicValue();
@@ -244,6 +266,19 @@ public class ProgramStateTest {
     assertThat(ps.getConstraint(sv2, constraint.getClass())).isEqualTo(constraint);
   }
 
+  @Test
+  public void known_relations_follow_the_constraints_of_the_state() {
+    RelationalSymbolicValue rel = new RelationalSymbolicValue(RelationalSymbolicValue.Kind.EQUAL);
+    SymbolicValueTestUtil.computedFrom(rel, new SymbolicValue(), new SymbolicValue());
+    ProgramState ps = ProgramState.EMPTY_STATE.addConstraint(rel, BooleanConstraint.TRUE);
+    assertThat(ps.knownRelations().contains(rel)).isTrue();
+    assertThat(ProgramState.EMPTY_STATE.knownRelations().isEmpty()).isTrue();
+    assertThat(ps.addConstraint(rel, ObjectConstraint.NOT_NULL).knownRelations().contains(rel)).isTrue();
+    assertThat(ps.removeConstraintsOnDomain(rel, BooleanConstraint.class).knownRelations().isEmpty()).isTrue();
+    ProgramState cleaned = ps.addConstraint(new SymbolicValue(), ObjectConstraint.NOT_NULL).cleanupConstraints(Collections.emptyList());
+    assertThat(cleaned.knownRelations().contains(rel)).isTrue();
+  }
+
   @Test
   public void test_put_by_index() throws Exception {
     SymbolicValue sv = new SymbolicValue();
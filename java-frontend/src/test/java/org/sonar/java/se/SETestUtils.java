@@ -26,6 +26,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.sonar.java.ast.parser.JavaParser;
 import org.sonar.java.bytecode.cfg.BytecodeCFG;
@@ -58,15 +60,28 @@ public class SETestUtils {
     return createSymbolicExecutionVisitorAndSemantic(fileName, checks).a;
   }
 
+  public static SymbolicExecutionVisitor createSymbolicExecutionVisitor(String fileName, ExecutorService executor, SECheck... checks) {
+    return createSymbolicExecutionVisitorAndSemantic(fileName, true, executor, SymbolicExecutionLimits.defaultLimits(), checks).a;
+  }
+
+  public static SymbolicExecutionVisitor createSymbolicExecutionVisitor(String fileName, SymbolicExecutionLimits limits, SECheck... checks) {
+    return createSymbolicExecutionVisitorAndSemantic(fileName, true, null, limits, checks).a;
+  }
+
   public static Pair<SymbolicExecutionVisitor, SemanticModel> createSymbolicExecutionVisitorAndSemantic(String fileName, SECheck... checks) {
     return createSymbolicExecutionVisitorAndSemantic(fileName, true, checks);
   }
 
   public static Pair<SymbolicExecutionVisitor, SemanticModel> createSymbolicExecutionVisitorAndSemantic(String fileName, boolean crossFileEnabled, SECheck... checks) {
+    return createSymbolicExecutionVisitorAndSemantic(fileName, crossFileEnabled, null, SymbolicExecutionLimits.defaultLimits(), checks);
+  }
+
+  private static Pair<SymbolicExecutionVisitor, SemanticModel> createSymbolicExecutionVisitorAndSemantic(String fileName, boolean crossFileEnabled,
+    @Nullable ExecutorService executor, SymbolicExecutionLimits limits, SECheck... checks) {
     File file = new File(fileName);
     CompilationUnitTree cut = (CompilationUnitTree) PARSER.parse(file);
     SemanticModel semanticModel = SemanticModel.createFor(cut, CLASSLOADER);
-    SymbolicExecutionVisitor sev = new SymbolicExecutionVisitor(Arrays.asList(checks), new BehaviorCache(CLASSLOADER, crossFileEnabled));
+    SymbolicExecutionVisitor sev = new SymbolicExecutionVisitor(Arrays.asList(checks), new BehaviorCache(CLASSLOADER, crossFileEnabled, null, limits), executor);
     sev.scanFile(new DefaultJavaFileScannerContext(cut, file, semanticModel, null, new JavaVersionImpl(8), true));
     return new Pair<>(sev, semanticModel);
   }
@@ -0,0 +1,87 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import org.junit.Test;
+import org.sonar.java.se.checks.SECheck;
+import org.sonar.plugins.java.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.java.se.SETestUtils.createSymbolicExecutionVisitor;
+
+public class SymbolicExecutionLimitsTest {
+
+  @Test
+  public void default_limits() {
+    SymbolicExecutionLimits limits = SymbolicExecutionLimits.defaultLimits();
+    assertThat(limits.maxSteps()).isEqualTo(16_000);
+    assertThat(limits.maxNestedBooleanStates()).isEqualTo(10_000);
+    assertThat(limits.maxDeducedRelations()).isEqualTo(100_000);
+    assertThat(limits.maxFlowSteps()).isEqualTo(3_000_000);
+    assertThat(limits.isDurationLimited()).isFalse();
+    assertThat(limits.explorationStrategy()).isEqualTo(ExplorationStrategy.DEPTH_FIRST);
+    assertThat(limits.loopHeadWidening()).isFalse();
+    assertThat(limits.reachedLimitsDescription()).isEmpty();
+  }
+
+  @Test
+  public void reached_limits_are_counted() {
+    SymbolicExecutionLimits limits = new SymbolicExecutionLimits(3, 10_000, 100_000, 3_000_000, SymbolicExecutionLimits.NO_DURATION_LIMIT,
+      ExplorationStrategy.DEPTH_FIRST, false);
+    createSymbolicExecutionVisitor("src/test/resources/se/MethodBehavior.java", limits);
+    assertThat(limits.timesReached(SymbolicExecutionLimits.Limit.STEPS)).isPositive();
+    assertThat(limits.timesReached(SymbolicExecutionLimits.Limit.DURATION)).isZero();
+    assertThat(limits.reachedLimitsDescription()).isEqualTo("steps: " + limits.timesReached(SymbolicExecutionLimits.Limit.STEPS));
+  }
+
+  @Test
+  public void analyses_do_not_share_their_limits() {
+    SymbolicExecutionLimits tightLimits = new SymbolicExecutionLimits(3, 10_000, 100_000, 3_000_000, SymbolicExecutionLimits.NO_DURATION_LIMIT,
+      ExplorationStrategy.DEPTH_FIRST, false);
+    SymbolicExecutionLimits defaultLimits = SymbolicExecutionLimits.defaultLimits();
+    SymbolicExecutionVisitor tight = createSymbolicExecutionVisitor("src/test/resources/se/MethodBehavior.java", tightLimits);
+    SymbolicExecutionVisitor unbounded = createSymbolicExecutionVisitor("src/test/resources/se/MethodBehavior.java", defaultLimits);
+    assertThat(tightLimits.timesReached(SymbolicExecutionLimits.Limit.STEPS)).isPositive();
+    assertThat(defaultLimits.reachedLimitsDescription()).isEmpty();
+    assertThat(tight.behaviorCache.behaviors.get("MethodBehavior#topMethod(Z)Z").isComplete()).isFalse();
+    assertThat(unbounded.behaviorCache.behaviors.get("MethodBehavior#topMethod(Z)Z").isComplete()).isTrue();
+  }
+
+  @Test
+  public void exploration_of_a_method_is_interrupted_when_its_time_budget_is_spent() {
+    SymbolicExecutionLimits limits = new SymbolicExecutionLimits(16_000, 10_000, 100_000, 3_000_000, 1L, ExplorationStrategy.DEPTH_FIRST, false);
+    SECheck slowCheck = new SECheck() {
+      @Override
+      public ProgramState checkPreStatement(CheckerContext context, Tree syntaxNode) {
+        try {
+          Thread.sleep(2);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return context.getState();
+      }
+    };
+    SymbolicExecutionVisitor sev = createSymbolicExecutionVisitor("src/test/resources/se/MethodBehavior.java", limits, slowCheck);
+    assertThat(limits.timesReached(SymbolicExecutionLimits.Limit.DURATION)).isPositive();
+    assertThat(limits.timesReached(SymbolicExecutionLimits.Limit.STEPS)).isZero();
+    // interrupted explorations do not produce yields
+    assertThat(sev.behaviorCache.behaviors.get("MethodBehavior#topMethod(Z)Z").isComplete()).isFalse();
+  }
+}
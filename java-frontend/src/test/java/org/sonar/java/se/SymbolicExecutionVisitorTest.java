@@ -0,0 +1,99 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.java.cfg.CFG;
+import org.sonar.java.se.checks.SECheck;
+import org.sonar.java.se.xproc.MethodBehavior;
+import org.sonar.plugins.java.api.tree.MethodTree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.sonar.java.se.SETestUtils.createSymbolicExecutionVisitor;
+
+public class SymbolicExecutionVisitorTest {
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2, new ThreadFactoryBuilder().setNameFormat("se-test-%d").build());
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void overridable_methods_are_explored_concurrently_once_behaviors_are_computed() {
+    ExploringThreadCheck check = new ExploringThreadCheck();
+    SymbolicExecutionVisitor sev = createSymbolicExecutionVisitor("src/test/resources/se/MethodBehavior.java", executor, check);
+
+    String analysisThread = Thread.currentThread().getName();
+    assertThat(check.threadsByMethod.get("topMethod")).isEqualTo(analysisThread);
+    assertThat(check.threadsByMethod.get("foo")).isEqualTo(analysisThread);
+    assertThat(check.threadsByMethod.get("bar")).isEqualTo(analysisThread);
+    assertThat(check.threadsByMethod.get("publicMethod")).startsWith("se-test-");
+
+    // same behaviors, computed in the same order as when methods are explored sequentially
+    assertThat(sev.behaviorCache.behaviors.keySet()).containsExactly(
+      "MethodBehavior#topMethod(Z)Z",
+      "MethodBehavior#bar(Z)Z",
+      "MethodBehavior#foo(Z)Z",
+      "MethodBehavior#independent()V");
+    assertThat(sev.behaviorCache.behaviors.values()).allMatch(MethodBehavior::isVisited);
+  }
+
+  @Test
+  public void failure_of_a_concurrent_exploration_is_rethrown() {
+    SECheck failingCheck = new SECheck() {
+      @Override
+      public void init(MethodTree methodTree, CFG cfg) {
+        if ("publicMethod".equals(methodTree.simpleName().name())) {
+          throw new IllegalStateException("failure of publicMethod");
+        }
+      }
+    };
+    try {
+      createSymbolicExecutionVisitor("src/test/resources/se/MethodBehavior.java", executor, failingCheck);
+      fail("exception of the exploration should have been rethrown");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("failure of publicMethod");
+    }
+  }
+
+  private static class ExploringThreadCheck extends SECheck {
+    private final Map<String, String> threadsByMethod = new ConcurrentHashMap<>();
+
+    @Override
+    public void init(MethodTree methodTree, CFG cfg) {
+      threadsByMethod.put(methodTree.simpleName().name(), Thread.currentThread().getName());
+    }
+  }
+}
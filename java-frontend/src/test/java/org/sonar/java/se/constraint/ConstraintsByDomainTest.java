@@ -126,4 +126,50 @@ public class ConstraintsByDomainTest {
     assertThat(c.hasConstraint(ObjectConstraint.NULL)).isTrue();
     assertThat(c.hasConstraint(ObjectConstraint.NOT_NULL)).isFalse();
   }
+
+  @Test
+  public void engine_domains_have_first_ordinals() {
+    assertThat(ConstraintsByDomain.ordinal(ObjectConstraint.class)).isEqualTo(0);
+    assertThat(ConstraintsByDomain.ordinal(BooleanConstraint.class)).isEqualTo(1);
+    assertThat(ConstraintsByDomain.ordinal(ObjectConstraint.class)).isEqualTo(0);
+  }
+
+  @Test
+  public void domains_without_slot() {
+    Class<?>[] otherDomains = {Object.class, String.class, Integer.class, Long.class, Short.class, Byte.class, Character.class, Float.class,
+      Double.class, Boolean.class, Number.class, Void.class, Class.class, Thread.class, Runnable.class, Iterable.class, Comparable.class};
+    for (Class<?> domain : otherDomains) {
+      ConstraintsByDomain.ordinal(domain);
+    }
+    Constraint constraint = new Constraint() {
+    };
+    assertThat(ConstraintsByDomain.ordinal(constraint.getClass())).isGreaterThanOrEqualTo(ConstraintsByDomain.MAX_SLOTS);
+
+    ConstraintsByDomain c1 = ConstraintsByDomain.empty().put(constraint);
+    assertThat(c1.isEmpty()).isFalse();
+    assertThat(c1.get(constraint.getClass())).isSameAs(constraint);
+    assertThat(c1.hasConstraint(constraint)).isTrue();
+    assertThat(c1.put(constraint)).isSameAs(c1);
+
+    ConstraintsByDomain c2 = c1.put(ObjectConstraint.NULL);
+    assertThat(c2.domains()).containsExactly(ObjectConstraint.class, constraint.getClass());
+    assertThat(c2).isEqualTo(ConstraintsByDomain.empty().put(ObjectConstraint.NULL).put(constraint));
+    assertThat(c2.hashCode()).isEqualTo(ConstraintsByDomain.empty().put(ObjectConstraint.NULL).put(constraint).hashCode());
+    assertThat(c2.remove(ObjectConstraint.class)).isEqualTo(c1);
+    assertThat(c2.remove(constraint.getClass())).isEqualTo(ConstraintsByDomain.empty().put(ObjectConstraint.NULL));
+    assertThat(c1.remove(constraint.getClass())).isSameAs(ConstraintsByDomain.empty());
+    assertThat(ConstraintsByDomain.empty().remove(constraint.getClass())).isSameAs(ConstraintsByDomain.empty());
+  }
+
+  @Test
+  public void trailing_slots_are_trimmed() {
+    ConstraintsByDomain c = ConstraintsByDomain.empty().put(ObjectConstraint.NULL).put(BooleanConstraint.TRUE);
+    ConstraintsByDomain expected = ConstraintsByDomain.empty().put(ObjectConstraint.NULL);
+    assertThat(c.remove(BooleanConstraint.class)).isEqualTo(expected);
+    assertThat(c.remove(BooleanConstraint.class).hashCode()).isEqualTo(expected.hashCode());
+    assertThat(c.remove(BooleanConstraint.class).remove(ObjectConstraint.class)).isSameAs(ConstraintsByDomain.empty());
+    assertThat(c.remove(ObjectConstraint.class).get(ObjectConstraint.class)).isNull();
+    assertThat(c.remove(ObjectConstraint.class).get(BooleanConstraint.class)).isEqualTo(BooleanConstraint.TRUE);
+    assertThat(c.remove(ObjectConstraint.class).remove(ObjectConstraint.class)).isEqualTo(c.remove(ObjectConstraint.class));
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.symbolicvalues;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.EQUAL;
+import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.GREATER_THAN_OR_EQUAL;
+import static org.sonar.java.se.symbolicvalues.RelationalSymbolicValue.Kind.LESS_THAN;
+
+public class KnownRelationsTest {
+
+  private final SymbolicValue a = new SymbolicValue();
+  private final SymbolicValue b = new SymbolicValue();
+  private final SymbolicValue c = new SymbolicValue();
+  private final SymbolicValue d = new SymbolicValue();
+
+  @Test
+  public void relations_are_indexed_by_operands() {
+    RelationalSymbolicValue ab = new RelationalSymbolicValue(EQUAL, a, b);
+    RelationalSymbolicValue bc = new RelationalSymbolicValue(LESS_THAN, b, c);
+    RelationalSymbolicValue cc = new RelationalSymbolicValue(GREATER_THAN_OR_EQUAL, c, c);
+    KnownRelations knownRelations = KnownRelations.of(ImmutableList.of(ab, bc, cc));
+
+    assertThat(knownRelations.size()).isEqualTo(3);
+    assertThat(knownRelations.isEmpty()).isFalse();
+    assertThat(knownRelations.stream()).containsOnly(ab, bc, cc);
+    assertThat(knownRelations.withOperand(a)).containsOnly(ab);
+    assertThat(knownRelations.withOperand(b)).containsOnly(ab, bc);
+    assertThat(knownRelations.withOperand(c)).containsOnly(bc, cc);
+    assertThat(knownRelations.withOperand(d)).isEmpty();
+
+    assertThat(knownRelations.contains(ab)).isTrue();
+    // relations are compared structurally
+    assertThat(knownRelations.contains(new RelationalSymbolicValue(EQUAL, b, a))).isTrue();
+    assertThat(knownRelations.contains(new RelationalSymbolicValue(LESS_THAN, c, b))).isFalse();
+
+    knownRelations.add(new RelationalSymbolicValue(EQUAL, b, a));
+    assertThat(knownRelations.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void relations_sharing_operands_are_visited_once() {
+    RelationalSymbolicValue ab = new RelationalSymbolicValue(EQUAL, a, b);
+    RelationalSymbolicValue ba = new RelationalSymbolicValue(LESS_THAN, b, a);
+    RelationalSymbolicValue bc = new RelationalSymbolicValue(LESS_THAN, b, c);
+    RelationalSymbolicValue cd = new RelationalSymbolicValue(LESS_THAN, c, d);
+    KnownRelations knownRelations = KnownRelations.of(ImmutableList.of(ab, ba, bc, cd));
+
+    List<RelationalSymbolicValue> visited = new ArrayList<>();
+    knownRelations.forEachSharingOperandWith(new RelationalSymbolicValue(GREATER_THAN_OR_EQUAL, a, b), visited::add);
+    assertThat(visited).containsOnly(ab, ba, bc);
+    assertThat(visited).doesNotHaveDuplicates();
+
+    visited.clear();
+    knownRelations.forEachSharingOperandWith(new RelationalSymbolicValue(EQUAL, d, d), visited::add);
+    assertThat(visited).containsExactly(cd);
+  }
+
+  @Test
+  public void copies_are_independent() {
+    RelationalSymbolicValue ab = new RelationalSymbolicValue(EQUAL, a, b);
+    RelationalSymbolicValue bc = new RelationalSymbolicValue(LESS_THAN, b, c);
+    KnownRelations knownRelations = KnownRelations.empty();
+    assertThat(knownRelations.isEmpty()).isTrue();
+    knownRelations.add(ab);
+
+    KnownRelations copy = knownRelations.copy();
+    copy.add(bc);
+    assertThat(copy.size()).isEqualTo(2);
+    assertThat(knownRelations.size()).isEqualTo(1);
+    assertThat(knownRelations.contains(bc)).isFalse();
+    assertThat(knownRelations.withOperand(b).collect(Collectors.toList())).containsExactly(ab);
+  }
+
+}
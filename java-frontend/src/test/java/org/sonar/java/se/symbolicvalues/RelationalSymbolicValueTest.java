@@ -121,18 +121,18 @@ public class RelationalSymbolicValueTest {
   public void test_same_operand() {
     assertThat(sameOperandResolution(Tree.Kind.EQUAL_TO)).isEqualTo(FULFILLED);
     RelationalSymbolicValue eq = new RelationalSymbolicValue(METHOD_EQUALS, a, a);
-    assertThat(eq.resolveRelationState(Collections.emptySet())).isEqualTo(FULFILLED);
+    assertThat(eq.resolveRelationState(KnownRelations.empty())).isEqualTo(FULFILLED);
     assertThat(sameOperandResolution(Tree.Kind.LESS_THAN_OR_EQUAL_TO)).isEqualTo(FULFILLED);
     assertThat(sameOperandResolution(Tree.Kind.GREATER_THAN_OR_EQUAL_TO)).isEqualTo(FULFILLED);
 
     assertThat(sameOperandResolution(Tree.Kind.NOT_EQUAL_TO)).isEqualTo(UNFULFILLED);
-    assertThat(eq.inverse().resolveRelationState(Collections.emptySet())).isEqualTo(UNFULFILLED);
+    assertThat(eq.inverse().resolveRelationState(KnownRelations.empty())).isEqualTo(UNFULFILLED);
     assertThat(sameOperandResolution(Tree.Kind.LESS_THAN)).isEqualTo(UNFULFILLED);
     assertThat(sameOperandResolution(Tree.Kind.GREATER_THAN)).isEqualTo(UNFULFILLED);
   }
 
   private RelationState sameOperandResolution(Tree.Kind kind) {
-    return relationalSV(kind, a, a).resolveRelationState(Collections.emptySet());
+    return relationalSV(kind, a, a).resolveRelationState(KnownRelations.empty());
   }
 
   @Test
@@ -161,12 +161,12 @@ public class RelationalSymbolicValueTest {
     List<String> actual = new ArrayList<>();
     for (Tree.Kind operator : operators) {
       RelationalSymbolicValue test = relationalSV(operator, b, a);
-      RelationState relationState = test.resolveRelationState(Collections.singleton(known));
+      RelationState relationState = test.resolveRelationState(KnownRelations.of(Collections.singleton(known)));
       actual.add(String.format("given %s when %s -> %s", knownAsString.get(), relationToString(operator, a, b), relationState));
     }
     RelationalSymbolicValue eq = new RelationalSymbolicValue(RelationalSymbolicValue.Kind.METHOD_EQUALS, a, b);
     Stream.of(eq, eq.inverse()).forEach(rel -> {
-        RelationState relationState = rel.resolveRelationState(Collections.singleton(known));
+        RelationState relationState = rel.resolveRelationState(KnownRelations.of(Collections.singleton(known)));
         actual.add(String.format("given %s when %s -> %s", knownAsString.get(), rel, relationState));
       }
     );
@@ -353,7 +353,7 @@ public class RelationalSymbolicValueTest {
     RelationalSymbolicValue ab = relationalSV(Tree.Kind.EQUAL_TO, a, b);
     RelationalSymbolicValue bc = relationalSV(Tree.Kind.EQUAL_TO, b, c);
     RelationalSymbolicValue cd = relationalSV(Tree.Kind.EQUAL_TO, c, d);
-    Set<RelationalSymbolicValue> transitive = ab.transitiveRelations(ImmutableSet.of(ab, bc, cd));
+    Set<RelationalSymbolicValue> transitive = ab.transitiveRelations(KnownRelations.of(ImmutableSet.of(ab, bc, cd)));
     assertThat(transitive).containsOnly(relationalSV(Tree.Kind.EQUAL_TO, a, c), relationalSV(Tree.Kind.EQUAL_TO, b, d), relationalSV(Tree.Kind.EQUAL_TO, a, d));
   }
 
@@ -0,0 +1,122 @@
+/*
+ * SonarQube Java
+ * Copyright (C) 2012-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.java.se.xproc;
+
+import com.google.common.collect.Lists;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.java.ast.parser.JavaParser;
+import org.sonar.java.bytecode.loader.SquidClassLoader;
+import org.sonar.java.resolve.SemanticModel;
+import org.sonar.plugins.java.api.tree.CompilationUnitTree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BytecodeBehaviorStoreTest {
+
+  private static final String IS_NULL_OR_EMPTY = "com.google.common.base.Strings#isNullOrEmpty(Ljava/lang/String;)Z";
+  private static final String PROJECT_METHOD = "org.sonar.java.bytecode.se.testdata.BytecodeTestClass#fun(ZLjava/lang/Object;)Ljava/lang/Object;";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static SquidClassLoader squidClassLoader;
+  private static SemanticModel semanticModel;
+
+  @BeforeClass
+  public static void setUp() {
+    List<File> files = Lists.newArrayList(new File("target/test-classes"), new File("target/classes"));
+    files.addAll(FileUtils.listFiles(new File("target/test-jars"), new String[] {"jar"}, false));
+    squidClassLoader = new SquidClassLoader(files);
+    semanticModel = SemanticModel.createFor((CompilationUnitTree) JavaParser.createParser().parse("class A {}"), squidClassLoader);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    squidClassLoader.close();
+  }
+
+  @Test
+  public void behaviors_of_library_methods_are_restored_by_following_analyses() throws Exception {
+    File directory = temp.newFolder();
+    BehaviorCache cache = behaviorCache(new BytecodeBehaviorStore(directory, squidClassLoader, true));
+    MethodBehavior computed = cache.get(IS_NULL_OR_EMPTY);
+    assertThat(computed.isComplete()).isTrue();
+    assertThat(directory.listFiles()).isEmpty();
+
+    cache.saveBytecodeBehaviors();
+    assertThat(directory.listFiles()).hasSize(1);
+    assertThat(directory.listFiles()[0].getName()).endsWith("-xfile.bin");
+
+    Set<String> dependencies = new HashSet<>();
+    MethodBehavior restored = new BytecodeBehaviorStore(directory, squidClassLoader, true).load(IS_NULL_OR_EMPTY, dependencies);
+    assertThat(restored).isNotNull();
+    assertThat(restored).isNotSameAs(computed);
+    assertThat(restored.isComplete()).isTrue();
+    assertThat(restored.isVisited()).isTrue();
+    assertThat(restored.signature()).isEqualTo(IS_NULL_OR_EMPTY);
+    assertThat(restored.yields()).isEqualTo(computed.yields());
+    assertThat(restored.yields().toString()).isEqualTo(computed.yields().toString());
+    // isNullOrEmpty delegates to a method of another class of the same jar
+    assertThat(dependencies).contains("com.google.common.base.Strings", "com.google.common.base.Platform");
+
+    // behaviors computed without cross-file analysis are stored apart
+    assertThat(new BytecodeBehaviorStore(directory, squidClassLoader, false).load(IS_NULL_OR_EMPTY, new HashSet<>())).isNull();
+  }
+
+  @Test
+  public void behaviors_of_project_methods_are_not_stored() throws Exception {
+    File directory = temp.newFolder();
+    BehaviorCache cache = behaviorCache(new BytecodeBehaviorStore(directory, squidClassLoader, true));
+    assertThat(cache.get(PROJECT_METHOD)).isNotNull();
+    cache.saveBytecodeBehaviors();
+    assertThat(directory.listFiles()).isEmpty();
+  }
+
+  @Test
+  public void unreadable_files_are_ignored() throws Exception {
+    File directory = temp.newFolder();
+    BehaviorCache cache = behaviorCache(new BytecodeBehaviorStore(directory, squidClassLoader, true));
+    cache.get(IS_NULL_OR_EMPTY);
+    cache.saveBytecodeBehaviors();
+    File file = directory.listFiles()[0];
+    Files.write(file.toPath(), "corrupted".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(new BytecodeBehaviorStore(directory, squidClassLoader, true).load(IS_NULL_OR_EMPTY, new HashSet<>())).isNull();
+    // behavior is computed again
+    assertThat(behaviorCache(new BytecodeBehaviorStore(directory, squidClassLoader, true)).get(IS_NULL_OR_EMPTY).isComplete()).isTrue();
+  }
+
+  private static BehaviorCache behaviorCache(BytecodeBehaviorStore store) {
+    BehaviorCache behaviorCache = new BehaviorCache(squidClassLoader, true, store);
+    behaviorCache.setFileContext(null, semanticModel);
+    return behaviorCache;
+  }
+}
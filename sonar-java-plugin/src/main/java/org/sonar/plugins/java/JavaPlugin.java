@@ -20,7 +20,10 @@
 package org.sonar.plugins.java;
 
 import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.stream.Collectors;
 import org.sonar.api.Plugin;
+import org.sonar.api.PropertyType;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.SonarRuntime;
 import org.sonar.api.config.PropertyDefinition;
@@ -35,6 +38,8 @@ import org.sonar.java.JavaSonarLintClasspath;
 import org.sonar.java.JavaTestClasspath;
 import org.sonar.java.SonarComponents;
 import org.sonar.java.filters.PostAnalysisIssueFilter;
+import org.sonar.java.se.ExplorationStrategy;
+import org.sonar.java.se.SymbolicExecutionLimits;
 import org.sonar.plugins.jacoco.JaCoCoExtensions;
 import org.sonar.plugins.surefire.SurefireExtensions;
 
@@ -64,6 +69,93 @@ public class JavaPlugin implements Plugin {
         .name("Collect analysis error")
         .description("when set to true, if an exception is thrown by the analyzer, feedback will be collected and sent to server")
         .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.ANALYSIS_THREADS_KEY)
+        .defaultValue("1")
+        .hidden()
+        .type(PropertyType.INTEGER)
+        .name("Analysis threads")
+        .description("Number of threads used to parse Java files ahead of the analysis. When set to 1, files are parsed on the analysis thread")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.INCREMENTAL_ANALYSIS_KEY)
+        .defaultValue("false")
+        .hidden()
+        .name("Incremental analysis")
+        .description("when set to true, rules are not executed again on files whose content and dependencies did not change since the previous "
+          + "analysis with the same working directory, their issues are reported from the results of the previous analysis")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.PERFORMANCE_MEASURE_KEY)
+        .defaultValue("false")
+        .hidden()
+        .name("Performance measure")
+        .description("when set to true, the time spent in each phase of the analysis and by each rule is written in a JSON report of the "
+          + "working directory")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.RELEASE_ANALYZED_FILES_KEY)
+        .defaultValue("false")
+        .hidden()
+        .name("Release analyzed files")
+        .description("when set to true, the syntax tree and the semantic model of each file are released as soon as all the rules were "
+          + "executed on it, instead of being retained while the next file is analyzed")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_THREADS_KEY)
+        .defaultValue("1")
+        .hidden()
+        .type(PropertyType.INTEGER)
+        .name("Symbolic execution threads")
+        .description("Number of threads used to explore the methods of a file with symbolic execution. When set to 1, methods are explored "
+          + "on the analysis thread")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_MAX_STEPS_KEY)
+        .defaultValue(Integer.toString(SymbolicExecutionLimits.DEFAULT_MAX_STEPS))
+        .hidden()
+        .type(PropertyType.INTEGER)
+        .name("Symbolic execution maximum steps")
+        .description("Maximum number of steps of the symbolic execution of a method")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_MAX_NESTED_BOOLEAN_STATES_KEY)
+        .defaultValue(Integer.toString(SymbolicExecutionLimits.DEFAULT_MAX_NESTED_BOOLEAN_STATES))
+        .hidden()
+        .type(PropertyType.INTEGER)
+        .name("Symbolic execution maximum nested boolean states")
+        .description("Maximum number of program states created when evaluating a boolean expression")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_MAX_DEDUCED_RELATIONS_KEY)
+        .defaultValue(Integer.toString(SymbolicExecutionLimits.DEFAULT_MAX_DEDUCED_RELATIONS))
+        .hidden()
+        .type(PropertyType.INTEGER)
+        .name("Symbolic execution maximum deduced relations")
+        .description("Maximum number of relations deduced by transitivity between symbolic values")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_MAX_FLOW_STEPS_KEY)
+        .defaultValue(Integer.toString(SymbolicExecutionLimits.DEFAULT_MAX_FLOW_STEPS))
+        .hidden()
+        .type(PropertyType.INTEGER)
+        .name("Symbolic execution maximum flow steps")
+        .description("Maximum number of steps to compute the flow of an issue")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_MAX_METHOD_DURATION_KEY)
+        .defaultValue("0")
+        .hidden()
+        .type(PropertyType.INTEGER)
+        .name("Symbolic execution maximum method duration")
+        .description("Time budget in milliseconds of the symbolic execution of a method, including the computation of the flows of its issues. "
+          + "When set to 0, symbolic execution is not limited in time")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_EXPLORATION_STRATEGY_KEY)
+        .defaultValue(SymbolicExecutionLimits.DEFAULT_EXPLORATION_STRATEGY.name())
+        .hidden()
+        .type(PropertyType.SINGLE_SELECT_LIST)
+        .options(Arrays.stream(ExplorationStrategy.values()).map(Enum::name).collect(Collectors.toList()))
+        .name("Symbolic execution exploration strategy")
+        .description("Order in which the paths of a method are explored, which decides the paths left out when budgets are exhausted")
+        .build());
+      builder.add(PropertyDefinition.builder(SonarComponents.SYMBOLIC_EXECUTION_LOOP_HEAD_WIDENING_KEY)
+        .defaultValue("false")
+        .hidden()
+        .type(PropertyType.BOOLEAN)
+        .name("Symbolic execution loop head widening")
+        .description("Do not explore a state from a loop head when a state with the same constraints on the live variables was already explored from there")
+        .build());
       builder.add(JavaMetricDefinition.class);
 
       ExternalReportExtensions.define(context);